@@ -1,8 +1,12 @@
 import chess.*;
+import server.Server;
 
 public class Main {
     public static void main(String[] args) {
         var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess Server: " + piece);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        port = new Server().run(port);
+        System.out.println("Listening on port " + port);
     }
-}
\ No newline at end of file
+}
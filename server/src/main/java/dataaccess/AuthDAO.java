@@ -0,0 +1,20 @@
+package dataaccess;
+
+import model.AuthData;
+
+public interface AuthDAO {
+
+    void createAuth(AuthData auth) throws DataAccessException;
+
+    /**
+     * @return the session, or null if the token is unknown or logged out
+     */
+    AuthData getAuth(String authToken) throws DataAccessException;
+
+    /**
+     * @return false if there was no such session
+     */
+    boolean deleteAuth(String authToken) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
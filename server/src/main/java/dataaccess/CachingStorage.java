@@ -0,0 +1,272 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import model.GameData;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the most recently used games of another backend in memory. Reads of
+ * a cached game never reach the backend. Changes are written through to the
+ * backend before the cached copy is changed, so the backend is always
+ * current. Once more than the capacity are cached, the least recently used
+ * games are dropped.
+ * <p>
+ * Each game has one slot, and a game loads, saves and changes only while
+ * holding its slot. Commands that arrive together for one game therefore
+ * load it once. The cached {@link ChessGame} never leaves the cache: reads
+ * get their own copy, as from any other backend, and saved games are copied
+ * in. {@link #modify} makes a move on a copy while holding the slot, so no
+ * other command sees the game half changed, and caches it once it is saved.
+ * A slot in use is never dropped, so a second copy cannot be loaded beside it.
+ */
+public class CachingStorage implements Storage {
+
+    /**
+     * @param hits      reads answered from memory
+     * @param misses    reads that loaded the game from the backend
+     * @param evictions games dropped to stay within the capacity
+     * @param size      games cached now
+     */
+    public record Metrics(long hits, long misses, long evictions, int size) {
+    }
+
+    private static final class Slot {
+        // Guarded by the slot itself
+        GameData game;
+        boolean loaded;
+        // Guarded by the cache's lock
+        int users;
+    }
+
+    /**
+     * A change to a game, made on a copy of the cached one while holding the game's slot.
+     */
+    @FunctionalInterface
+    public interface Change {
+        /**
+         * @return the move made, saved with {@link GameDAO#saveMove}, or null
+         * to save the whole board with {@link GameDAO#updateGame}
+         */
+        ChessMove apply(ChessGame game) throws InvalidMoveException;
+    }
+
+    private interface SlotAction<T, E extends Exception> {
+        T run(Slot slot) throws DataAccessException, E;
+    }
+
+    private final Storage backend;
+    private final int capacity;
+    // In access order, least recently used first
+    private final LinkedHashMap<Integer, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object lock = new Object();
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity how many games to keep in memory
+     */
+    public CachingStorage(Storage backend, int capacity) {
+        this.backend = backend;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Runs the action holding the game's slot, which is made if the game has none.
+     * Eviction waits until the action is done, so a lookup of a missing game
+     * never pushes out a cached one.
+     */
+    private <T, E extends Exception> T withSlot(int gameID, SlotAction<T, E> action) throws DataAccessException, E {
+        Slot slot;
+        synchronized (lock) {
+            slot = slots.computeIfAbsent(gameID, id -> new Slot());
+            slot.users++;
+        }
+        try {
+            synchronized (slot) {
+                return action.run(slot);
+            }
+        } finally {
+            synchronized (lock) {
+                // A slot left empty, for a missing game or a failed save, would only take room from hot games
+                if (--slot.users == 0 && !slot.loaded) slots.remove(gameID, slot);
+                evict();
+            }
+        }
+    }
+
+    private static ChessGame copy(ChessGame game) {
+        return GameCodec.decode(GameCodec.encode(game));
+    }
+
+    private static GameData copy(GameData game) {
+        return game == null ? null : game.withGame(copy(game.game()));
+    }
+
+    // Called holding the slot, when a save failed and the backend may not hold what is cached
+    private static void forget(Slot slot) {
+        slot.game = null;
+        slot.loaded = false;
+    }
+
+    // Called holding the lock
+    private void evict() {
+        Iterator<Slot> eldest = slots.values().iterator();
+        while (slots.size() > capacity && eldest.hasNext()) {
+            if (eldest.next().users == 0) {
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    // Called holding the slot
+    private GameData load(int gameID, Slot slot) throws DataAccessException {
+        if (slot.loaded) {
+            synchronized (lock) {
+                hits++;
+            }
+            return slot.game;
+        }
+        synchronized (lock) {
+            misses++;
+        }
+        slot.game = backend.games().getGame(gameID);
+        // A missing game is not remembered, since the backend may create it under that ID later
+        slot.loaded = slot.game != null;
+        return slot.game;
+    }
+
+    /**
+     * Makes a change to a copy of a game and saves it while holding the
+     * game's slot, so no other command sees the game half changed. A change
+     * that throws leaves the cached game as it was. If the save fails, the
+     * cached copy is dropped and the game is loaded again from the backend
+     * next time.
+     *
+     * @return a copy of the changed game, or null if there is no such game or the save found it gone
+     */
+    public GameData modify(int gameID, Change change) throws DataAccessException, InvalidMoveException {
+        return withSlot(gameID, slot -> {
+            GameData game = load(gameID, slot);
+            if (game == null) return null;
+            ChessGame working = copy(game.game());
+            ChessMove move = change.apply(working);
+            boolean saved = false;
+            try {
+                saved = move == null
+                        ? backend.games().updateGame(gameID, working)
+                        : backend.games().saveMove(gameID, move, working);
+            } finally {
+                if (!saved) forget(slot);
+            }
+            if (!saved) return null;
+            slot.game = game.withGame(working);
+            return copy(slot.game);
+        });
+    }
+
+    private final GameDAO gameDAO = new GameDAO() {
+        @Override
+        public int createGame(String gameName) throws DataAccessException {
+            return backend.games().createGame(gameName);
+        }
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            return withSlot(gameID, slot -> copy(load(gameID, slot)));
+        }
+
+        @Override
+        public Collection<GameData> listGames() throws DataAccessException {
+            // Every change was written through, so the backend's list is current
+            return backend.games().listGames();
+        }
+
+        @Override
+        public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username)
+                throws DataAccessException {
+            return withSlot(gameID, slot -> {
+                if (!backend.games().claimSeat(gameID, color, username)) return false;
+                if (slot.loaded) slot.game = slot.game.withPlayer(color, username);
+                return true;
+            });
+        }
+
+        @Override
+        public boolean updateGame(int gameID, ChessGame game) throws DataAccessException {
+            return withSlot(gameID, slot -> {
+                boolean saved = false;
+                try {
+                    saved = backend.games().updateGame(gameID, game);
+                } finally {
+                    // Copied, since the caller may go on changing its game
+                    if (saved && slot.loaded) slot.game = slot.game.withGame(copy(game));
+                    if (!saved) forget(slot);
+                }
+                return saved;
+            });
+        }
+
+        @Override
+        public boolean saveMove(int gameID, ChessMove move, ChessGame after) throws DataAccessException {
+            return withSlot(gameID, slot -> {
+                boolean saved = false;
+                try {
+                    saved = backend.games().saveMove(gameID, move, after);
+                } finally {
+                    if (saved && slot.loaded) slot.game = slot.game.withGame(copy(after));
+                    if (!saved) forget(slot);
+                }
+                return saved;
+            });
+        }
+
+        @Override
+        public ChessGame positionAt(int gameID, int ply) throws DataAccessException {
+            return backend.games().positionAt(gameID, ply);
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            synchronized (lock) {
+                slots.clear();
+            }
+            backend.games().clear();
+        }
+    };
+
+    @Override
+    public UserDAO users() {
+        return backend.users();
+    }
+
+    @Override
+    public AuthDAO auths() {
+        return backend.auths();
+    }
+
+    @Override
+    public GameDAO games() {
+        return gameDAO;
+    }
+
+    public Metrics metrics() {
+        synchronized (lock) {
+            return new Metrics(hits, misses, evictions, slots.size());
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        synchronized (lock) {
+            slots.clear();
+        }
+        backend.close();
+    }
+}
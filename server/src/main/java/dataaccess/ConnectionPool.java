@@ -0,0 +1,425 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of JDBC connections.
+ * <p>
+ * {@link #getConnection()} hands out a wrapper whose {@code close()} puts
+ * the real connection back instead of closing it, so callers keep using
+ * try-with-resources as they would with a fresh connection. A connection
+ * that has sat idle for a while is checked with {@code isValid} before it is
+ * handed out. Connections older than the maximum lifetime are retired when
+ * they come back, and a background thread closes ones that stay idle too
+ * long. If no connection frees up within the acquire timeout the caller gets
+ * a {@link DataAccessException}.
+ * <p>
+ * Each pooled connection also keeps its most recently used prepared
+ * statements, keyed by SQL text. Preparing the same SQL again hands back the
+ * cached statement, and closing it clears its parameters and returns it to
+ * the cache. Statements pushed out of the cache, or belonging to a retired
+ * connection, are really closed.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /** Connections used more recently than this are handed out without a validation round trip. */
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens a new physical connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * @param maxSize        connections open at once, in use or idle
+     * @param acquireTimeout how long a caller waits for a connection before failing
+     * @param idleTimeout    idle connections older than this are closed
+     * @param maxLifetime    connections are retired once they are this old
+     * @param statementCacheSize prepared statements kept per connection, 0 to turn caching off
+     */
+    public record Settings(int maxSize, Duration acquireTimeout, Duration idleTimeout, Duration maxLifetime,
+                           int statementCacheSize) {
+        public static final Settings DEFAULT = new Settings(10, Duration.ofSeconds(5), Duration.ofMinutes(5),
+                Duration.ofMinutes(30), 32);
+    }
+
+    /**
+     * @param active       connections handed out now
+     * @param idle         connections waiting in the pool
+     * @param created      physical connections opened so far
+     * @param borrows      connections handed out so far
+     * @param timeouts     callers that gave up waiting
+     * @param waitNanos    total time callers spent waiting for a connection
+     * @param statementHits      prepares served from a statement cache
+     * @param statementMisses    prepares that went to the database
+     * @param statementEvictions cached statements closed to make room
+     */
+    public record Metrics(int active, int idle, long created, long borrows, long timeouts, long waitNanos,
+                          long statementHits, long statementMisses, long statementEvictions) {
+        public double averageWaitMillis() {
+            return borrows == 0 ? 0 : waitNanos / 1e6 / borrows;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    // Most recently returned first, so a few connections stay warm and the rest age out
+    private final Deque<Pooled> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, settings.idleTimeout().toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @throws DataAccessException if no connection is free within the acquire timeout or one cannot be opened
+     */
+    public Connection getConnection() throws DataAccessException {
+        if (closed) throw new DataAccessException("Connection pool is closed");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.acquireTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                timeouts.incrementAndGet();
+                throw new DataAccessException("Timed out after " + settings.acquireTimeout().toMillis()
+                        + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection");
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+        try {
+            Pooled pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new Pooled(factory.open());
+                created.incrementAndGet();
+            }
+            borrows.incrementAndGet();
+            return pooled.lend();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    // The first idle connection that is still fresh and answers, closing the rest on the way
+    private Pooled takeIdle() {
+        while (true) {
+            Pooled pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) return null;
+            long now = System.nanoTime();
+            if (pooled.expired(now) || pooled.idleTooLong(now) || !pooled.validate(now)) {
+                pooled.closeQuietly();
+                continue;
+            }
+            return pooled;
+        }
+    }
+
+    private void giveBack(Pooled pooled) {
+        try {
+            if (closed || pooled.expired(System.nanoTime()) || pooled.connection.isClosed()) {
+                pooled.closeQuietly();
+                return;
+            }
+            // Undo what the borrower may have left behind
+            pooled.releaseStatements();
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.nanoTime();
+            synchronized (idle) {
+                idle.addFirst(pooled);
+            }
+        } catch (SQLException e) {
+            pooled.closeQuietly();
+        } finally {
+            permits.release();
+        }
+    }
+
+    void evictIdle() {
+        long now = System.nanoTime();
+        synchronized (idle) {
+            for (Iterator<Pooled> it = idle.iterator(); it.hasNext(); ) {
+                Pooled pooled = it.next();
+                if (pooled.expired(now) || pooled.idleTooLong(now)) {
+                    it.remove();
+                    pooled.closeQuietly();
+                }
+            }
+        }
+    }
+
+    public Metrics metrics() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Metrics(settings.maxSize() - permits.availablePermits(), idleCount, created.get(), borrows.get(),
+                timeouts.get(), waitNanos.get(), statementHits.get(), statementMisses.get(),
+                statementEvictions.get());
+    }
+
+    /**
+     * Closes the idle connections; ones still in use are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        synchronized (idle) {
+            idle.forEach(Pooled::closeQuietly);
+            idle.clear();
+        }
+    }
+
+    private final class Pooled {
+        final Connection connection;
+        final long createdAt = System.nanoTime();
+        long lastUsed = createdAt;
+        // Least recently used first
+        final LinkedHashMap<String, Cached> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        Pooled(Connection connection) {
+            this.connection = connection;
+        }
+
+        boolean expired(long now) {
+            return now - createdAt >= settings.maxLifetime().toNanos();
+        }
+
+        boolean idleTooLong(long now) {
+            return now - lastUsed >= settings.idleTimeout().toNanos();
+        }
+
+        boolean validate(long now) {
+            if (now - lastUsed < VALIDATION_BYPASS_NANOS) return true;
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        PreparedStatement prepare(Method method, Object[] args, Loan loan) throws Throwable {
+            // The SQL plus any key or column options, since those change the statement
+            String key = Arrays.deepToString(args);
+            Cached cached = statements.get(key);
+            if (cached != null && !cached.inUse) {
+                statementHits.incrementAndGet();
+                return cached.lend(loan);
+            }
+            statementMisses.incrementAndGet();
+            PreparedStatement statement = (PreparedStatement) invokeOn(connection, method, args);
+            // The same SQL is open twice at once; the second copy is not cached
+            if (cached != null) return statement;
+            cached = new Cached(statement);
+            statements.put(key, cached);
+            if (statements.size() > settings.statementCacheSize()) {
+                Iterator<Cached> eldest = statements.values().iterator();
+                eldest.next().evict();
+                eldest.remove();
+                statementEvictions.incrementAndGet();
+            }
+            return cached.lend(loan);
+        }
+
+        // Statements the last borrower did not close become free for the next one
+        void releaseStatements() throws SQLException {
+            for (Cached cached : statements.values()) {
+                if (cached.inUse) cached.release();
+            }
+        }
+
+        void closeQuietly() {
+            for (Cached cached : statements.values()) {
+                cached.evict();
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Nothing more to do with a connection that is being thrown away
+            }
+        }
+
+        Connection lend() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Loan(this));
+        }
+    }
+
+    /**
+     * One borrower's view of a pooled connection, unusable once it is closed.
+     */
+    private final class Loan implements InvocationHandler {
+        private final Pooled pooled;
+        private boolean returned;
+
+        Loan(Pooled pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || pooled.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + pooled.connection;
+                }
+                default -> { }
+            }
+            if (returned) throw new SQLException("Connection is closed");
+            if (method.getName().equals("prepareStatement") && settings.statementCacheSize() > 0) {
+                return pooled.prepare(method, args, this);
+            }
+            return invokeOn(pooled.connection, method, args);
+        }
+    }
+
+    /**
+     * A prepared statement kept open on its connection between borrowers.
+     */
+    private static final class Cached {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Cached(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement lend(Loan loan) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new StatementLoan(this, loan));
+        }
+
+        void release() throws SQLException {
+            inUse = false;
+            if (evicted) {
+                statement.close();
+            } else {
+                statement.clearParameters();
+            }
+        }
+
+        // Closes the statement now, or when its borrower is done with it
+        void evict() {
+            evicted = true;
+            if (inUse) return;
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // Nothing more to do with a statement that is being thrown away
+            }
+        }
+    }
+
+    /**
+     * One borrower's view of a cached statement.
+     */
+    private static final class StatementLoan implements InvocationHandler {
+        private final Cached cached;
+        private final Loan loan;
+        private boolean closed;
+
+        StatementLoan(Cached cached, Loan loan) {
+            this.cached = cached;
+            this.loan = loan;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed && !loan.returned) {
+                        closed = true;
+                        cached.release();
+                    }
+                    closed = true;
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || loan.returned;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> { }
+            }
+            if (closed || loan.returned) throw new SQLException("Statement is closed");
+            return invokeOn(cached.statement, method, args);
+        }
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package dataaccess;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.Properties;
+
+public class DatabaseManager {
+    private static final String DATABASE_NAME;
+    private static final String USER;
+    private static final String PASSWORD;
+    private static final String CONNECTION_URL;
+    private static final ConnectionPool.Settings POOL_SETTINGS;
+
+    /*
+     * Load the database information for the db.properties file. The pool
+     * settings db.pool.maxSize, db.pool.acquireTimeoutMs, db.pool.idleTimeoutMs,
+     * db.pool.maxLifetimeMs and db.pool.statementCacheSize are optional.
+     */
+    static {
+        try {
+            try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
+                if (propStream == null) throw new Exception("Unable to load db.properties");
+                Properties props = new Properties();
+                props.load(propStream);
+                DATABASE_NAME = props.getProperty("db.name");
+                USER = props.getProperty("db.user");
+                PASSWORD = props.getProperty("db.password");
+
+                var host = props.getProperty("db.host");
+                var port = Integer.parseInt(props.getProperty("db.port"));
+                // Lets a JDBC batch go to the server in one round trip
+                CONNECTION_URL = String.format("jdbc:mysql://%s:%d?rewriteBatchedStatements=true", host, port);
+
+                var defaults = ConnectionPool.Settings.DEFAULT;
+                POOL_SETTINGS = new ConnectionPool.Settings(
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", Integer.toString(defaults.maxSize()))),
+                        millis(props, "db.pool.acquireTimeoutMs", defaults.acquireTimeout()),
+                        millis(props, "db.pool.idleTimeoutMs", defaults.idleTimeout()),
+                        millis(props, "db.pool.maxLifetimeMs", defaults.maxLifetime()),
+                        Integer.parseInt(props.getProperty("db.pool.statementCacheSize",
+                                Integer.toString(defaults.statementCacheSize()))));
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
+        }
+    }
+
+    private static Duration millis(Properties props, String name, Duration fallback) {
+        var value = props.getProperty(name);
+        return value == null ? fallback : Duration.ofMillis(Long.parseLong(value));
+    }
+
+    // Created on first use, so nothing connects until the database is needed
+    private static class Pool {
+        static final ConnectionPool INSTANCE = new ConnectionPool(() -> {
+            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+            conn.setCatalog(DATABASE_NAME);
+            return conn;
+        }, POOL_SETTINGS);
+    }
+
+    /**
+     * Creates the database if it does not already exist.
+     */
+    static void createDatabase() throws DataAccessException {
+        var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+        // Not pooled: pooled connections use the catalog this creates
+        try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Borrows a connection to the database from the pool, with the catalog
+     * set based upon the properties specified in db.properties. Connections
+     * should be short-lived, and you must close the connection when you are
+     * done with it, which returns it to the pool. The easiest way to do that
+     * is with a try-with-resource block.
+     * <br/>
+     * <code>
+     * try (var conn = DatabaseManager.getConnection()) {
+     * // execute SQL statements.
+     * }
+     * </code>
+     *
+     * @throws DataAccessException if no connection frees up within the pool's acquire timeout
+     */
+    static Connection getConnection() throws DataAccessException {
+        return Pool.INSTANCE.getConnection();
+    }
+
+    static ConnectionPool.Metrics poolMetrics() {
+        return Pool.INSTANCE.metrics();
+    }
+}
@@ -0,0 +1,535 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps everything in memory and logs every change to a {@link WriteAheadLog}
+ * in a local directory, so the data outlives the server without MySQL.
+ * <p>
+ * A change returns once its record is on disk. A background thread
+ * periodically writes the whole state to a snapshot and deletes the log
+ * segments it covers, so opening the directory again loads the newest
+ * snapshot and replays only the log written since.
+ * <p>
+ * A change is applied and logged under a lock chosen by the user, token or
+ * game it touches, which keeps the log in the same order as the changes to
+ * any one thing while changes to different things go ahead in parallel.
+ */
+public class FileStorage implements Storage {
+
+    /**
+     * @param segmentBytes     roughly how large a log segment grows before the next one starts
+     * @param snapshotInterval how often to snapshot, if anything changed
+     */
+    public record Settings(long segmentBytes, Duration snapshotInterval) {
+        public static final Settings DEFAULT = new Settings(16 << 20, Duration.ofMinutes(1));
+    }
+
+    /**
+     * @param records   changes logged since the storage was opened
+     * @param syncs     times the log was forced to disk; fewer than records when commits were grouped
+     * @param snapshots snapshots written since the storage was opened
+     */
+    public record Metrics(long records, long syncs, long snapshots) {
+    }
+
+    private static final byte REGISTER = 1;
+    private static final byte LOGIN = 2;
+    private static final byte LOGOUT = 3;
+    private static final byte CREATE = 4;
+    private static final byte JOIN = 5;
+    private static final byte MOVE = 6;
+    private static final byte CLEAR_USERS = 7;
+    private static final byte CLEAR_AUTHS = 8;
+    private static final byte CLEAR_GAMES = 9;
+
+    private static final int SNAPSHOT_MAGIC = 0x43485353;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int STRIPES = 64;
+
+    private interface Fields {
+        void write(DataOutput out) throws IOException;
+    }
+
+    private interface Change {
+        boolean apply() throws DataAccessException;
+    }
+
+    private interface Action<T> {
+        T call() throws DataAccessException;
+    }
+
+    private final Path directory;
+    private final MemoryStorage memory = new MemoryStorage();
+    private final WriteAheadLog log;
+    private final Object[] stripes = new Object[STRIPES];
+    private final ScheduledExecutorService snapshotter;
+    private final AtomicLong snapshots = new AtomicLong();
+    // Records logged when the last snapshot was taken
+    private volatile long snapshotRecords;
+    private final Object snapshotLock = new Object();
+    private boolean closed;
+
+    public FileStorage(Path directory) throws DataAccessException {
+        this(directory, Settings.DEFAULT);
+    }
+
+    public FileStorage(Path directory, Settings settings) throws DataAccessException {
+        this.directory = directory;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        log = new WriteAheadLog(directory, settings.segmentBytes());
+        try {
+            Files.createDirectories(directory);
+            long covered = loadSnapshot();
+            log.open(log.replay(covered, this::apply));
+        } catch (IOException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "storage-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.snapshotInterval().toMillis();
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                if (log.records() > snapshotRecords) snapshot();
+            } catch (DataAccessException e) {
+                System.err.println("Snapshot failed: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Writing records
+
+    /**
+     * @throws DataAccessException if a string is too long for the log, which
+     *                             keeps strings to 65535 bytes of modified UTF-8
+     */
+    private static byte[] record(byte op, Fields fields) throws DataAccessException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(op);
+            fields.write(out);
+        } catch (UTFDataFormatException e) {
+            throw new DataAccessException("Value too long to store");
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBytes(DataOutput out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return value;
+    }
+
+    private Object stripe(Object key) {
+        return stripes[(key.hashCode() * 0x9E3779B9 >>> 16) & (STRIPES - 1)];
+    }
+
+    /**
+     * Applies a change and, if it took effect, logs it and waits for the log to reach the disk.
+     */
+    private boolean change(Object key, byte[] record, Change change) throws DataAccessException {
+        long sequence;
+        synchronized (stripe(key)) {
+            if (!change.apply()) return false;
+            sequence = log.append(record);
+        }
+        commit(sequence);
+        return true;
+    }
+
+    private void commit(long sequence) throws DataAccessException {
+        try {
+            log.commit(sequence);
+        } catch (IOException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs with every stripe held, so no change is half done.
+     */
+    private <T> T exclusively(int stripe, Action<T> action) throws DataAccessException {
+        if (stripe == STRIPES) return action.call();
+        synchronized (stripes[stripe]) {
+            return exclusively(stripe + 1, action);
+        }
+    }
+
+    private void clear(byte op, Change clear) throws DataAccessException {
+        long sequence = exclusively(0, () -> {
+            clear.apply();
+            return log.append(record(op, out -> {
+            }));
+        });
+        commit(sequence);
+    }
+
+    // Replaying records
+
+    private void apply(ByteBuffer payload) throws IOException, DataAccessException {
+        var in = new DataInputStream(new ByteArrayInputStream(payload.array(),
+                payload.arrayOffset() + payload.position(), payload.remaining()));
+        switch (in.readByte()) {
+            case REGISTER -> memory.users().createUser(new UserData(in.readUTF(), in.readUTF(), in.readUTF()));
+            case LOGIN -> memory.auths().createAuth(new AuthData(in.readUTF(), in.readUTF()));
+            case LOGOUT -> memory.auths().deleteAuth(in.readUTF());
+            case CREATE -> memory.createGame(in.readInt(), in.readUTF());
+            case JOIN -> memory.games().claimSeat(in.readInt(), ChessGame.TeamColor.values()[in.readByte()],
+                    in.readUTF());
+            case MOVE -> memory.updateGame(in.readInt(), readBytes(in));
+            case CLEAR_USERS -> memory.users().clear();
+            case CLEAR_AUTHS -> memory.auths().clear();
+            case CLEAR_GAMES -> memory.games().clear();
+            default -> throw new DataAccessException("Unknown write-ahead log record");
+        }
+    }
+
+    // Snapshots
+
+    private Path snapshotPath(long segment) {
+        return directory.resolve(String.format("%s%010d%s", SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX));
+    }
+
+    private List<Long> snapshotIndexes() throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .forEach(name -> indexes.add(Long.parseLong(name, SNAPSHOT_PREFIX.length(),
+                            name.length() - SNAPSHOT_SUFFIX.length(), 10)));
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    /**
+     * Loads the newest snapshot, if there is one.
+     *
+     * @return the first log segment the snapshot does not cover
+     */
+    private long loadSnapshot() throws IOException, DataAccessException {
+        List<Long> indexes = snapshotIndexes();
+        if (indexes.isEmpty()) return 0;
+        long segment = indexes.get(indexes.size() - 1);
+        Path file = snapshotPath(segment);
+        byte[] bytes = Files.readAllBytes(file);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, Math.max(0, bytes.length - Long.BYTES));
+        if (bytes.length < Long.BYTES
+                || ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong() != crc.getValue()) {
+            // Snapshots are synced before they are renamed into place, so this is not a crash
+            throw new DataAccessException("Snapshot " + file.getFileName() + " is damaged");
+        }
+        var in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != SNAPSHOT_MAGIC) throw new DataAccessException(file.getFileName() + " is not a snapshot");
+        memory.restoreNextGameID(in.readInt());
+        for (int i = in.readInt(); i > 0; i--) {
+            memory.users().createUser(new UserData(in.readUTF(), in.readUTF(), in.readUTF()));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            memory.auths().createAuth(new AuthData(in.readUTF(), in.readUTF()));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            int gameID = in.readInt();
+            memory.restoreGame(gameID, new GameTable.Entry(readString(in), readString(in), in.readUTF(),
+                    readBytes(in)));
+        }
+        return segment;
+    }
+
+    private record State(long segment, long records, int nextGameID, List<UserData> users, List<AuthData> auths,
+                         List<Integer> gameIDs, List<GameTable.Entry> games) {
+    }
+
+    /**
+     * Writes the whole state to a new snapshot and deletes the log segments
+     * and older snapshots it replaces. Changes wait only while the state is
+     * copied, not while it is written.
+     */
+    public void snapshot() throws DataAccessException {
+        synchronized (snapshotLock) {
+            if (closed) return;
+            State state = exclusively(0, () -> {
+                try {
+                    long segment = log.roll();
+                    List<Integer> gameIDs = new ArrayList<>();
+                    List<GameTable.Entry> games = new ArrayList<>();
+                    memory.forEachGame((gameID, entry) -> {
+                        gameIDs.add(gameID);
+                        games.add(entry);
+                    });
+                    return new State(segment, log.records(), memory.nextGameID(),
+                            new ArrayList<>(memory.allUsers()), new ArrayList<>(memory.allAuths()), gameIDs, games);
+                } catch (IOException e) {
+                    throw new DataAccessException(e.getMessage());
+                }
+            });
+            try {
+                writeSnapshot(state);
+                for (long old : snapshotIndexes()) {
+                    if (old < state.segment()) Files.deleteIfExists(snapshotPath(old));
+                }
+                log.deleteBefore(state.segment());
+            } catch (IOException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+            snapshotRecords = state.records();
+            snapshots.incrementAndGet();
+        }
+    }
+
+    private void writeSnapshot(State state) throws IOException {
+        Path file = snapshotPath(state.segment());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffered = new BufferedOutputStream(Channels.newOutputStream(channel));
+            var checked = new CheckedOutputStream(buffered, new CRC32());
+            var out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(state.nextGameID());
+            out.writeInt(state.users().size());
+            for (UserData user : state.users()) {
+                out.writeUTF(user.username());
+                out.writeUTF(user.password());
+                out.writeUTF(user.email());
+            }
+            out.writeInt(state.auths().size());
+            for (AuthData auth : state.auths()) {
+                out.writeUTF(auth.authToken());
+                out.writeUTF(auth.username());
+            }
+            out.writeInt(state.games().size());
+            for (int i = 0; i < state.games().size(); i++) {
+                GameTable.Entry game = state.games().get(i);
+                out.writeInt(state.gameIDs().get(i));
+                writeString(out, game.whiteUsername());
+                writeString(out, game.blackUsername());
+                out.writeUTF(game.gameName());
+                writeBytes(out, game.game());
+            }
+            out.flush();
+            // Written past the checksum, which must not include itself
+            new DataOutputStream(buffered).writeLong(checked.getChecksum().getValue());
+            buffered.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // The DAOs
+
+    private final UserDAO userDAO = new UserDAO() {
+        @Override
+        public boolean createUser(UserData user) throws DataAccessException {
+            byte[] record = record(REGISTER, out -> {
+                out.writeUTF(user.username());
+                out.writeUTF(user.password());
+                out.writeUTF(user.email());
+            });
+            return change(user.username(), record, () -> memory.users().createUser(user));
+        }
+
+        @Override
+        public UserData getUser(String username) throws DataAccessException {
+            return memory.users().getUser(username);
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            FileStorage.this.clear(CLEAR_USERS, () -> {
+                memory.users().clear();
+                return true;
+            });
+        }
+    };
+
+    private final AuthDAO authDAO = new AuthDAO() {
+        @Override
+        public void createAuth(AuthData auth) throws DataAccessException {
+            byte[] record = record(LOGIN, out -> {
+                out.writeUTF(auth.authToken());
+                out.writeUTF(auth.username());
+            });
+            change(auth.authToken(), record, () -> {
+                memory.auths().createAuth(auth);
+                return true;
+            });
+        }
+
+        @Override
+        public AuthData getAuth(String authToken) throws DataAccessException {
+            return memory.auths().getAuth(authToken);
+        }
+
+        @Override
+        public boolean deleteAuth(String authToken) throws DataAccessException {
+            byte[] record = record(LOGOUT, out -> out.writeUTF(authToken));
+            return change(authToken, record, () -> memory.auths().deleteAuth(authToken));
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            FileStorage.this.clear(CLEAR_AUTHS, () -> {
+                memory.auths().clear();
+                return true;
+            });
+        }
+    };
+
+    private final GameDAO gameDAO = new GameDAO() {
+        @Override
+        public int createGame(String gameName) throws DataAccessException {
+            // The ID comes first, so the game cannot be joined before its creation is logged
+            int gameID = memory.allocateGameID();
+            byte[] record = record(CREATE, out -> {
+                out.writeInt(gameID);
+                out.writeUTF(gameName);
+            });
+            change(gameID, record, () -> {
+                memory.createGame(gameID, gameName);
+                return true;
+            });
+            return gameID;
+        }
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            return memory.games().getGame(gameID);
+        }
+
+        @Override
+        public Collection<GameData> listGames() throws DataAccessException {
+            return memory.games().listGames();
+        }
+
+        @Override
+        public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username)
+                throws DataAccessException {
+            byte[] record = record(JOIN, out -> {
+                out.writeInt(gameID);
+                out.writeByte(color.ordinal());
+                out.writeUTF(username);
+            });
+            return change(gameID, record, () -> memory.games().claimSeat(gameID, color, username));
+        }
+
+        @Override
+        public boolean updateGame(int gameID, ChessGame game) throws DataAccessException {
+            byte[] packed = GameCodec.encode(game);
+            byte[] record = record(MOVE, out -> {
+                out.writeInt(gameID);
+                writeBytes(out, packed);
+            });
+            return change(gameID, record, () -> memory.updateGame(gameID, packed));
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            FileStorage.this.clear(CLEAR_GAMES, () -> {
+                memory.games().clear();
+                return true;
+            });
+        }
+    };
+
+    @Override
+    public UserDAO users() {
+        return userDAO;
+    }
+
+    @Override
+    public AuthDAO auths() {
+        return authDAO;
+    }
+
+    @Override
+    public GameDAO games() {
+        return gameDAO;
+    }
+
+    public Metrics metrics() {
+        return new Metrics(log.records(), log.syncs(), snapshots.get());
+    }
+
+    /**
+     * Takes a last snapshot, so the next start has no log to replay.
+     */
+    @Override
+    public void close() throws DataAccessException {
+        // Not interrupted: a running snapshot finishes, and the last one below is then quick
+        snapshotter.shutdown();
+        try {
+            if (!snapshotter.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("Snapshot still running at close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            snapshot();
+        } finally {
+            synchronized (snapshotLock) {
+                closed = true;
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    throw new DataAccessException(e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package dataaccess;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.engine.Pieces;
+import chess.engine.RepetitionHistory;
+import com.google.gson.Gson;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Packs a game into a few dozen bytes instead of a graph of boards and pieces.
+ * <p>
+ * Version 1 is a version byte, a byte of flags (bit 0 set when black is to
+ * move), one nibble per square holding the engine piece code, square 0 (a1)
+ * in the low nibble of the first byte, then the number of positions in the
+ * repetition window as a varint and their Zobrist keys. The version byte
+ * comes first so later formats can be told apart; none can start with '{',
+ * which marks games saved as JSON before there was a binary format.
+ */
+final class GameCodec {
+
+    static final int VERSION = 1;
+
+    private static final int SQUARES = 64;
+    private static final int BLACK_TO_MOVE = 1;
+
+    private GameCodec() {
+    }
+
+    static byte[] encode(ChessGame game) {
+        var bytes = new ByteArrayOutputStream(2 + SQUARES / 2 + 1 + game.getHistory().size() * Long.BYTES);
+        try {
+            write(game, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ChessGame decode(byte[] bytes) {
+        try {
+            return read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void write(ChessGame game, OutputStream stream) throws IOException {
+        DataOutput out = new DataOutputStream(stream);
+        out.writeByte(VERSION);
+        out.writeByte(game.getTeamTurn() == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0);
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < SQUARES; square += 2) {
+            out.writeByte(code(board, square) | code(board, square + 1) << 4);
+        }
+        RepetitionHistory history = game.getHistory();
+        writeVarint(out, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            out.writeLong(history.key(i));
+        }
+    }
+
+    /**
+     * Reads one game from the stream, leaving it positioned just after the game.
+     *
+     * @throws IOException if the stream ends early or holds a version this does not know
+     */
+    static ChessGame read(InputStream stream) throws IOException {
+        DataInput in = new DataInputStream(stream);
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unknown game format version " + version);
+        ChessGame.TeamColor turn = (in.readUnsignedByte() & BLACK_TO_MOVE) != 0
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < SQUARES; square += 2) {
+            int pair = in.readUnsignedByte();
+            place(board, square, pair & 0xF);
+            place(board, square + 1, pair >>> 4);
+        }
+        long[] window = new long[readVarint(in)];
+        for (int i = 0; i < window.length; i++) {
+            window[i] = in.readLong();
+        }
+        return ChessGame.restore(board, turn, window);
+    }
+
+    private static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static ChessPosition position(int square) {
+        return new ChessPosition(square / 8 + 1, square % 8 + 1);
+    }
+
+    private static int code(ChessBoard board, int square) {
+        ChessPiece piece = board.getPiece(position(square));
+        return piece == null ? Pieces.EMPTY : Pieces.fromChessPiece(piece);
+    }
+
+    private static void place(ChessBoard board, int square, int code) {
+        if (code != Pieces.EMPTY) board.addPiece(position(square), Pieces.toChessPiece(code));
+    }
+
+    /**
+     * Compares this format with Gson's JSON on games of random legal moves:
+     * the size of each, and how long each takes to write and to read.
+     * <p>
+     * Usage: GameCodec [games] [plies]
+     */
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        List<ChessGame> games = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            games.add(randomGame(random, plies));
+        }
+        Gson gson = new Gson();
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (ChessGame game : games) {
+            jsonBytes += gson.toJson(game).getBytes().length;
+            binaryBytes += encode(game).length;
+        }
+        System.out.printf("%d games of %d plies%n", count, plies);
+        System.out.printf("JSON:   %6d bytes per game%n", jsonBytes / count);
+        System.out.printf("binary: %6d bytes per game%n", binaryBytes / count);
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (ChessGame game : games) gson.fromJson(gson.toJson(game), ChessGame.class);
+            long json = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (ChessGame game : games) decode(encode(game));
+            long binary = System.nanoTime() - start;
+            System.out.printf("round %d: JSON %.1f us, binary %.1f us per write and read%n",
+                    round + 1, json / 1e3 / count, binary / 1e3 / count);
+        }
+    }
+
+    static ChessGame randomGame(Random random, int plies) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int ply = 0; ply < plies && game.evaluateStatus() == ChessGame.GameStatus.IN_PROGRESS; ply++) {
+            List<ChessMove> moves = new ArrayList<>();
+            for (ChessPosition position : game.getAllPositions()) {
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    moves.addAll(game.validMoves(position));
+                }
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+        return game;
+    }
+}
@@ -0,0 +1,72 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import model.GameData;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface GameDAO {
+
+    /**
+     * Stores a new game with open seats and a fresh board.
+     *
+     * @return the new game's ID, never 0
+     */
+    int createGame(String gameName) throws DataAccessException;
+
+    /**
+     * @return the game, or null if there is no game with that ID
+     */
+    GameData getGame(int gameID) throws DataAccessException;
+
+    Collection<GameData> listGames() throws DataAccessException;
+
+    /**
+     * Gives a seat to a player if nobody has it yet, in one atomic step so
+     * two players joining at once cannot both get it.
+     *
+     * @return false if the game does not exist or the seat is taken
+     */
+    boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException;
+
+    /**
+     * Replaces the board of an existing game, after a move or a resignation.
+     *
+     * @return false if the game does not exist
+     */
+    boolean updateGame(int gameID, ChessGame game) throws DataAccessException;
+
+    /**
+     * Saves a move just made in a game. Backends that keep a game as the list
+     * of its moves store only the move; the rest store the board it led to.
+     *
+     * @param after the game with the move made
+     * @return false if the game does not exist
+     */
+    default boolean saveMove(int gameID, ChessMove move, ChessGame after) throws DataAccessException {
+        return updateGame(gameID, after);
+    }
+
+    /**
+     * @return the game as it stood after the given number of moves, or null if
+     * the game has not had that many moves, does not exist, or the backend
+     * keeps only the latest board
+     */
+    default ChessGame positionAt(int gameID, int ply) throws DataAccessException {
+        return null;
+    }
+
+    /**
+     * Replaces the boards of several games at once. Backends that can write
+     * them in one round trip override this; games that no longer exist are skipped.
+     */
+    default void updateGames(Map<Integer, ChessGame> games) throws DataAccessException {
+        for (Map.Entry<Integer, ChessGame> game : games.entrySet()) {
+            updateGame(game.getKey(), game.getValue());
+        }
+    }
+
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,233 @@
+package dataaccess;
+
+import chess.ChessGame;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Games by ID, in open-addressing tables keyed by primitive ints so there is
+ * no boxed key or map node per game.
+ * <p>
+ * IDs are spread over segments by their low bits. Lookups take no lock.
+ * Inserting takes its segment's write lock; changing a game takes the read
+ * lock, which only keeps the table from being resized underneath it, and
+ * swaps in the new entry with a compare-and-set, so players joining
+ * different games never wait on each other.
+ */
+final class GameTable {
+
+    /**
+     * A stored game, with its board packed by {@link GameCodec}.
+     */
+    record Entry(String whiteUsername, String blackUsername, String gameName, byte[] game) {
+
+        String username(ChessGame.TeamColor color) {
+            return color == ChessGame.TeamColor.WHITE ? whiteUsername : blackUsername;
+        }
+
+        Entry withPlayer(ChessGame.TeamColor color, String username) {
+            return color == ChessGame.TeamColor.WHITE
+                    ? new Entry(username, blackUsername, gameName, game)
+                    : new Entry(whiteUsername, username, gameName, game);
+        }
+    }
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Entry[].class);
+
+    /**
+     * One generation of a segment's table. A key of 0 marks a free slot, since
+     * no game has ID 0. A slot's entry is published before its key, so a reader
+     * that sees the key also sees an entry.
+     */
+    private static final class Table {
+        final int[] keys;
+        final Entry[] values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new Entry[capacity];
+            mask = capacity - 1;
+        }
+
+        int slot(int gameID) {
+            int i = hash(gameID) & mask;
+            while (true) {
+                int key = (int) KEYS.getAcquire(keys, i);
+                if (key == gameID || key == 0) return key == 0 ? -1 - i : i;
+                i = (i + 1) & mask;
+            }
+        }
+    }
+
+    private static final class Segment {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile Table table = new Table(INITIAL_CAPACITY);
+        int size;
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    GameTable() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private static int hash(int gameID) {
+        // The low bits choose the segment, so mix the rest
+        int h = (gameID >>> SEGMENT_BITS) * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    private Segment segment(int gameID) {
+        return segments[gameID & (SEGMENTS - 1)];
+    }
+
+    /**
+     * @return the game, or null if there is none with that ID
+     */
+    Entry get(int gameID) {
+        Table table = segment(gameID).table;
+        int slot = table.slot(gameID);
+        return slot < 0 ? null : (Entry) VALUES.getAcquire(table.values, slot);
+    }
+
+    /**
+     * Adds or replaces a game.
+     */
+    void put(int gameID, Entry entry) {
+        Segment segment = segment(gameID);
+        segment.lock.writeLock().lock();
+        try {
+            Table table = segment.table;
+            int slot = table.slot(gameID);
+            if (slot >= 0) {
+                VALUES.setRelease(table.values, slot, entry);
+                return;
+            }
+            if ((segment.size + 1) * 4 > table.keys.length * 3) {
+                table = grow(segment);
+                slot = table.slot(gameID);
+            }
+            slot = -1 - slot;
+            VALUES.setRelease(table.values, slot, entry);
+            KEYS.setRelease(table.keys, slot, gameID);
+            segment.size++;
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    // Called with the write lock held; readers keep using the old table until the new one is complete
+    private static Table grow(Segment segment) {
+        Table old = segment.table;
+        Table table = new Table(old.keys.length * 2);
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] != 0) {
+                int slot = -1 - table.slot(old.keys[i]);
+                table.values[slot] = old.values[i];
+                table.keys[slot] = old.keys[i];
+            }
+        }
+        segment.table = table;
+        return table;
+    }
+
+    /**
+     * Replaces a game with what the update makes of it, retrying if another
+     * thread changes it first.
+     *
+     * @param update returns the new entry, or null to leave the game unchanged
+     * @return false if there is no such game or the update declined
+     */
+    boolean update(int gameID, UnaryOperator<Entry> update) {
+        Segment segment = segment(gameID);
+        segment.lock.readLock().lock();
+        try {
+            Table table = segment.table;
+            int slot = table.slot(gameID);
+            if (slot < 0) return false;
+            while (true) {
+                Entry current = (Entry) VALUES.getAcquire(table.values, slot);
+                Entry next = update.apply(current);
+                if (next == null) return false;
+                if (VALUES.compareAndSet(table.values, slot, current, next)) return true;
+            }
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Calls the visitor with every game, in no particular order.
+     */
+    void forEach(Visitor visitor) {
+        for (Segment segment : segments) {
+            Table table = segment.table;
+            for (int i = 0; i < table.keys.length; i++) {
+                int key = (int) KEYS.getAcquire(table.keys, i);
+                if (key != 0) visitor.visit(key, (Entry) VALUES.getAcquire(table.values, i));
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(int gameID, Entry entry);
+    }
+
+    /**
+     * @return slots in all the segments' tables, used or free
+     */
+    int slots() {
+        int slots = 0;
+        for (Segment segment : segments) {
+            slots += segment.table.keys.length;
+        }
+        return slots;
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            segment.lock.writeLock().lock();
+            try {
+                segment.table = new Table(INITIAL_CAPACITY);
+                segment.size = 0;
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap a table of new games with one player seated costs,
+     * from the heap in use before and after filling it. The figure depends
+     * on the collector, so it is printed rather than tested.
+     * <p>
+     * Usage: GameTable [games]
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        byte[] board = GameCodec.encode(new ChessGame());
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        var table = new GameTable();
+        for (int gameID = 1; gameID <= count; gameID++) {
+            table.put(gameID, new Entry("alice", null, "game", board));
+        }
+        System.gc();
+        long used = runtime.totalMemory() - runtime.freeMemory() - before;
+        System.out.printf("%d games in %d slots: about %d bytes per game%n", count, table.slots(), used / count);
+        // Keeps the table reachable until the heap has been measured
+        if (table.get(count) == null) throw new AssertionError();
+    }
+}
@@ -0,0 +1,180 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps everything in memory, for tests and servers that need no persistence.
+ * <p>
+ * Games are held packed by {@link GameCodec} in a {@link GameTable}, so a
+ * game costs well under a hundred bytes plus its names, and every read
+ * returns a fresh copy like the other backends do. Users and sessions are in
+ * concurrent hash maps, which already lock per bin rather than per map.
+ */
+public class MemoryStorage implements Storage {
+
+    // Every new game starts from the same position, so they can share its bytes
+    private static final byte[] NEW_GAME = GameCodec.encode(new ChessGame());
+
+    private final ConcurrentHashMap<String, UserData> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AuthData> auths = new ConcurrentHashMap<>();
+    private final GameTable games = new GameTable();
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
+
+    private static GameData toGameData(int gameID, GameTable.Entry entry) {
+        return new GameData(gameID, entry.whiteUsername(), entry.blackUsername(), entry.gameName(),
+                GameCodec.decode(entry.game()));
+    }
+
+    private final UserDAO userDAO = new UserDAO() {
+        @Override
+        public boolean createUser(UserData user) {
+            return users.putIfAbsent(user.username(), user) == null;
+        }
+
+        @Override
+        public UserData getUser(String username) {
+            return users.get(username);
+        }
+
+        @Override
+        public void clear() {
+            users.clear();
+        }
+    };
+
+    private final AuthDAO authDAO = new AuthDAO() {
+        @Override
+        public void createAuth(AuthData auth) {
+            auths.put(auth.authToken(), auth);
+        }
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            return auths.get(authToken);
+        }
+
+        @Override
+        public boolean deleteAuth(String authToken) {
+            return auths.remove(authToken) != null;
+        }
+
+        @Override
+        public void clear() {
+            auths.clear();
+        }
+    };
+
+    private final GameDAO gameDAO = new GameDAO() {
+        @Override
+        public int createGame(String gameName) {
+            int gameID = nextGameID.getAndIncrement();
+            games.put(gameID, new GameTable.Entry(null, null, gameName, NEW_GAME));
+            return gameID;
+        }
+
+        @Override
+        public GameData getGame(int gameID) {
+            GameTable.Entry entry = games.get(gameID);
+            return entry == null ? null : toGameData(gameID, entry);
+        }
+
+        @Override
+        public Collection<GameData> listGames() {
+            var list = new ArrayList<GameData>();
+            games.forEach((gameID, entry) -> list.add(toGameData(gameID, entry)));
+            return list;
+        }
+
+        @Override
+        public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) {
+            return games.update(gameID,
+                    entry -> entry.username(color) == null ? entry.withPlayer(color, username) : null);
+        }
+
+        @Override
+        public boolean updateGame(int gameID, ChessGame game) {
+            return MemoryStorage.this.updateGame(gameID, GameCodec.encode(game));
+        }
+
+        @Override
+        public void clear() {
+            games.clear();
+        }
+    };
+
+    @Override
+    public UserDAO users() {
+        return userDAO;
+    }
+
+    @Override
+    public AuthDAO auths() {
+        return authDAO;
+    }
+
+    @Override
+    public GameDAO games() {
+        return gameDAO;
+    }
+
+    // For backends that keep their data here and log changes elsewhere
+
+    /**
+     * Takes the next game ID, so a change can be logged under its ID before the game exists.
+     */
+    int allocateGameID() {
+        return nextGameID.getAndIncrement();
+    }
+
+    int nextGameID() {
+        return nextGameID.get();
+    }
+
+    void createGame(int gameID, String gameName) {
+        restoreGame(gameID, new GameTable.Entry(null, null, gameName, NEW_GAME));
+    }
+
+    /**
+     * Stores a game exactly as given, and keeps new IDs above it.
+     */
+    void restoreGame(int gameID, GameTable.Entry entry) {
+        games.put(gameID, entry);
+        nextGameID.accumulateAndGet(gameID + 1, Math::max);
+    }
+
+    void restoreNextGameID(int gameID) {
+        nextGameID.accumulateAndGet(gameID, Math::max);
+    }
+
+    /**
+     * @param packed the game as {@link GameCodec} encodes it
+     */
+    boolean updateGame(int gameID, byte[] packed) {
+        return games.update(gameID, entry ->
+                new GameTable.Entry(entry.whiteUsername(), entry.blackUsername(), entry.gameName(), packed));
+    }
+
+    Collection<UserData> allUsers() {
+        return users.values();
+    }
+
+    Collection<AuthData> allAuths() {
+        return auths.values();
+    }
+
+    void forEachGame(GameTable.Visitor visitor) {
+        games.forEach(visitor);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,470 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.engine.Moves;
+import com.google.gson.Gson;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps everything in the database configured in db.properties, creating the
+ * database and its tables on first use.
+ * <p>
+ * A game is kept as the moves played in it, packed into two bytes each, and
+ * binary snapshots of its position from {@link GameCodec}, taken when it is
+ * created and every {@link #SNAPSHOT_INTERVAL} moves.
+ * Saving a move is one small insert, and loading a game, or its position at
+ * any earlier move, is the snapshot before it plus the moves since.
+ * <p>
+ * A game saved whole, rather than move by move, is kept apart in the game's
+ * own row with the number of moves logged when it was saved. It is where
+ * loading the latest position starts unless a later snapshot exists, but
+ * the snapshots and earlier positions are left as they were played.
+ */
+public class MySqlStorage implements Storage {
+
+    private static final String[] CREATE_STATEMENTS = {
+            """
+            CREATE TABLE IF NOT EXISTS user (
+              username VARCHAR(255) NOT NULL,
+              password VARCHAR(255) NOT NULL,
+              email VARCHAR(255) NOT NULL,
+              PRIMARY KEY (username)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS auth (
+              authToken VARCHAR(255) NOT NULL,
+              username VARCHAR(255) NOT NULL,
+              PRIMARY KEY (authToken)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game (
+              gameID INT NOT NULL AUTO_INCREMENT,
+              whiteUsername VARCHAR(255),
+              blackUsername VARCHAR(255),
+              gameName VARCHAR(255) NOT NULL,
+              board BLOB,
+              boardPly INT NOT NULL DEFAULT 0,
+              PRIMARY KEY (gameID)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_move (
+              gameID INT NOT NULL,
+              ply INT NOT NULL,
+              move SMALLINT NOT NULL,
+              PRIMARY KEY (gameID, ply)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_snapshot (
+              gameID INT NOT NULL,
+              ply INT NOT NULL,
+              game BLOB NOT NULL,
+              PRIMARY KEY (gameID, ply)
+            )
+            """
+    };
+
+    /**
+     * Moves between the snapshots taken as a game is played, so loading a
+     * game never replays more than this many moves.
+     */
+    static final int SNAPSHOT_INTERVAL = 32;
+
+    // Stores a whole game in its row, with the moves logged so far; no row is changed if the game does not exist
+    private static final String SAVE_BOARD = """
+            UPDATE game SET board = ?, boardPly = (SELECT COALESCE(MAX(m.ply), 0) FROM game_move m WHERE m.gameID = ?)
+            WHERE gameID = ?
+            """;
+
+    private static final String SELECT_GAME = "SELECT gameID, whiteUsername, blackUsername, gameName, board, boardPly FROM game";
+
+    // Only for reading snapshots saved as JSON before they were binary
+    private static final Gson GSON = new Gson();
+
+    public MySqlStorage() throws DataAccessException {
+        DatabaseManager.createDatabase();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            for (String statement : CREATE_STATEMENTS) {
+                try (PreparedStatement preparedStatement = conn.prepareStatement(statement)) {
+                    preparedStatement.executeUpdate();
+                }
+            }
+            migrateSnapshots(conn);
+            migrateBoards(conn);
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Turns a JSON text snapshot column from before the binary format into a
+     * BLOB. The JSON keeps its bytes, and {@link #readSnapshot} still reads it.
+     */
+    private static void migrateSnapshots(Connection conn) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement("""
+                SELECT DATA_TYPE FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'game_snapshot' AND COLUMN_NAME = 'game'
+                """);
+             ResultSet rs = statement.executeQuery()) {
+            if (!rs.next() || rs.getString(1).equalsIgnoreCase("blob")) return;
+        }
+        try (PreparedStatement statement = conn.prepareStatement(
+                "ALTER TABLE game_snapshot MODIFY game BLOB NOT NULL")) {
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds the columns for games saved whole to a game table from before they
+     * were kept apart from the snapshots.
+     */
+    private static void migrateBoards(Connection conn) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement("""
+                SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'game' AND COLUMN_NAME = 'board'
+                """);
+             ResultSet rs = statement.executeQuery()) {
+            if (rs.next() && rs.getInt(1) > 0) return;
+        }
+        try (PreparedStatement statement = conn.prepareStatement(
+                "ALTER TABLE game ADD COLUMN board BLOB, ADD COLUMN boardPly INT NOT NULL DEFAULT 0")) {
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Decodes a snapshot as it streams from the database.
+     */
+    private static ChessGame readSnapshot(ResultSet rs) throws SQLException, DataAccessException {
+        try (InputStream in = new BufferedInputStream(rs.getBinaryStream("game"))) {
+            in.mark(1);
+            boolean json = in.read() == '{';
+            in.reset();
+            if (json) {
+                return GSON.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), ChessGame.class);
+            }
+            return GameCodec.read(in);
+        } catch (IOException e) {
+            throw new DataAccessException("Unreadable game snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs an INSERT, UPDATE or DELETE.
+     *
+     * @return the number of rows it changed
+     */
+    private static int update(String statement, Object... params) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(statement)) {
+            bind(preparedStatement, params);
+            return preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+    }
+
+    /**
+     * Loads a game from its latest snapshot at or before the given move and the moves after that.
+     *
+     * @param saved    the game as last saved whole, or null to use only the snapshots
+     * @param savedPly the moves logged when it was saved; it is used unless a later snapshot exists
+     * @return the game, or null if it does not exist or has not had that many moves
+     */
+    private static ChessGame loadGame(Connection conn, int gameID, int ply, ChessGame saved, int savedPly)
+            throws SQLException, DataAccessException {
+        ChessGame game = saved;
+        int reached = savedPly;
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT ply, game FROM game_snapshot WHERE gameID=? AND ply<=? ORDER BY ply DESC LIMIT 1")) {
+            bind(statement, gameID, ply);
+            try (ResultSet rs = statement.executeQuery()) {
+                // A snapshot taken at the same move as a whole save is older than it
+                if (rs.next() && (saved == null || rs.getInt("ply") > savedPly)) {
+                    reached = rs.getInt("ply");
+                    game = readSnapshot(rs);
+                }
+            }
+        }
+        if (game == null) return null;
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT ply, move FROM game_move WHERE gameID=? AND ply>? AND ply<=? ORDER BY ply")) {
+            bind(statement, gameID, reached, ply);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    game.makeMove(Moves.toChessMove(rs.getShort("move")));
+                    reached = rs.getInt("ply");
+                }
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Game " + gameID + " has an illegal move in its log");
+            }
+        }
+        return ply == Integer.MAX_VALUE || reached == ply ? game : null;
+    }
+
+    private static GameData readGame(Connection conn, ResultSet rs) throws SQLException, DataAccessException {
+        int gameID = rs.getInt("gameID");
+        byte[] board = rs.getBytes("board");
+        ChessGame saved = board == null ? null : GameCodec.decode(board);
+        return new GameData(gameID, rs.getString("whiteUsername"), rs.getString("blackUsername"),
+                rs.getString("gameName"), loadGame(conn, gameID, Integer.MAX_VALUE, saved, rs.getInt("boardPly")));
+    }
+
+    private final UserDAO userDAO = new UserDAO() {
+        @Override
+        public boolean createUser(UserData user) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement statement = conn.prepareStatement(
+                         "INSERT INTO user (username, password, email) VALUES (?, ?, ?)")) {
+                bind(statement, user.username(), user.password(), user.email());
+                statement.executeUpdate();
+                return true;
+            } catch (SQLIntegrityConstraintViolationException e) {
+                return false;
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public UserData getUser(String username) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement statement = conn.prepareStatement(
+                         "SELECT username, password, email FROM user WHERE username=?")) {
+                statement.setString(1, username);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next()
+                            ? new UserData(rs.getString("username"), rs.getString("password"), rs.getString("email"))
+                            : null;
+                }
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            update("TRUNCATE user");
+        }
+    };
+
+    private final AuthDAO authDAO = new AuthDAO() {
+        @Override
+        public void createAuth(AuthData auth) throws DataAccessException {
+            update("INSERT INTO auth (authToken, username) VALUES (?, ?)", auth.authToken(), auth.username());
+        }
+
+        @Override
+        public AuthData getAuth(String authToken) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement statement = conn.prepareStatement(
+                         "SELECT authToken, username FROM auth WHERE authToken=?")) {
+                statement.setString(1, authToken);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next() ? new AuthData(rs.getString("authToken"), rs.getString("username")) : null;
+                }
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean deleteAuth(String authToken) throws DataAccessException {
+            return update("DELETE FROM auth WHERE authToken=?", authToken) == 1;
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            update("TRUNCATE auth");
+        }
+    };
+
+    private final GameDAO gameDAO = new GameDAO() {
+        @Override
+        public int createGame(String gameName) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection()) {
+                conn.setAutoCommit(false);
+                int gameID;
+                try (PreparedStatement statement = conn.prepareStatement(
+                        "INSERT INTO game (gameName) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+                    statement.setString(1, gameName);
+                    statement.executeUpdate();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        if (!keys.next()) throw new DataAccessException("No ID was generated for the game");
+                        gameID = keys.getInt(1);
+                    }
+                }
+                try (PreparedStatement statement = conn.prepareStatement(
+                        "INSERT INTO game_snapshot (gameID, ply, game) VALUES (?, 0, ?)")) {
+                    bind(statement, gameID, GameCodec.encode(new ChessGame()));
+                    statement.executeUpdate();
+                }
+                conn.commit();
+                return gameID;
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement statement = conn.prepareStatement(
+                         SELECT_GAME + " WHERE gameID=?")) {
+                statement.setInt(1, gameID);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next() ? readGame(conn, rs) : null;
+                }
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public Collection<GameData> listGames() throws DataAccessException {
+            var games = new ArrayList<GameData>();
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement statement = conn.prepareStatement(
+                         SELECT_GAME);
+                 ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) games.add(readGame(conn, rs));
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+            return games;
+        }
+
+        @Override
+        public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username)
+                throws DataAccessException {
+            // The IS NULL check makes the database settle two players racing for a seat
+            String statement = color == ChessGame.TeamColor.WHITE
+                    ? "UPDATE game SET whiteUsername=? WHERE gameID=? AND whiteUsername IS NULL"
+                    : "UPDATE game SET blackUsername=? WHERE gameID=? AND blackUsername IS NULL";
+            return update(statement, username, gameID) == 1;
+        }
+
+        @Override
+        public boolean saveMove(int gameID, ChessMove move, ChessGame after) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection()) {
+                conn.setAutoCommit(false);
+                int ply;
+                // Locking the game row keeps two moves in one game from taking the same number
+                try (PreparedStatement statement = conn.prepareStatement("""
+                        SELECT (SELECT COALESCE(MAX(m.ply), 0) FROM game_move m WHERE m.gameID = g.gameID)
+                        FROM game g WHERE g.gameID = ? FOR UPDATE
+                        """)) {
+                    statement.setInt(1, gameID);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        if (!rs.next()) return false;
+                        ply = rs.getInt(1) + 1;
+                    }
+                }
+                try (PreparedStatement statement = conn.prepareStatement(
+                        "INSERT INTO game_move (gameID, ply, move) VALUES (?, ?, ?)")) {
+                    bind(statement, gameID, ply, (short) Moves.fromChessMove(move));
+                    statement.executeUpdate();
+                }
+                if (ply % SNAPSHOT_INTERVAL == 0) {
+                    try (PreparedStatement statement = conn.prepareStatement(
+                            "INSERT INTO game_snapshot (gameID, ply, game) VALUES (?, ?, ?)")) {
+                        bind(statement, gameID, ply, GameCodec.encode(after));
+                        statement.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public ChessGame positionAt(int gameID, int ply) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection()) {
+                return loadGame(conn, gameID, ply, null, 0);
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean updateGame(int gameID, ChessGame game) throws DataAccessException {
+            return update(SAVE_BOARD, GameCodec.encode(game), gameID, gameID) > 0;
+        }
+
+        @Override
+        public void updateGames(Map<Integer, ChessGame> games) throws DataAccessException {
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement statement = conn.prepareStatement(SAVE_BOARD)) {
+                // One transaction and one round trip for the whole batch
+                conn.setAutoCommit(false);
+                for (Map.Entry<Integer, ChessGame> game : games.entrySet()) {
+                    bind(statement, GameCodec.encode(game.getValue()), game.getKey(), game.getKey());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            update("TRUNCATE game_move");
+            update("TRUNCATE game_snapshot");
+            update("TRUNCATE game");
+        }
+    };
+
+    @Override
+    public UserDAO users() {
+        return userDAO;
+    }
+
+    @Override
+    public AuthDAO auths() {
+        return authDAO;
+    }
+
+    @Override
+    public GameDAO games() {
+        return gameDAO;
+    }
+
+    /**
+     * Leaves the connection pool open, since it is shared by the whole JVM.
+     */
+    @Override
+    public void close() {
+    }
+}
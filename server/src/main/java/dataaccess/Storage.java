@@ -0,0 +1,50 @@
+package dataaccess;
+
+import java.nio.file.Path;
+
+/**
+ * A storage backend: the users, sessions and games of one server.
+ * <p>
+ * Every backend passes the same conformance tests, so the server and its
+ * tests can run on the in-memory or file backend where there is no MySQL.
+ */
+public interface Storage extends AutoCloseable {
+
+    enum Kind {
+        /** Lost when the server stops. */
+        MEMORY,
+        /** An append-only log of changes in a local directory. */
+        FILE,
+        /** The database configured in db.properties. */
+        MYSQL
+    }
+
+    UserDAO users();
+
+    AuthDAO auths();
+
+    GameDAO games();
+
+    /**
+     * Removes every user, session and game.
+     */
+    default void clear() throws DataAccessException {
+        games().clear();
+        auths().clear();
+        users().clear();
+    }
+
+    @Override
+    void close() throws DataAccessException;
+
+    /**
+     * @param directory where the file backend keeps its data; ignored by the others
+     */
+    static Storage open(Kind kind, Path directory) throws DataAccessException {
+        return switch (kind) {
+            case MEMORY -> new MemoryStorage();
+            case FILE -> new FileStorage(directory);
+            case MYSQL -> new MySqlStorage();
+        };
+    }
+}
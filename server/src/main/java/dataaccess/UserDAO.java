@@ -0,0 +1,18 @@
+package dataaccess;
+
+import model.UserData;
+
+public interface UserDAO {
+
+    /**
+     * @return false if the username is already taken
+     */
+    boolean createUser(UserData user) throws DataAccessException;
+
+    /**
+     * @return the user, or null if there is none with that name
+     */
+    UserData getUser(String username) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,309 @@
+package dataaccess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of records split over numbered segment files.
+ * <p>
+ * Each record is framed by its length and a CRC32, so a record torn by a
+ * crash is found and cut off on replay. Appends only copy into a buffer;
+ * {@link #commit} writes the buffer and forces it to disk. Callers that
+ * commit while another thread is forcing wait for it and then find their
+ * records already written, or write everything queued up meanwhile with one
+ * force, so a burst of changes costs a handful of disk syncs.
+ * <p>
+ * All channel I/O runs on one log thread, with callers waiting for it. A
+ * {@link FileChannel} closes itself when the thread using it is interrupted,
+ * so an interrupted request thread doing the write itself would stop the
+ * log for everyone. A caller interrupted while waiting keeps waiting for its
+ * records and returns with its interrupt status set.
+ * <p>
+ * Once a write or force fails, the records it held may be partly on disk,
+ * so nothing after them could be trusted on replay. The log then stops:
+ * every later commit, roll and flush fails with the first error.
+ */
+final class WriteAheadLog implements Closeable {
+
+    interface RecordHandler {
+        void handle(ByteBuffer payload) throws IOException, DataAccessException;
+    }
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int FRAME = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    // Guarded by the buffer's own monitor
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appended;
+    private long records;
+
+    // Only used on the log thread
+    private final ExecutorService writer;
+    private FileChannel channel;
+    private long segment;
+    private long segmentSize;
+    private IOException failure;
+    private volatile long durable;
+    private volatile long syncs;
+
+    WriteAheadLog(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "storage-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, index, SUFFIX));
+    }
+
+    /**
+     * @return the indexes of the segments in the directory, oldest first
+     */
+    static List<Long> segments(Path directory) throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> indexes.add(Long.parseLong(name, PREFIX.length(),
+                            name.length() - SUFFIX.length(), 10)));
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    /**
+     * Hands every record in the segments from the given index on to the
+     * handler, in order. A torn or corrupt record ends the replay; if it is in
+     * the last segment, where a crash mid-write leaves it, it is cut off,
+     * otherwise the log is damaged and this fails.
+     *
+     * @return the index the next segment should have
+     */
+    long replay(long fromSegment, RecordHandler handler) throws IOException, DataAccessException {
+        List<Long> indexes = segments(directory);
+        long next = fromSegment;
+        for (int i = 0; i < indexes.size(); i++) {
+            long index = indexes.get(i);
+            if (index < fromSegment) continue;
+            Path file = segmentPath(directory, index);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            int valid = 0;
+            while (buffer.remaining() >= FRAME) {
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()
+                        || checksum(buffer.array(), buffer.position(), length) != crc) {
+                    break;
+                }
+                handler.handle(buffer.slice(buffer.position(), length));
+                buffer.position(buffer.position() + length);
+                valid = buffer.position();
+            }
+            if (valid < buffer.capacity()) {
+                if (i != indexes.size() - 1) {
+                    throw new DataAccessException("Write-ahead log segment " + file.getFileName() + " is damaged");
+                }
+                try (FileChannel torn = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    torn.truncate(valid);
+                }
+            }
+            next = index + 1;
+        }
+        return next;
+    }
+
+    /**
+     * Starts writing to a new segment with the given index.
+     */
+    void open(long index) throws IOException {
+        onWriter(() -> {
+            startSegment(index);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the task on the log thread and waits for it, through interrupts.
+     */
+    private <T> T onWriter(Callable<T> task) throws IOException {
+        Future<T> future = writer.submit(task);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException io) throw io;
+                    if (cause instanceof RuntimeException runtime) throw runtime;
+                    if (cause instanceof Error error) throw error;
+                    throw new IOException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startSegment(long index) throws IOException {
+        if (channel != null) channel.close();
+        channel = FileChannel.open(segmentPath(directory, index),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment = index;
+        segmentSize = channel.size();
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Queues a record. It is not on disk until {@link #commit} returns.
+     *
+     * @return the sequence number to commit
+     */
+    long append(byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME);
+        frame.putInt(payload.length).putInt(checksum(payload, 0, payload.length));
+        synchronized (pending) {
+            pending.writeBytes(frame.array());
+            pending.writeBytes(payload);
+            records++;
+            return ++appended;
+        }
+    }
+
+    /**
+     * Returns once the record with the given sequence number, and everything
+     * queued before it, is on disk.
+     */
+    void commit(long sequence) throws IOException {
+        if (durable >= sequence) return;
+        onWriter(() -> {
+            // Commits queued behind a flush usually find their records already written
+            if (durable < sequence) flush();
+            return null;
+        });
+    }
+
+    // Called on the log thread
+    private void flush() throws IOException {
+        if (failure != null) throw new IOException("Write-ahead log failed earlier: " + failure, failure);
+        byte[] bytes;
+        long upTo;
+        synchronized (pending) {
+            bytes = pending.toByteArray();
+            pending.reset();
+            upTo = appended;
+        }
+        if (bytes.length == 0) {
+            durable = upTo;
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            // The records are lost and may be torn on disk, so none after them can be acknowledged
+            failure = e;
+            throw e;
+        }
+        syncs++;
+        segmentSize += bytes.length;
+        durable = upTo;
+        if (segmentSize >= segmentBytes) {
+            try {
+                startSegment(segment + 1);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes out everything queued and moves on to a new segment, so that
+     * everything logged so far is in segments before the returned index.
+     * The caller must keep new records from being appended meanwhile.
+     *
+     * @return the index of the new segment
+     */
+    long roll() throws IOException {
+        return onWriter(() -> {
+            flush();
+            if (segmentSize > 0) startSegment(segment + 1);
+            return segment;
+        });
+    }
+
+    /**
+     * Deletes the segments before the given index, once a snapshot covers them.
+     */
+    void deleteBefore(long index) throws IOException {
+        for (long old : segments(directory)) {
+            if (old < index) Files.deleteIfExists(segmentPath(directory, old));
+        }
+    }
+
+    long records() {
+        synchronized (pending) {
+            return records;
+        }
+    }
+
+    long syncs() {
+        return syncs;
+    }
+
+    /**
+     * Writes out everything queued, closes the segment and stops the log
+     * thread. A log that has failed has nothing more it can write, so it
+     * only closes.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer.isShutdown()) return;
+        try {
+            onWriter(() -> {
+                if (channel == null) return null;
+                try {
+                    if (failure == null) flush();
+                } finally {
+                    channel.close();
+                    channel = null;
+                }
+                return null;
+            });
+        } finally {
+            writer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Puts off writing boards to another backend, so a game that moves several
+ * times between flushes is written once, and all the games changed in an
+ * interval go to the backend as one {@link GameDAO#updateGames} batch.
+ * <p>
+ * Reads see the latest board even before it is written. Boards are kept
+ * encoded, so an update is a snapshot of the game as it was saved, and each
+ * read or batch decodes a fresh copy that the caller may change. A board is written
+ * within one flush interval of its update, or as soon as more than the
+ * backlog limit of games are waiting; a crash loses at most that much.
+ * Users, sessions and seats are not delayed. Moves are saved as the boards
+ * they lead to, so earlier positions are not kept even if the backend could.
+ */
+public class WriteBehindStorage implements Storage {
+
+    /**
+     * @param flushInterval the longest an update waits to be written
+     * @param maxBacklog    how many games may wait before an update flushes them itself
+     */
+    public record Settings(Duration flushInterval, int maxBacklog) {
+        public static final Settings DEFAULT = new Settings(Duration.ofMillis(100), 10_000);
+    }
+
+    /**
+     * @param updates       board updates accepted
+     * @param written       boards written to the backend; fewer than updates when moves were coalesced
+     * @param flushes       batches written
+     * @param failures      batches the backend rejected, whose boards were queued again
+     * @param backlog       games waiting to be written now
+     * @param lastBatchSize games in the last batch
+     * @param lastFlush     how long the last batch took to write
+     * @param maxFlush      the longest any batch took to write
+     */
+    public record Metrics(long updates, long written, long flushes, long failures, int backlog, int lastBatchSize,
+                          Duration lastFlush, Duration maxFlush) {
+    }
+
+    private final Storage backend;
+    private final Settings settings;
+    private final ConcurrentHashMap<Integer, byte[]> pending = new ConcurrentHashMap<>();
+    // Taken out of pending but not yet written, so reads still see them
+    private volatile Map<Integer, byte[]> inFlight = Map.of();
+    // Games known to exist, so most updates need not ask the backend
+    private final Set<Integer> known = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    public WriteBehindStorage(Storage backend, Settings settings) {
+        this.backend = backend;
+        this.settings = settings;
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "storage-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.flushInterval().toNanos();
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (DataAccessException e) {
+                System.err.println("Write-behind flush failed: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes every waiting board to the backend now.
+     */
+    public void flush() throws DataAccessException {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) return;
+            // Published before leaving pending, so reads always find each board in one or the other
+            Map<Integer, byte[]> batch = new HashMap<>(pending);
+            inFlight = batch;
+            // An update made since the copy stays pending for the next flush
+            batch.forEach(pending::remove);
+            Map<Integer, ChessGame> games = new HashMap<>();
+            batch.forEach((gameID, bytes) -> games.put(gameID, GameCodec.decode(bytes)));
+            long start = System.nanoTime();
+            try {
+                backend.games().updateGames(games);
+            } catch (DataAccessException e) {
+                failures.incrementAndGet();
+                // Updates made since take precedence over the ones that failed
+                batch.forEach(pending::putIfAbsent);
+                throw e;
+            } finally {
+                inFlight = Map.of();
+            }
+            long elapsed = System.nanoTime() - start;
+            written.addAndGet(batch.size());
+            flushes.incrementAndGet();
+            lastBatchSize = batch.size();
+            lastFlushNanos = elapsed;
+            maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        }
+    }
+
+    private byte[] unwritten(int gameID) {
+        byte[] game = pending.get(gameID);
+        return game != null ? game : inFlight.get(gameID);
+    }
+
+    private final GameDAO gameDAO = new GameDAO() {
+        @Override
+        public int createGame(String gameName) throws DataAccessException {
+            int gameID = backend.games().createGame(gameName);
+            known.add(gameID);
+            return gameID;
+        }
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            // Looked up first, so a board not found here was written before the backend is read
+            byte[] unwritten = unwritten(gameID);
+            GameData game = backend.games().getGame(gameID);
+            if (game == null) return null;
+            return unwritten == null ? game : game.withGame(GameCodec.decode(unwritten));
+        }
+
+        @Override
+        public Collection<GameData> listGames() throws DataAccessException {
+            // Pending before in flight, the order a flush moves them in
+            Map<Integer, byte[]> unwritten = new HashMap<>(pending);
+            inFlight.forEach(unwritten::putIfAbsent);
+            var games = new ArrayList<GameData>();
+            for (GameData game : backend.games().listGames()) {
+                byte[] newer = unwritten.get(game.gameID());
+                games.add(newer == null ? game : game.withGame(GameCodec.decode(newer)));
+            }
+            return games;
+        }
+
+        @Override
+        public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username)
+                throws DataAccessException {
+            return backend.games().claimSeat(gameID, color, username);
+        }
+
+        @Override
+        public boolean updateGame(int gameID, ChessGame game) throws DataAccessException {
+            if (!known.contains(gameID)) {
+                if (backend.games().getGame(gameID) == null) return false;
+                known.add(gameID);
+            }
+            // Encoded now, so later changes to the caller's game are not written
+            pending.put(gameID, GameCodec.encode(game));
+            updates.incrementAndGet();
+            if (pending.size() > settings.maxBacklog()) flush();
+            return true;
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            synchronized (flushLock) {
+                pending.clear();
+                known.clear();
+                backend.games().clear();
+            }
+        }
+    };
+
+    @Override
+    public UserDAO users() {
+        return backend.users();
+    }
+
+    @Override
+    public AuthDAO auths() {
+        return backend.auths();
+    }
+
+    @Override
+    public GameDAO games() {
+        return gameDAO;
+    }
+
+    public Metrics metrics() {
+        return new Metrics(updates.get(), written.get(), flushes.get(), failures.get(), pending.size(),
+                lastBatchSize, Duration.ofNanos(lastFlushNanos), Duration.ofNanos(maxFlushNanos));
+    }
+
+    /**
+     * Lets a running flush finish, writes what is still waiting, then closes the backend.
+     */
+    @Override
+    public void close() throws DataAccessException {
+        // Not interrupted: an interrupt inside a backend write can lose the batch
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("Write-behind flush still running at close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } finally {
+            backend.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package server;
+
+import dataaccess.CachingStorage;
+import dataaccess.DataAccessException;
+import dataaccess.Storage;
+import dataaccess.WriteBehindStorage;
+import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class Server {
+
+    /**
+     * How Jetty runs request handlers.
+     */
+    public enum Threads {
+        /** Spark's default pool of platform threads. */
+        PLATFORM,
+        /** A new virtual thread for every request and websocket message. */
+        VIRTUAL
+    }
+
+    private final Threads threads;
+    private final int carriers;
+    private VirtualThreadPool virtualThreads;
+    private Storage storage;
+
+    /**
+     * Uses the mode named by the chess.threads system property, platform if it is not set.
+     */
+    public Server() {
+        this(Threads.valueOf(System.getProperty("chess.threads", "platform").toUpperCase()),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param carriers carrier threads for virtual threads, ignored for platform threads
+     */
+    public Server(Threads threads, int carriers) {
+        this.threads = threads;
+        this.carriers = carriers;
+    }
+
+    /**
+     * Stores data in the backend named by the chess.storage system property, in
+     * memory if it is not set. The file backend keeps its data in the directory
+     * named by chess.storage.dir, "data" by default. Setting chess.storage.flushMs
+     * delays board writes by up to that many milliseconds, so they can be batched.
+     * Setting chess.storage.cacheGames keeps up to that many recently used games
+     * in memory in front of the backend.
+     */
+    public int run(int desiredPort) {
+        return run(desiredPort, Storage.Kind.valueOf(System.getProperty("chess.storage", "memory").toUpperCase()));
+    }
+
+    public int run(int desiredPort, Storage.Kind storageKind) {
+        try {
+            storage = Storage.open(storageKind, Path.of(System.getProperty("chess.storage.dir", "data")));
+            String flushMs = System.getProperty("chess.storage.flushMs");
+            if (flushMs != null) {
+                storage = new WriteBehindStorage(storage, new WriteBehindStorage.Settings(
+                        Duration.ofMillis(Long.parseLong(flushMs)), WriteBehindStorage.Settings.DEFAULT.maxBacklog()));
+            }
+            String cacheGames = System.getProperty("chess.storage.cacheGames");
+            if (cacheGames != null) {
+                storage = new CachingStorage(storage, Integer.parseInt(cacheGames));
+            }
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Unable to open " + storageKind + " storage: " + e.getMessage());
+        }
+
+        if (threads == Threads.VIRTUAL) {
+            VirtualThreadPool.limitCarriers(carriers);
+            virtualThreads = new VirtualThreadPool();
+            EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                    new EmbeddedJettyFactory().withThreadPool(virtualThreads));
+        }
+        Spark.port(desiredPort);
+
+        Spark.staticFiles.location("web");
+
+        // Register your endpoints and handle exceptions here.
+
+        // Starts Jetty even before any endpoint is registered
+        Spark.init();
+        Spark.awaitInitialization();
+        return Spark.port();
+    }
+
+    /**
+     * @return counts for the virtual thread pool, or null when running on platform threads
+     */
+    public VirtualThreadPool.Metrics threadMetrics() {
+        return virtualThreads == null ? null : virtualThreads.metrics();
+    }
+
+    public Storage storage() {
+        return storage;
+    }
+
+    public void stop() {
+        Spark.stop();
+        Spark.awaitStop();
+        if (storage != null) {
+            try {
+                storage.close();
+            } catch (DataAccessException e) {
+                System.err.println("Unable to close storage: " + e.getMessage());
+            }
+            storage = null;
+        }
+        if (virtualThreads != null) {
+            // Later servers in the same JVM get Spark's default pool back
+            EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new EmbeddedJettyFactory());
+            virtualThreads = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package server;
+
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Jetty thread pool that runs every task on a new virtual thread.
+ * <p>
+ * Jetty hands each HTTP request and websocket message to its pool, so with
+ * this pool a handler that blocks on JDBC or bcrypt parks a virtual thread
+ * instead of holding one of a fixed number of platform threads. The virtual
+ * threads run on the JDK's carrier pool, which is bounded by the
+ * jdk.virtualThreadScheduler.parallelism and maxPoolSize properties; see
+ * {@link #limitCarriers}.
+ * <p>
+ * A virtual thread that blocks while holding a monitor pins its carrier.
+ * While the pool runs, a JFR stream counts those pinned events so they show
+ * up in {@link #metrics()}.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+    private static final Duration PINNED_THRESHOLD = Duration.ofMillis(1);
+
+    private final ThreadFactory factory = Thread.ofVirtual().name("http-virtual-", 0).factory();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private volatile CountDownLatch stopped = new CountDownLatch(1);
+    private RecordingStream pinnedStream;
+
+    /**
+     * Bounds the carrier threads used by all virtual threads. This only has
+     * an effect before the first virtual thread in the JVM is started, and
+     * leaves properties already set on the command line alone.
+     *
+     * @param carriers carrier threads normally running virtual threads
+     */
+    public static void limitCarriers(int carriers) {
+        if (System.getProperty("jdk.virtualThreadScheduler.parallelism") == null) {
+            System.setProperty("jdk.virtualThreadScheduler.parallelism", Integer.toString(carriers));
+        }
+        if (System.getProperty("jdk.virtualThreadScheduler.maxPoolSize") == null) {
+            // Room for carriers added while virtual threads are blocked in a selector
+            System.setProperty("jdk.virtualThreadScheduler.maxPoolSize", Integer.toString(carriers + 16));
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        stopped = new CountDownLatch(1);
+        pinnedStream = new RecordingStream();
+        pinnedStream.enable("jdk.VirtualThreadPinned").withThreshold(PINNED_THRESHOLD);
+        pinnedStream.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinnedEvents.incrementAndGet();
+            pinnedNanos.addAndGet(event.getDuration().toNanos());
+        });
+        pinnedStream.startAsync();
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        pinnedStream.close();
+        stopped.countDown();
+        super.doStop();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        started.incrementAndGet();
+        active.incrementAndGet();
+        factory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        }).start();
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public int getThreads() {
+        return active.get();
+    }
+
+    /**
+     * A new thread is started for every task, so none wait idle.
+     */
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+
+    public Metrics metrics() {
+        return new Metrics(started.get(), active.get(), pinnedEvents.get(), pinnedNanos.get() / 1_000_000);
+    }
+
+    /**
+     * @param started      tasks run since the pool was created
+     * @param active       tasks running now
+     * @param pinnedEvents times a virtual thread blocked while pinned to its carrier for at least a millisecond
+     * @param pinnedMillis total time spent pinned in those events
+     */
+    public record Metrics(long started, int active, long pinnedEvents, long pinnedMillis) {}
+}
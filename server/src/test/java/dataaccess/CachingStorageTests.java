@@ -0,0 +1,175 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CachingStorageTests extends StorageTests {
+
+    private MemoryStorage backend;
+
+    @Override
+    protected Storage open() {
+        backend = new MemoryStorage();
+        return new CachingStorage(backend, 1_000);
+    }
+
+    @Test
+    @DisplayName("Drops The Least Recently Used Game")
+    public void leastRecentlyUsed() throws Exception {
+        var cache = new CachingStorage(backend, 2);
+        int first = cache.games().createGame("first");
+        int second = cache.games().createGame("second");
+        int third = cache.games().createGame("third");
+
+        GameData game = cache.games().getGame(first);
+        Assertions.assertEquals(game, cache.games().getGame(first).withGame(game.game()));
+        cache.games().getGame(second);
+        cache.games().getGame(first);
+        // Second is now the least recently used
+        cache.games().getGame(third);
+        cache.games().getGame(first);
+        cache.games().getGame(second);
+
+        CachingStorage.Metrics metrics = cache.metrics();
+        Assertions.assertEquals(3, metrics.hits());
+        Assertions.assertEquals(4, metrics.misses());
+        Assertions.assertEquals(2, metrics.evictions());
+        Assertions.assertEquals(2, metrics.size());
+
+        // Missing games take no room from the cached ones
+        for (int missing = third + 1; missing < third + 10; missing++) {
+            Assertions.assertNull(cache.games().getGame(missing));
+        }
+        Assertions.assertEquals(2, cache.metrics().size());
+        Assertions.assertEquals(2, cache.metrics().evictions());
+        cache.games().getGame(first);
+        Assertions.assertEquals(4, cache.metrics().hits());
+    }
+
+    @Test
+    @DisplayName("Loads A Game Once For Concurrent Readers")
+    public void singleOwner() throws Exception {
+        var cache = new CachingStorage(backend, 16);
+        int gameID = cache.games().createGame("game");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<GameData>> reads = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                reads.add(pool.submit(() -> cache.games().getGame(gameID)));
+            }
+            GameData game = reads.get(0).get();
+            for (Future<GameData> read : reads) {
+                Assertions.assertEquals(game.game().getBoard(), read.get().game().getBoard());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertEquals(1, cache.metrics().misses());
+        Assertions.assertEquals(15, cache.metrics().hits());
+    }
+
+    @Test
+    @DisplayName("Writes Changes Through To The Backend")
+    public void writeThrough() throws Exception {
+        int gameID = storage.games().createGame("game");
+        storage.games().getGame(gameID);
+        Assertions.assertTrue(storage.games().claimSeat(gameID, ChessGame.TeamColor.WHITE, "alice"));
+        Assertions.assertTrue(storage.games().updateGame(gameID, new ChessGame(ChessGame.TeamColor.BLACK)));
+
+        for (GameData game : List.of(storage.games().getGame(gameID), backend.games().getGame(gameID))) {
+            Assertions.assertEquals("alice", game.whiteUsername());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.game().getTeamTurn());
+        }
+        Assertions.assertFalse(storage.games().updateGame(gameID + 1, new ChessGame()));
+        Assertions.assertEquals(1, ((CachingStorage) storage).metrics().misses());
+    }
+
+    @Test
+    @DisplayName("Moves Are Made And Saved Under The Game's Slot")
+    public void modify() throws Exception {
+        var cache = (CachingStorage) storage;
+        int gameID = cache.games().createGame("game");
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        GameData changed = cache.modify(gameID, game -> {
+            game.makeMove(move);
+            return move;
+        });
+        Assertions.assertEquals(changed.game().getBoard(), cache.games().getGame(gameID).game().getBoard());
+        Assertions.assertEquals(changed.game().getBoard(), backend.games().getGame(gameID).game().getBoard());
+
+        // An illegal move leaves the cached game as it was
+        ChessMove illegal = new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null);
+        long misses = cache.metrics().misses();
+        Assertions.assertThrows(InvalidMoveException.class, () -> cache.modify(gameID, game -> {
+            game.makeMove(illegal);
+            return illegal;
+        }));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, cache.games().getGame(gameID).game().getTeamTurn());
+        Assertions.assertEquals(misses, cache.metrics().misses());
+        Assertions.assertNull(cache.modify(gameID + 1, game -> null));
+    }
+
+    @Test
+    @DisplayName("A Failed Save Drops The Cached Copy")
+    public void failedSave() throws Exception {
+        var cache = (CachingStorage) storage;
+        int gameID = cache.games().createGame("game");
+        Assertions.assertNotNull(cache.games().getGame(gameID));
+        // Gone from the backend behind the cache's back, so the save finds nothing
+        backend.games().clear();
+        Assertions.assertNull(cache.modify(gameID, game -> {
+            game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null));
+            return null;
+        }));
+        Assertions.assertNull(cache.games().getGame(gameID));
+        Assertions.assertEquals(0, cache.metrics().size());
+    }
+
+    @Test
+    @DisplayName("Readers Get Copies Over A Write-Behind Backend")
+    public void overWriteBehind() throws Exception {
+        // Stacked the way Server.run stacks them
+        var writeBehind = new WriteBehindStorage(backend, new WriteBehindStorage.Settings(Duration.ofHours(1), 1_000));
+        var cache = new CachingStorage(writeBehind, 16);
+        int gameID = cache.games().createGame("game");
+        ChessMove e2e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove e7e5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+
+        // A move made on a read copy and never saved is seen by no one
+        cache.games().getGame(gameID).game().makeMove(e2e4);
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, cache.games().getGame(gameID).game().getTeamTurn());
+
+        // Read, move, save
+        ChessGame game = cache.games().getGame(gameID).game();
+        game.makeMove(e2e4);
+        Assertions.assertTrue(cache.games().saveMove(gameID, e2e4, game));
+        // Changing the saved game afterwards changes nothing stored
+        game.makeMove(e7e5);
+
+        GameData changed = cache.modify(gameID, working -> {
+            working.makeMove(e7e5);
+            return e7e5;
+        });
+        changed.game().makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        writeBehind.flush();
+        for (GameData stored : List.of(cache.games().getGame(gameID), backend.games().getGame(gameID))) {
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, stored.game().getTeamTurn());
+            Assertions.assertNotNull(stored.game().getBoard().getPiece(new ChessPosition(4, 5)));
+            Assertions.assertNotNull(stored.game().getBoard().getPiece(new ChessPosition(5, 5)));
+            Assertions.assertNotNull(stored.game().getBoard().getPiece(new ChessPosition(1, 7)));
+        }
+        cache.close();
+    }
+}
@@ -0,0 +1,211 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConnectionPoolTests {
+
+    /**
+     * Stands in for a database connection, recording what was done to it.
+     */
+    static class FakeConnection {
+        boolean closed;
+        boolean valid = true;
+        boolean autoCommit = true;
+        int rollbacks;
+        int prepares;
+        int statementsClosed;
+        int parametersCleared;
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "isValid" -> valid;
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks++;
+                            yield null;
+                        }
+                        case "prepareStatement" -> {
+                            prepares++;
+                            yield statement();
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+
+        PreparedStatement statement() {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close")) statementsClosed++;
+                        if (method.getName().equals("clearParameters")) parametersCleared++;
+                        return method.getReturnType() == int.class ? 1 : null;
+                    });
+        }
+    }
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+
+    private ConnectionPool pool(int maxSize, Duration idleTimeout, Duration maxLifetime) {
+        return pool(maxSize, idleTimeout, maxLifetime, 0);
+    }
+
+    private ConnectionPool pool(int maxSize, Duration idleTimeout, Duration maxLifetime, int statementCacheSize) {
+        return new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.connection();
+        }, new ConnectionPool.Settings(maxSize, Duration.ofMillis(100), idleTimeout, maxLifetime,
+                statementCacheSize));
+    }
+
+    @Test
+    @DisplayName("Reuses Returned Connections")
+    public void reuse() throws Exception {
+        try (ConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ofMinutes(1))) {
+            try (Connection conn = pool.getConnection()) {
+                Assertions.assertFalse(conn.isClosed());
+                Assertions.assertEquals(1, pool.metrics().active());
+            }
+            try (Connection conn = pool.getConnection()) {
+                conn.setAutoCommit(false);
+            }
+            Assertions.assertEquals(1, opened.size());
+            Assertions.assertFalse(opened.get(0).closed);
+            // An unfinished transaction is rolled back before the connection is reused
+            Assertions.assertEquals(1, opened.get(0).rollbacks);
+            Assertions.assertTrue(opened.get(0).autoCommit);
+
+            ConnectionPool.Metrics metrics = pool.metrics();
+            Assertions.assertEquals(0, metrics.active());
+            Assertions.assertEquals(1, metrics.idle());
+            Assertions.assertEquals(2, metrics.borrows());
+        }
+        Assertions.assertTrue(opened.get(0).closed);
+    }
+
+    @Test
+    @DisplayName("Closed Loans Cannot Be Used")
+    public void closedLoan() throws Exception {
+        try (ConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofMinutes(1))) {
+            Connection conn = pool.getConnection();
+            conn.close();
+            conn.close();
+            Assertions.assertTrue(conn.isClosed());
+            Assertions.assertThrows(SQLException.class, () -> conn.prepareStatement("SELECT 1"));
+            Assertions.assertEquals(0, pool.metrics().active());
+        }
+    }
+
+    @Test
+    @DisplayName("Times Out When Exhausted")
+    public void timeout() throws Exception {
+        try (ConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofMinutes(1))) {
+            try (Connection ignored = pool.getConnection()) {
+                DataAccessException e = Assertions.assertThrows(DataAccessException.class, pool::getConnection);
+                Assertions.assertTrue(e.getMessage().contains("Timed out"));
+            }
+            Assertions.assertEquals(1, pool.metrics().timeouts());
+            pool.getConnection().close();
+        }
+    }
+
+    @Test
+    @DisplayName("Retires Invalid, Idle And Old Connections")
+    public void retire() throws Exception {
+        try (ConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ofMinutes(1))) {
+            pool.getConnection().close();
+            opened.get(0).valid = false;
+            Thread.sleep(600);
+            // Idle long enough to be checked, and the check fails
+            pool.getConnection().close();
+            Assertions.assertTrue(opened.get(0).closed);
+            Assertions.assertEquals(2, opened.size());
+        }
+
+        try (ConnectionPool pool = pool(2, Duration.ofMillis(50), Duration.ofMinutes(1))) {
+            pool.getConnection().close();
+            Thread.sleep(100);
+            pool.evictIdle();
+            Assertions.assertTrue(opened.get(2).closed);
+            Assertions.assertEquals(0, pool.metrics().idle());
+        }
+
+        try (ConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ofMillis(1))) {
+            Connection conn = pool.getConnection();
+            Thread.sleep(5);
+            conn.close();
+            Assertions.assertTrue(opened.get(3).closed);
+        }
+    }
+
+    @Test
+    @DisplayName("Caches Prepared Statements")
+    public void statementCache() throws Exception {
+        try (ConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofMinutes(1), 2)) {
+            for (int i = 0; i < 3; i++) {
+                try (Connection conn = pool.getConnection();
+                     PreparedStatement statement = conn.prepareStatement("SELECT * FROM auth WHERE token=?")) {
+                    statement.setString(1, "token" + i);
+                    statement.executeQuery();
+                }
+            }
+            FakeConnection fake = opened.get(0);
+            Assertions.assertEquals(1, fake.prepares);
+            Assertions.assertEquals(3, fake.parametersCleared);
+            Assertions.assertEquals(0, fake.statementsClosed);
+
+            try (Connection conn = pool.getConnection()) {
+                PreparedStatement first = conn.prepareStatement("SELECT * FROM auth WHERE token=?");
+                // Already in use, so this one is prepared fresh and not cached
+                try (PreparedStatement second = conn.prepareStatement("SELECT * FROM auth WHERE token=?")) {
+                    Assertions.assertNotSame(first, second);
+                }
+                Assertions.assertEquals(1, fake.statementsClosed);
+                first.close();
+                Assertions.assertThrows(SQLException.class, first::executeQuery);
+                conn.prepareStatement("SELECT * FROM game WHERE gameID=?").close();
+                // A third statement pushes out the least recently used one
+                conn.prepareStatement("UPDATE game SET game=? WHERE gameID=?").close();
+                Assertions.assertEquals(2, fake.statementsClosed);
+            }
+
+            ConnectionPool.Metrics metrics = pool.metrics();
+            Assertions.assertEquals(3, metrics.statementHits());
+            Assertions.assertEquals(4, metrics.statementMisses());
+            Assertions.assertEquals(1, metrics.statementEvictions());
+        }
+        // Retiring the connection closes what is left in its cache
+        Assertions.assertEquals(4, opened.get(0).statementsClosed);
+    }
+
+    @Test
+    @DisplayName("Connection Failures Become Data Access Exceptions")
+    public void failure() {
+        ConnectionPool pool = new ConnectionPool(() -> {
+            throw new SQLException("Access denied");
+        }, ConnectionPool.Settings.DEFAULT);
+        DataAccessException e = Assertions.assertThrows(DataAccessException.class, pool::getConnection);
+        Assertions.assertEquals("Access denied", e.getMessage());
+        Assertions.assertEquals(0, pool.metrics().active());
+        pool.close();
+    }
+}
@@ -0,0 +1,173 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FileStorageTests extends StorageTests {
+
+    @TempDir
+    Path directory;
+
+    // Never snapshots on its own, so tests decide what is in the log
+    private FileStorage.Settings settings = new FileStorage.Settings(16 << 20, Duration.ofHours(1));
+
+    @Override
+    protected FileStorage open() throws DataAccessException {
+        return new FileStorage(directory, settings);
+    }
+
+    /**
+     * Opens the directory again without closing the storage, as if the server had died.
+     */
+    private FileStorage crash() throws DataAccessException {
+        FileStorage reopened = open();
+        storage = reopened;
+        return reopened;
+    }
+
+    @Test
+    @DisplayName("Replays The Log After A Crash")
+    public void crashRecovery() throws Exception {
+        FileStorage crashed = (FileStorage) storage;
+        storage.users().createUser(new UserData("alice", "hash", "alice@example.com"));
+        storage.auths().createAuth(new AuthData("gone", "alice"));
+        storage.auths().createAuth(new AuthData("kept", "alice"));
+        storage.auths().deleteAuth("gone");
+        int gameID = storage.games().createGame("game");
+        storage.games().claimSeat(gameID, ChessGame.TeamColor.BLACK, "alice");
+        ChessGame chess = new ChessGame();
+        chess.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        storage.games().updateGame(gameID, chess);
+        Assertions.assertEquals(0, crashed.metrics().snapshots());
+
+        // A record torn by the crash is cut off
+        List<Long> segments = WriteAheadLog.segments(directory);
+        Path last = WriteAheadLog.segmentPath(directory, segments.get(segments.size() - 1));
+        long size = Files.size(last);
+        Files.write(last, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        crash();
+        Assertions.assertEquals(size, Files.size(last));
+        Assertions.assertEquals("alice@example.com", storage.users().getUser("alice").email());
+        Assertions.assertNull(storage.auths().getAuth("gone"));
+        Assertions.assertEquals("alice", storage.auths().getAuth("kept").username());
+        GameData game = storage.games().getGame(gameID);
+        Assertions.assertEquals("alice", game.blackUsername());
+        Assertions.assertEquals(chess.getBoard(), game.game().getBoard());
+        Assertions.assertNotEquals(gameID, storage.games().createGame("next"));
+        crashed.close();
+    }
+
+    @Test
+    @DisplayName("Recovers From A Snapshot And The Log After It")
+    public void snapshotRecovery() throws Exception {
+        storage.close();
+        settings = new FileStorage.Settings(256, Duration.ofHours(1));
+        FileStorage first = open();
+        storage = first;
+        for (int i = 0; i < 50; i++) {
+            storage.users().createUser(new UserData("user" + i, "hash", "user" + i + "@example.com"));
+        }
+        int gameID = storage.games().createGame("game");
+        Assertions.assertTrue(WriteAheadLog.segments(directory).size() > 2);
+
+        first.snapshot();
+        // Everything so far is in the snapshot, so its segments are gone
+        Assertions.assertEquals(1, WriteAheadLog.segments(directory).size());
+        storage.games().claimSeat(gameID, ChessGame.TeamColor.WHITE, "user7");
+        storage.users().clear();
+        storage.users().createUser(new UserData("late", "hash", "late@example.com"));
+
+        FileStorage.Metrics metrics = first.metrics();
+        Assertions.assertEquals(54, metrics.records());
+        Assertions.assertTrue(metrics.syncs() <= metrics.records());
+        Assertions.assertEquals(1, metrics.snapshots());
+
+        crash();
+        Assertions.assertNull(storage.users().getUser("user7"));
+        Assertions.assertEquals("late@example.com", storage.users().getUser("late").email());
+        Assertions.assertEquals("user7", storage.games().getGame(gameID).whiteUsername());
+        first.close();
+    }
+
+    @Test
+    @DisplayName("Closing Leaves Only A Snapshot To Load")
+    public void cleanShutdown() throws Exception {
+        int gameID = storage.games().createGame("game");
+        storage.close();
+        storage = open();
+        Assertions.assertEquals("game", storage.games().getGame(gameID).gameName());
+        for (long segment : WriteAheadLog.segments(directory)) {
+            Assertions.assertEquals(0, Files.size(WriteAheadLog.segmentPath(directory, segment)));
+        }
+    }
+
+    @Test
+    @DisplayName("A Failed Write Stops The Log")
+    public void failedWrite() throws Exception {
+        storage.close();
+        storage = null;
+        Path wal = directory.resolve("wal");
+        Files.createDirectories(wal);
+        // A directory where the next segment goes, so moving on to it fails
+        Files.createDirectories(WriteAheadLog.segmentPath(wal, 1));
+        var log = new WriteAheadLog(wal, 1);
+        log.open(0);
+        long first = log.append(new byte[]{1});
+        Assertions.assertThrows(IOException.class, () -> log.commit(first));
+        // Even with a working segment again, nothing after the failure is acknowledged
+        log.open(2);
+        long after = log.append(new byte[]{3});
+        Assertions.assertThrows(IOException.class, () -> log.commit(after));
+        Assertions.assertThrows(IOException.class, log::roll);
+        log.close();
+
+        Files.delete(WriteAheadLog.segmentPath(wal, 1));
+        List<Byte> replayed = new ArrayList<>();
+        new WriteAheadLog(wal, 1 << 20).replay(0, payload -> replayed.add(payload.get()));
+        Assertions.assertEquals(List.of((byte) 1), replayed);
+    }
+
+    @Test
+    @DisplayName("An Interrupted Caller Does Not Stop The Log")
+    public void interruptedCommit() throws Exception {
+        int gameID = storage.games().createGame("game");
+        Thread.currentThread().interrupt();
+        try {
+            Assertions.assertTrue(storage.games().updateGame(gameID, new ChessGame(ChessGame.TeamColor.BLACK)));
+            Assertions.assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        ((FileStorage) storage).snapshot();
+        Assertions.assertTrue(storage.games().claimSeat(gameID, ChessGame.TeamColor.WHITE, "white"));
+        storage.close();
+        storage = open();
+        GameData game = storage.games().getGame(gameID);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.game().getTeamTurn());
+        Assertions.assertEquals("white", game.whiteUsername());
+    }
+
+    @Test
+    @DisplayName("Rejects Names Too Long To Log")
+    public void oversizedName() {
+        String name = "x".repeat(70_000);
+        Assertions.assertThrows(DataAccessException.class, () -> storage.games().createGame(name));
+        Assertions.assertThrows(DataAccessException.class,
+                () -> storage.users().createUser(new UserData(name, "password", "email")));
+    }
+}
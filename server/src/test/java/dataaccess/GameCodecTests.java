@@ -0,0 +1,56 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("Packed Games Keep Their History")
+    public void codec() throws Exception {
+        ChessGame game = new ChessGame();
+        // Knights out and back twice: the start position comes up a third time
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+            game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        }
+        byte[] packed = GameCodec.encode(game);
+        Assertions.assertEquals(35 + 9 * Long.BYTES, packed.length);
+
+        ChessGame copy = GameCodec.decode(packed);
+        Assertions.assertEquals(game.getBoard(), copy.getBoard());
+        Assertions.assertEquals(game.getTeamTurn(), copy.getTeamTurn());
+        Assertions.assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, copy.evaluateStatus());
+    }
+
+    @Test
+    @DisplayName("Binary Games Are Versioned And Smaller Than JSON")
+    public void binaryFormat() throws Exception {
+        ChessGame game = GameCodec.randomGame(new Random(7), 30);
+        byte[] packed = GameCodec.encode(game);
+        Assertions.assertEquals(GameCodec.VERSION, packed[0]);
+        Assertions.assertTrue(packed.length * 10 < new Gson().toJson(game).length());
+
+        // Games read back to back from one stream, as a decoder of a larger record would
+        var stream = new ByteArrayOutputStream();
+        GameCodec.write(game, stream);
+        GameCodec.write(new ChessGame(), stream);
+        var in = new ByteArrayInputStream(stream.toByteArray());
+        Assertions.assertEquals(game.getBoard(), GameCodec.read(in).getBoard());
+        Assertions.assertEquals(new ChessGame().getBoard(), GameCodec.read(in).getBoard());
+        Assertions.assertEquals(-1, in.read());
+
+        packed[0] = (byte) (GameCodec.VERSION + 1);
+        Assertions.assertThrows(UncheckedIOException.class, () -> GameCodec.decode(packed));
+    }
+}
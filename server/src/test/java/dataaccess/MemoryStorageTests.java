@@ -0,0 +1,32 @@
+package dataaccess;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.*;
+
+public class MemoryStorageTests extends StorageTests {
+
+    @Override
+    protected Storage open() {
+        return new MemoryStorage();
+    }
+
+    @Test
+    @DisplayName("Holds Many Games In Small Tables")
+    public void manyGames() {
+        int count = 200_000;
+        var table = new GameTable();
+        byte[] board = GameCodec.encode(new ChessGame());
+        for (int gameID = 1; gameID <= count; gameID++) {
+            table.put(gameID, new GameTable.Entry("alice", null, "game", board));
+        }
+        int[] visited = {0};
+        table.forEach((gameID, entry) -> visited[0]++);
+        Assertions.assertEquals(count, visited[0]);
+
+        // A new board packs into 35 bytes, shared by every game that has not moved
+        Assertions.assertEquals(35, board.length);
+        // Each segment doubles once three quarters full, so between 3/8 and 3/4 of the slots are used
+        Assertions.assertTrue(table.slots() < (count + 64) * 8L / 3, table.slots() + " slots");
+        Assertions.assertTrue(table.slots() > count * 4L / 3, table.slots() + " slots");
+    }
+}
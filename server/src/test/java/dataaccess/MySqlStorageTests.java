@@ -0,0 +1,24 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assumptions;
+
+/**
+ * Runs only where the database in db.properties is reachable.
+ */
+public class MySqlStorageTests extends StorageTests {
+
+    @Override
+    protected Storage open() {
+        try {
+            return new MySqlStorage();
+        } catch (DataAccessException e) {
+            Assumptions.abort("MySQL is not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    protected int operations() {
+        return 2_000;
+    }
+}
@@ -0,0 +1,234 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * What every storage backend must do; each backend's tests extend this.
+ */
+public abstract class StorageTests {
+
+    protected Storage storage;
+
+    /**
+     * @return an empty backend
+     */
+    protected abstract Storage open() throws Exception;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        storage = open();
+        storage.clear();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (storage != null) storage.close();
+    }
+
+    @Test
+    @DisplayName("Stores Users Once")
+    public void users() throws Exception {
+        var user = new UserData("alice", "hash", "alice@example.com");
+        Assertions.assertTrue(storage.users().createUser(user));
+        Assertions.assertFalse(storage.users().createUser(new UserData("alice", "other", "other@example.com")));
+        Assertions.assertEquals(user, storage.users().getUser("alice"));
+        Assertions.assertNull(storage.users().getUser("bob"));
+    }
+
+    @Test
+    @DisplayName("Creates And Deletes Sessions")
+    public void auths() throws Exception {
+        var auth = new AuthData("token", "alice");
+        storage.auths().createAuth(auth);
+        Assertions.assertEquals(auth, storage.auths().getAuth("token"));
+        Assertions.assertTrue(storage.auths().deleteAuth("token"));
+        Assertions.assertFalse(storage.auths().deleteAuth("token"));
+        Assertions.assertNull(storage.auths().getAuth("token"));
+    }
+
+    @Test
+    @DisplayName("Creates, Joins And Updates Games")
+    public void games() throws Exception {
+        int first = storage.games().createGame("first");
+        int second = storage.games().createGame("second");
+        Assertions.assertNotEquals(0, first);
+        Assertions.assertNotEquals(first, second);
+        Assertions.assertEquals(2, storage.games().listGames().size());
+
+        GameData game = storage.games().getGame(first);
+        Assertions.assertEquals("first", game.gameName());
+        Assertions.assertNull(game.whiteUsername());
+        Assertions.assertEquals(new ChessGame().getBoard(), game.game().getBoard());
+
+        Assertions.assertTrue(storage.games().claimSeat(first, ChessGame.TeamColor.WHITE, "alice"));
+        Assertions.assertFalse(storage.games().claimSeat(first, ChessGame.TeamColor.WHITE, "bob"));
+        Assertions.assertTrue(storage.games().claimSeat(first, ChessGame.TeamColor.BLACK, "bob"));
+
+        ChessGame chess = new ChessGame();
+        chess.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertTrue(storage.games().updateGame(first, chess));
+
+        game = storage.games().getGame(first);
+        Assertions.assertEquals("alice", game.whiteUsername());
+        Assertions.assertEquals("bob", game.blackUsername());
+        Assertions.assertEquals(chess.getBoard(), game.game().getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.game().getTeamTurn());
+
+        Assertions.assertNull(storage.games().getGame(first + second + 1));
+        Assertions.assertFalse(storage.games().claimSeat(first + second + 1, ChessGame.TeamColor.WHITE, "alice"));
+        Assertions.assertFalse(storage.games().updateGame(first + second + 1, chess));
+    }
+
+    @Test
+    @DisplayName("Saves Moves One At A Time")
+    public void moves() throws Exception {
+        int gameID = storage.games().createGame("moves");
+        ChessGame chess = new ChessGame();
+        List<ChessGame> positions = new ArrayList<>();
+        int[][] moves = {{2, 5, 4, 5}, {7, 5, 5, 5}, {1, 7, 3, 6}};
+        for (int[] squares : moves) {
+            var move = new ChessMove(new ChessPosition(squares[0], squares[1]),
+                    new ChessPosition(squares[2], squares[3]), null);
+            chess.makeMove(move);
+            positions.add(GameCodec.decode(GameCodec.encode(chess)));
+            Assertions.assertTrue(storage.games().saveMove(gameID, move, chess));
+        }
+        Assertions.assertFalse(storage.games().saveMove(gameID + 1000, new ChessMove(new ChessPosition(7, 4),
+                new ChessPosition(5, 4), null), chess));
+
+        ChessGame saved = storage.games().getGame(gameID).game();
+        Assertions.assertEquals(chess.getBoard(), saved.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, saved.getTeamTurn());
+
+        // Only backends that keep the moves can go back to earlier positions
+        ChessGame second = storage.games().positionAt(gameID, 2);
+        if (second != null) {
+            Assertions.assertEquals(positions.get(1).getBoard(), second.getBoard());
+            Assertions.assertEquals(new ChessGame().getBoard(), storage.games().positionAt(gameID, 0).getBoard());
+            Assertions.assertNull(storage.games().positionAt(gameID, 4));
+        }
+    }
+
+    @Test
+    @DisplayName("Saving A Whole Game Keeps Its Start")
+    public void wholeSave() throws Exception {
+        int gameID = storage.games().createGame("whole");
+        ChessGame chess = new ChessGame();
+        chess.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        Assertions.assertTrue(storage.games().updateGame(gameID, chess));
+        Assertions.assertFalse(storage.games().updateGame(gameID + 1000, chess));
+        var reply = new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null);
+        chess.makeMove(reply);
+        Assertions.assertTrue(storage.games().saveMove(gameID, reply, chess));
+
+        ChessGame saved = storage.games().getGame(gameID).game();
+        Assertions.assertEquals(chess.getBoard(), saved.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, saved.getTeamTurn());
+        ChessGame start = storage.games().positionAt(gameID, 0);
+        if (start != null) {
+            Assertions.assertEquals(new ChessGame().getBoard(), start.getBoard());
+        }
+    }
+
+    @Test
+    @DisplayName("Clear Removes Everything")
+    public void clear() throws Exception {
+        storage.users().createUser(new UserData("alice", "hash", "alice@example.com"));
+        storage.auths().createAuth(new AuthData("token", "alice"));
+        storage.games().createGame("game");
+        storage.clear();
+        Assertions.assertNull(storage.users().getUser("alice"));
+        Assertions.assertNull(storage.auths().getAuth("token"));
+        Assertions.assertTrue(storage.games().listGames().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Only One Player Gets A Seat")
+    public void seatRace() throws Exception {
+        int gameID = storage.games().createGame("race");
+        int players = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(players);
+        try {
+            List<Future<Boolean>> claims = new ArrayList<>();
+            for (int i = 0; i < players; i++) {
+                String username = "player" + i;
+                claims.add(executor.submit(() -> storage.games().claimSeat(gameID, ChessGame.TeamColor.WHITE, username)));
+            }
+            int winners = 0;
+            for (Future<Boolean> claim : claims) {
+                if (claim.get()) winners++;
+            }
+            Assertions.assertEquals(1, winners);
+            Assertions.assertNotNull(storage.games().getGame(gameID).whiteUsername());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * How many operations the load test runs; backends that are slow per
+     * operation can run fewer.
+     */
+    protected int operations() {
+        return 20_000;
+    }
+
+    @Test
+    @DisplayName("Throughput Under Concurrent Load")
+    public void throughput() throws Exception {
+        int threads = 8;
+        int perThread = operations() / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Set<Integer>>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tasks.add(() -> {
+                    Set<Integer> gameIDs = new HashSet<>();
+                    // A mix shaped like a session: register, log in, play, look things up
+                    for (int i = 0; i < perThread; i += 5) {
+                        String name = "user" + thread + "-" + i;
+                        storage.users().createUser(new UserData(name, "hash", name + "@example.com"));
+                        storage.auths().createAuth(new AuthData(name + "-token", name));
+                        int gameID = storage.games().createGame(name);
+                        gameIDs.add(gameID);
+                        storage.games().claimSeat(gameID, ChessGame.TeamColor.WHITE, name);
+                        Assertions.assertEquals(name, storage.auths().getAuth(name + "-token").username());
+                    }
+                    return gameIDs;
+                });
+            }
+            long start = System.nanoTime();
+            Set<Integer> allIDs = new HashSet<>();
+            int created = 0;
+            for (Future<Set<Integer>> result : executor.invokeAll(tasks)) {
+                created += result.get().size();
+                allIDs.addAll(result.get());
+            }
+            long elapsed = System.nanoTime() - start;
+            Assertions.assertEquals(created, allIDs.size(), "game IDs must be unique");
+            // Timings only mean something on a quiet machine, so they are printed on request
+            if (Boolean.getBoolean("chess.storage.benchmark")) {
+                System.out.printf("%s: %d operations in %d ms (%.0f/s)%n", getClass().getSimpleName(),
+                        created * 5, elapsed / 1_000_000, created * 5 / (elapsed / 1e9));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WriteBehindStorageTests extends StorageTests {
+
+    /**
+     * A memory backend that counts the boards written to it.
+     */
+    private static class CountingStorage extends MemoryStorage {
+        int batches;
+        int boards;
+
+        private final GameDAO counting = new GameDAO() {
+            @Override
+            public int createGame(String gameName) throws DataAccessException {
+                return CountingStorage.super.games().createGame(gameName);
+            }
+
+            @Override
+            public GameData getGame(int gameID) throws DataAccessException {
+                return CountingStorage.super.games().getGame(gameID);
+            }
+
+            @Override
+            public Collection<GameData> listGames() throws DataAccessException {
+                return CountingStorage.super.games().listGames();
+            }
+
+            @Override
+            public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username)
+                    throws DataAccessException {
+                return CountingStorage.super.games().claimSeat(gameID, color, username);
+            }
+
+            @Override
+            public boolean updateGame(int gameID, ChessGame game) throws DataAccessException {
+                boards++;
+                return CountingStorage.super.games().updateGame(gameID, game);
+            }
+
+            @Override
+            public void updateGames(Map<Integer, ChessGame> games) throws DataAccessException {
+                batches++;
+                GameDAO.super.updateGames(games);
+            }
+
+            @Override
+            public void clear() throws DataAccessException {
+                CountingStorage.super.games().clear();
+            }
+        };
+
+        @Override
+        public GameDAO games() {
+            return counting;
+        }
+    }
+
+    private CountingStorage backend;
+
+    @Override
+    protected Storage open() {
+        backend = new CountingStorage();
+        return new WriteBehindStorage(backend, new WriteBehindStorage.Settings(Duration.ofMillis(20), 1_000));
+    }
+
+    @Test
+    @DisplayName("Coalesces Moves Into One Batch")
+    public void coalesce() throws Exception {
+        var writeBehind = new WriteBehindStorage(backend, new WriteBehindStorage.Settings(Duration.ofHours(1), 1_000));
+        int first = writeBehind.games().createGame("first");
+        int second = writeBehind.games().createGame("second");
+        ChessGame game = new ChessGame();
+        int[][] moves = {{2, 5, 4, 5}, {7, 5, 5, 5}, {1, 7, 3, 6}, {8, 2, 6, 3}};
+        for (int[] move : moves) {
+            game.makeMove(new ChessMove(new ChessPosition(move[0], move[1]), new ChessPosition(move[2], move[3]), null));
+            Assertions.assertTrue(writeBehind.games().updateGame(first, game));
+        }
+        Assertions.assertTrue(writeBehind.games().updateGame(second, new ChessGame(ChessGame.TeamColor.BLACK)));
+        Assertions.assertFalse(writeBehind.games().updateGame(second + 1, game));
+
+        // Nothing written yet, but reads already see the moves
+        Assertions.assertEquals(0, backend.boards);
+        Assertions.assertEquals(game.getBoard(), writeBehind.games().getGame(first).game().getBoard());
+        Assertions.assertEquals(new ChessGame().getBoard(), backend.games().getGame(first).game().getBoard());
+        Assertions.assertEquals(2, writeBehind.metrics().backlog());
+
+        writeBehind.flush();
+        Assertions.assertEquals(1, backend.batches);
+        Assertions.assertEquals(2, backend.boards);
+        Assertions.assertEquals(game.getBoard(), backend.games().getGame(first).game().getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, backend.games().getGame(second).game().getTeamTurn());
+
+        WriteBehindStorage.Metrics metrics = writeBehind.metrics();
+        Assertions.assertEquals(5, metrics.updates());
+        Assertions.assertEquals(2, metrics.written());
+        Assertions.assertEquals(1, metrics.flushes());
+        Assertions.assertEquals(0, metrics.backlog());
+        Assertions.assertEquals(2, metrics.lastBatchSize());
+        writeBehind.close();
+    }
+
+    @Test
+    @DisplayName("Flushes On Its Own Within The Interval")
+    public void interval() throws Exception {
+        int gameID = storage.games().createGame("game");
+        storage.games().updateGame(gameID, new ChessGame(ChessGame.TeamColor.BLACK));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (backend.boards == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, backend.games().getGame(gameID).game().getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Reads Never Go Back To An Older Board While Flushing")
+    public void readWhileFlushing() throws Exception {
+        var writeBehind = new WriteBehindStorage(backend, new WriteBehindStorage.Settings(Duration.ofHours(1), 1_000_000));
+        int gameID = writeBehind.games().createGame("game");
+        List<ChessGame> boards = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 16; i++) {
+            boards.add(GameCodec.randomGame(random, 10 + i));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        Thread flusher = new Thread(() -> {
+            while (!done.get()) {
+                try {
+                    writeBehind.flush();
+                } catch (DataAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        flusher.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                ChessGame saved = boards.get(i % boards.size());
+                writeBehind.games().updateGame(gameID, saved);
+                Assertions.assertEquals(saved.getBoard(), writeBehind.games().getGame(gameID).game().getBoard());
+                GameData listed = writeBehind.games().listGames().iterator().next();
+                Assertions.assertEquals(saved.getBoard(), listed.game().getBoard());
+            }
+        } finally {
+            done.set(true);
+            flusher.join();
+        }
+        Assertions.assertTrue(writeBehind.metrics().flushes() > 0);
+        writeBehind.close();
+    }
+
+    @Test
+    @DisplayName("Changing A Read Copy Does Not Change What Is Written")
+    public void readCopies() throws Exception {
+        var writeBehind = new WriteBehindStorage(backend, new WriteBehindStorage.Settings(Duration.ofHours(1), 1_000));
+        int gameID = writeBehind.games().createGame("game");
+        ChessGame saved = new ChessGame();
+        writeBehind.games().updateGame(gameID, saved);
+        var e2e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        writeBehind.games().getGame(gameID).game().makeMove(e2e4);
+        writeBehind.games().listGames().iterator().next().game().makeMove(e2e4);
+        saved.makeMove(e2e4);
+
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, writeBehind.games().getGame(gameID).game().getTeamTurn());
+        writeBehind.flush();
+        ChessGame written = backend.games().getGame(gameID).game();
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, written.getTeamTurn());
+        Assertions.assertEquals(new ChessGame().getBoard(), written.getBoard());
+        writeBehind.close();
+    }
+}
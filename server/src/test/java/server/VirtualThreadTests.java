@@ -0,0 +1,51 @@
+package server;
+
+import org.junit.jupiter.api.*;
+import spark.Spark;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+public class VirtualThreadTests {
+
+    private static String get(int port, String path) throws Exception {
+        var connection = (HttpURLConnection) URI.create("http://localhost:" + port + path).toURL().openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    @DisplayName("Requests Run On Virtual Threads")
+    public void virtualThreads() throws Exception {
+        Server server = new Server(Server.Threads.VIRTUAL, 2);
+        int port = server.run(0);
+        try {
+            Spark.get("/thread", (request, response) -> Thread.currentThread().isVirtual());
+            Assertions.assertEquals("true", get(port, "/thread"));
+            Assertions.assertTrue(get(port, "/index.html").contains("<html"));
+            VirtualThreadPool.Metrics metrics = server.threadMetrics();
+            Assertions.assertTrue(metrics.started() > 0);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Platform Mode Keeps Spark's Pool")
+    public void platformThreads() throws Exception {
+        Server server = new Server(Server.Threads.PLATFORM, 2);
+        int port = server.run(0);
+        try {
+            Spark.get("/thread", (request, response) -> Thread.currentThread().isVirtual());
+            Assertions.assertEquals("false", get(port, "/thread"));
+            Assertions.assertNull(server.threadMetrics());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package chess;
 
+import chess.engine.MoveGenerator;
+import chess.engine.Pieces;
+import chess.engine.Position;
+import chess.engine.RepetitionHistory;
+import chess.engine.Zobrist;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -13,6 +20,10 @@ public class ChessGame {
 
     private ChessBoard activeBoard;
     private TeamColor teamTurn;
+    private final RepetitionHistory history = new RepetitionHistory();
+    // Piece counts by engine piece code, kept up to date by makeMove
+    private final int[] material = new int[16];
+    private ChessMove lastMove;
 
     public ChessGame(ChessBoard board, TeamColor teamTurn) {
         this.activeBoard = board;
@@ -64,6 +75,18 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Whether the game is still going, and if not, why it ended
+     */
+    public enum GameStatus {
+        IN_PROGRESS,
+        CHECKMATE,
+        STALEMATE,
+        FIFTY_MOVE_RULE,
+        INSUFFICIENT_MATERIAL,
+        THREEFOLD_REPETITION
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -78,11 +101,12 @@ public class ChessGame {
         Collection<ChessMove> validMoves = new ArrayList<>();
         Collection<ChessMove> possibleMoves = piece.pieceMoves(activeBoard, startPosition);
         ChessBoard originalBoard = getBoard().deepClone();
+        // Swap boards directly, setBoard would also reset the repetition history
         for (ChessMove move : possibleMoves) {
-            setBoard(originalBoard);
+            activeBoard = originalBoard;
             try {
                 ChessBoard simulatedBoard = activeBoard.simulateMove(move);
-                setBoard(simulatedBoard);
+                activeBoard = simulatedBoard;
                 if (!isInCheck(piece.getTeamColor())) {
                     validMoves.add(move);
                 }
@@ -90,7 +114,7 @@ public class ChessGame {
                 System.out.println("This is not a valid move.");
             }
         }
-        setBoard(originalBoard);
+        activeBoard = originalBoard;
         return validMoves;
     }
 
@@ -109,12 +133,122 @@ public class ChessGame {
         if (!legalMoves.contains(move)) {
             throw new InvalidMoveException("Illegal move");
         }
+        startHistory();
+        ChessPiece captured = activeBoard.getPiece(move.getEndPosition());
+        boolean irreversible = piece.getPieceType() == ChessPiece.PieceType.PAWN || captured != null;
+        if (captured != null) material[Pieces.fromChessPiece(captured)]--;
         activeBoard.makeMove(move);
         if(move.getPromotionPiece() != null) {
+            // The board moves the pawn itself, so take its code before it is promoted
+            int pawn = Pieces.fromChessPiece(piece);
             ChessPiece prometedPiece = activeBoard.getPiece(move.getEndPosition());
             prometedPiece.promotePawn(move);
+            material[pawn]--;
+            material[Pieces.fromChessPiece(prometedPiece)]++;
         }
         teamTurn = getOpponent(teamTurn);
+        history.push(Zobrist.hash(activeBoard, teamTurn), irreversible);
+        lastMove = move;
+    }
+
+    // Records the starting position and counts material the first time it is needed
+    private void startHistory() {
+        if (!history.isEmpty()) return;
+        history.push(Zobrist.hash(activeBoard, teamTurn), true);
+        countMaterial();
+    }
+
+    private void countMaterial() {
+        Arrays.fill(material, 0);
+        for (ChessPosition position : getAllPositions()) {
+            ChessPiece piece = activeBoard.getPiece(position);
+            if (piece != null) material[Pieces.fromChessPiece(piece)]++;
+        }
+    }
+
+    /**
+     * Rebuilds a game that was saved mid-play, so repetitions and the fifty
+     * move rule still count the moves played before it was saved.
+     *
+     * @param window the keys of {@link #getHistory()}, oldest first; empty for a game with no moves yet
+     */
+    public static ChessGame restore(ChessBoard board, TeamColor teamTurn, long[] window) {
+        ChessGame game = new ChessGame(board, teamTurn);
+        for (int i = 0; i < window.length; i++) {
+            game.history.push(window[i], i == 0);
+        }
+        game.countMaterial();
+        return game;
+    }
+
+    /**
+     * Works out whether the game is over for the team to move. Material and the
+     * move counter are kept as moves are made, so the only board work is one
+     * search for a legal move that stops at the first one found.
+     *
+     * @return the status of the game
+     */
+    public GameStatus evaluateStatus() {
+        startHistory();
+        if (isInsufficientMaterial()) return GameStatus.INSUFFICIENT_MATERIAL;
+        Position position = Position.fromBoard(activeBoard, teamTurn);
+        if (!MoveGenerator.hasLegalMove(position)) {
+            return position.inCheck() ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        if (history.isThreefoldRepetition()) return GameStatus.THREEFOLD_REPETITION;
+        if (history.halfmoveClock() >= 100) return GameStatus.FIFTY_MOVE_RULE;
+        return GameStatus.IN_PROGRESS;
+    }
+
+    // Neither side can ever mate: bare kings, a single minor piece, or one bishop each on the same color
+    private boolean isInsufficientMaterial() {
+        int[] minors = new int[2];
+        for (int color = Pieces.WHITE; color <= Pieces.BLACK; color++) {
+            if (material[Pieces.make(color, Pieces.PAWN)] + material[Pieces.make(color, Pieces.ROOK)]
+                    + material[Pieces.make(color, Pieces.QUEEN)] > 0) {
+                return false;
+            }
+            minors[color] = material[Pieces.make(color, Pieces.KNIGHT)] + material[Pieces.make(color, Pieces.BISHOP)];
+        }
+        if (minors[0] + minors[1] <= 1) return true;
+        if (minors[0] != 1 || minors[1] != 1
+                || material[Pieces.make(Pieces.WHITE, Pieces.BISHOP)] != 1
+                || material[Pieces.make(Pieces.BLACK, Pieces.BISHOP)] != 1) {
+            return false;
+        }
+        int shades = 0;
+        for (ChessPosition position : getAllPositions()) {
+            ChessPiece piece = activeBoard.getPiece(position);
+            if (piece != null && piece.getPieceType() == ChessPiece.PieceType.BISHOP) {
+                shades += (position.getRow() + position.getColumn()) % 2;
+            }
+        }
+        return shades != 1;
+    }
+
+    /**
+     * Determines if the current position has occurred three times with the same
+     * player to move. Only positions since the last capture or pawn move are compared.
+     *
+     * @return True if the position is a threefold repetition
+     */
+    public boolean isThreefoldRepetition() {
+        return history.isThreefoldRepetition();
+    }
+
+    /**
+     * @return the move that led to the current board, or null if none was
+     * made since the board was set or the game was loaded
+     */
+    public ChessMove getLastMove() {
+        return lastMove;
+    }
+
+    /**
+     * @return the positions played since the last capture or pawn move
+     */
+    public RepetitionHistory getHistory() {
+        return history;
     }
 
     /**
@@ -211,6 +345,8 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         activeBoard = board;
+        history.clear();
+        lastMove = null;
     }
 
     /**
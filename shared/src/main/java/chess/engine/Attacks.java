@@ -0,0 +1,108 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed attack tables for the 64 squares.
+ * <p>
+ * Rays are listed nearest square first. Directions 0-3 are orthogonal
+ * (rook-like) and directions 4-7 are diagonal (bishop-like).
+ */
+public final class Attacks {
+
+    static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    static final int[][] KNIGHT_OFFSETS = {{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+
+    static final int[][] KNIGHT = new int[64][];
+    static final int[][] KING = new int[64][];
+    static final int[][][] RAYS = new int[64][8][];
+    /** PAWN[color][square] lists the squares a pawn of that color on that square attacks. */
+    static final int[][][] PAWN = new int[2][64][];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+            KNIGHT[square] = steps(row, col, KNIGHT_OFFSETS);
+            KING[square] = steps(row, col, DIRECTIONS);
+            PAWN[Pieces.WHITE][square] = steps(row, col, new int[][]{{1, -1}, {1, 1}});
+            PAWN[Pieces.BLACK][square] = steps(row, col, new int[][]{{-1, -1}, {-1, 1}});
+            for (int direction = 0; direction < 8; direction++) {
+                RAYS[square][direction] = ray(row, col, DIRECTIONS[direction]);
+            }
+        }
+    }
+
+    private Attacks() {}
+
+    private static int[] steps(int row, int col, int[][] offsets) {
+        int[] buffer = new int[offsets.length];
+        int count = 0;
+        for (int[] offset : offsets) {
+            int r = row + offset[0];
+            int c = col + offset[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                buffer[count++] = r * 8 + c;
+            }
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private static int[] ray(int row, int col, int[] direction) {
+        int[] buffer = new int[7];
+        int count = 0;
+        int r = row + direction[0];
+        int c = col + direction[1];
+        while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+            buffer[count++] = r * 8 + c;
+            r += direction[0];
+            c += direction[1];
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    static boolean isOrthogonal(int direction) {
+        return direction < 4;
+    }
+
+    /**
+     * @return true if a slider of the given type moves along the given direction
+     */
+    static boolean slidesAlong(int type, int direction) {
+        return type == Pieces.QUEEN
+                || (type == Pieces.ROOK && isOrthogonal(direction))
+                || (type == Pieces.BISHOP && !isOrthogonal(direction));
+    }
+
+    /**
+     * Determines if a square is attacked by any piece of the given color
+     *
+     * @param squares the mailbox board to look at
+     * @param square  the square being attacked
+     * @param byColor the attacking color
+     * @return True if at least one piece of byColor attacks the square
+     */
+    public static boolean isAttacked(int[] squares, int square, int byColor) {
+        int pawn = Pieces.make(byColor, Pieces.PAWN);
+        for (int from : PAWN[byColor ^ 1][square]) {
+            if (squares[from] == pawn) return true;
+        }
+        int knight = Pieces.make(byColor, Pieces.KNIGHT);
+        for (int from : KNIGHT[square]) {
+            if (squares[from] == knight) return true;
+        }
+        int king = Pieces.make(byColor, Pieces.KING);
+        for (int from : KING[square]) {
+            if (squares[from] == king) return true;
+        }
+        for (int direction = 0; direction < 8; direction++) {
+            for (int from : RAYS[square][direction]) {
+                int piece = squares[from];
+                if (piece == Pieces.EMPTY) continue;
+                if (Pieces.color(piece) == byColor && slidesAlong(Pieces.type(piece), direction)) return true;
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,195 @@
+package chess.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores many positions at once with the weights of a {@link ClassicEvaluator},
+ * for bulk jobs where throughput matters more than the latency of one call.
+ * <p>
+ * Positions are added to a {@link Batch}, which stores them as one bitboard
+ * array per piece kind, so lane i of every array belongs to position i. The
+ * Vector API kernel then works on as many positions per instruction as fit
+ * in a vector, visiting only the squares where at least one of those
+ * positions has that kind of piece. Scores are the same as
+ * {@link ClassicEvaluator#evaluate} gives, from the side to move's view.
+ * <pre>
+ * BatchEvaluator positions.fen
+ * </pre>
+ * prints the score of every line.
+ */
+public final class BatchEvaluator {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    // Material plus square bonus for each piece kind and square, already negative for black
+    private final long[][] table = new long[12][64];
+    private final BatchKernel kernel;
+
+    public BatchEvaluator(ClassicEvaluator weights) {
+        this(weights, BatchKernel.best());
+    }
+
+    BatchEvaluator(ClassicEvaluator weights, BatchKernel kernel) {
+        this.kernel = kernel;
+        for (int color = Pieces.WHITE; color <= Pieces.BLACK; color++) {
+            for (int type = Pieces.PAWN; type <= Pieces.KING; type++) {
+                int piece = Pieces.make(color, type);
+                for (int square = 0; square < 64; square++) {
+                    table[kind(piece)][square] = weights.pieceScore(piece, square);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: BatchEvaluator <positions.fen>");
+            return;
+        }
+        BatchEvaluator evaluator = new BatchEvaluator(new ClassicEvaluator());
+        Batch batch = new Batch(DEFAULT_BATCH_SIZE);
+        List<String> lines = new ArrayList<>();
+        int[] scores = new int[DEFAULT_BATCH_SIZE];
+        long count = 0;
+        long start = System.nanoTime();
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[0]))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                batch.add(Fen.parse(line));
+                lines.add(line);
+                if (batch.size() == batch.capacity()) {
+                    count += flush(evaluator, batch, lines, scores, System.out);
+                }
+            }
+        }
+        count += flush(evaluator, batch, lines, scores, System.out);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d positions, %,.0f positions/s with the %s kernel%n", count, count / seconds,
+                evaluator.kernel.name());
+    }
+
+    private static int flush(BatchEvaluator evaluator, Batch batch, List<String> lines, int[] scores, PrintStream out) {
+        int size = batch.size();
+        evaluator.evaluate(batch, scores);
+        for (int i = 0; i < size; i++) {
+            out.println(scores[i] + " " + lines.get(i));
+        }
+        batch.clear();
+        lines.clear();
+        return size;
+    }
+
+    /**
+     * Writes the score of every position in the batch, from the side to move's view.
+     *
+     * @param scores at least as long as the batch size
+     */
+    public void evaluate(Batch batch, int[] scores) {
+        if (scores.length < batch.size) throw new IllegalArgumentException("Too few scores for the batch");
+        kernel.evaluate(batch.pieces, batch.signs, batch.size, table, scores);
+    }
+
+    /**
+     * @return 0 to 5 for white pawn to king, 6 to 11 for black
+     */
+    static int kind(int piece) {
+        return Pieces.color(piece) * 6 + Pieces.type(piece) - 1;
+    }
+
+    /**
+     * Positions in structure of arrays form: for each of the 12 piece kinds a
+     * bitboard per position, plus 1 or -1 for white or black to move.
+     */
+    public static final class Batch {
+        final long[][] pieces;
+        final long[] signs;
+        int size;
+
+        public Batch(int capacity) {
+            pieces = new long[12][capacity];
+            signs = new long[capacity];
+        }
+
+        /**
+         * @throws IllegalStateException if the batch is full
+         */
+        public void add(Position position) {
+            if (size == signs.length) throw new IllegalStateException("Batch is full");
+            for (long[] bitboards : pieces) {
+                bitboards[size] = 0;
+            }
+            for (int square = 0; square < 64; square++) {
+                int piece = position.pieceAt(square);
+                if (piece != Pieces.EMPTY) pieces[kind(piece)][size] |= 1L << square;
+            }
+            signs[size] = position.sideToMove() == Pieces.WHITE ? 1 : -1;
+            size++;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int capacity() {
+            return signs.length;
+        }
+    }
+
+    /**
+     * The scoring loop, with the same choice of Vector API or plain loops as {@link NnueKernel}.
+     */
+    interface BatchKernel {
+
+        void evaluate(long[][] pieces, long[] signs, int count, long[][] table, int[] scores);
+
+        String name();
+
+        static BatchKernel best() {
+            if (Boolean.parseBoolean(System.getProperty("chess.simd", "true"))) {
+                try {
+                    return (BatchKernel) Class.forName("chess.engine.VectorBatchKernel")
+                            .getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    // The module is missing, use the plain loops
+                }
+            }
+            return new Scalar();
+        }
+
+        final class Scalar implements BatchKernel {
+
+            @Override
+            public void evaluate(long[][] pieces, long[] signs, int count, long[][] table, int[] scores) {
+                for (int i = 0; i < count; i++) {
+                    scores[i] = score(pieces, signs, table, i);
+                }
+            }
+
+            static int score(long[][] pieces, long[] signs, long[][] table, int index) {
+                long sum = 0;
+                for (int kind = 0; kind < 12; kind++) {
+                    for (long bits = pieces[kind][index]; bits != 0; bits &= bits - 1) {
+                        sum += table[kind][Long.numberOfTrailingZeros(bits)];
+                    }
+                }
+                return (int) (sum * signs[index]);
+            }
+
+            @Override
+            public String name() {
+                return "scalar";
+            }
+        }
+    }
+}
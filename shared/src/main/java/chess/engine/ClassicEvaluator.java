@@ -0,0 +1,145 @@
+package chess.engine;
+
+/**
+ * Hand-crafted evaluation from material and piece-square tables.
+ * <p>
+ * Tables are stored from white's point of view with index 0 = a1, and are
+ * mirrored vertically for black pieces.
+ */
+public class ClassicEvaluator implements Evaluator {
+
+    public static final int[] DEFAULT_VALUES = {0, 100, 320, 330, 500, 900, 0};
+
+    // Written with the 8th rank first so they read like a board
+    private static final int[][] DEFAULT_TABLES = {
+            new int[64],
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            },
+            {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            },
+            {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            },
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0
+            },
+            {
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20
+            },
+            {
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20
+            }
+    };
+
+    final int[] pieceValues;
+    final int[][] pieceSquare;
+
+    public ClassicEvaluator() {
+        this(DEFAULT_VALUES, defaultTables());
+    }
+
+    /**
+     * @param pieceValues material value for each piece type, indexed by type
+     * @param pieceSquare bonus for each piece type and square, white's view, a1 = 0
+     */
+    public ClassicEvaluator(int[] pieceValues, int[][] pieceSquare) {
+        this.pieceValues = pieceValues.clone();
+        this.pieceSquare = new int[7][];
+        for (int type = 0; type < 7; type++) {
+            this.pieceSquare[type] = pieceSquare[type].clone();
+        }
+    }
+
+    /**
+     * @return a copy of the default tables indexed from a1
+     */
+    public static int[][] defaultTables() {
+        int[][] tables = new int[7][64];
+        for (int type = 0; type < 7; type++) {
+            for (int square = 0; square < 64; square++) {
+                tables[type][square] = DEFAULT_TABLES[type][(7 - (square >>> 3)) * 8 + (square & 7)];
+            }
+        }
+        return tables;
+    }
+
+    public int[] pieceValues() {
+        return pieceValues.clone();
+    }
+
+    public int[][] pieceSquareTables() {
+        int[][] copy = new int[7][];
+        for (int type = 0; type < 7; type++) {
+            copy[type] = pieceSquare[type].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * @return the score of one piece on one square, positive for white
+     */
+    public int pieceScore(int piece, int square) {
+        int type = Pieces.type(piece);
+        if (Pieces.color(piece) == Pieces.WHITE) {
+            return pieceValues[type] + pieceSquare[type][square];
+        }
+        return -(pieceValues[type] + pieceSquare[type][square ^ 56]);
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        int score = 0;
+        int[] squares = position.squares;
+        for (int square = 0; square < 64; square++) {
+            int piece = squares[square];
+            if (piece != Pieces.EMPTY) {
+                score += pieceScore(piece, square);
+            }
+        }
+        return position.sideToMove == Pieces.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,274 @@
+package chess.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs the engine over an EPD test suite and reports how many positions it
+ * solves.
+ * <p>
+ * Each line holds the first four FEN fields followed by operations; the
+ * runner reads {@code bm} (best moves, in SAN), {@code am} (moves to avoid)
+ * and {@code id}. The file is streamed, with only a few lines more than the
+ * number of threads in memory at once, and positions are searched in
+ * parallel with one search and table per thread. The summary gives the solve
+ * rate, the average time until the engine settled on a solution, and nodes
+ * per second, so a change that is faster but solves less shows up at once.
+ * <pre>
+ * EpdRunner file.epd [depth N | nodes N | movetime MS] [threads N] [hash MB]
+ * </pre>
+ */
+public final class EpdRunner {
+
+    private final SearchLimits limits;
+    private final int threads;
+    private final int hashMegabytes;
+    private final Supplier<Evaluator> evaluators;
+
+    /**
+     * @param limits         budget for each position
+     * @param threads        positions searched at once
+     * @param hashMegabytes  transposition table size per thread
+     */
+    public EpdRunner(SearchLimits limits, int threads, int hashMegabytes) {
+        this(limits, threads, hashMegabytes, ClassicEvaluator::new);
+    }
+
+    EpdRunner(SearchLimits limits, int threads, int hashMegabytes, Supplier<Evaluator> evaluators) {
+        this.limits = limits;
+        this.threads = Math.max(1, threads);
+        this.hashMegabytes = hashMegabytes;
+        this.evaluators = evaluators;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: EpdRunner <file.epd> [depth N | nodes N | movetime MS] [threads N] [hash MB]");
+            return;
+        }
+        SearchLimits limits = SearchLimits.movetime(1000);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hash = 16;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            long value = Long.parseLong(args[i + 1]);
+            switch (args[i]) {
+                case "depth" -> limits = SearchLimits.depth((int) value);
+                case "nodes" -> limits = SearchLimits.nodes(value);
+                case "movetime" -> limits = SearchLimits.movetime(value);
+                case "threads" -> threads = (int) value;
+                case "hash" -> hash = (int) value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[0]))) {
+            Summary summary = new EpdRunner(limits, threads, hash).run(in, System.out);
+            System.out.println(summary);
+        }
+    }
+
+    /**
+     * Runs every position in the input, printing a line per position as it finishes.
+     */
+    public Summary run(BufferedReader in, PrintStream out) throws IOException, InterruptedException {
+        ThreadLocal<Search> searches = ThreadLocal.withInitial(
+                () -> new Search(evaluators.get(), new TranspositionTable(hashMegabytes)));
+        Semaphore inFlight = new Semaphore(threads * 2);
+        AtomicInteger positions = new AtomicInteger();
+        AtomicInteger solved = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong solveMillis = new AtomicLong();
+        AtomicLong nodes = new AtomicLong();
+        AtomicLong searchMillis = new AtomicLong();
+        long start = System.currentTimeMillis();
+        // Closing the pool waits for the searches still running
+        try (ExecutorService workers = Executors.newFixedThreadPool(threads)) {
+            String line;
+            int number = 0;
+            while ((line = in.readLine()) != null) {
+                number++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                EpdPosition epd;
+                try {
+                    epd = EpdPosition.parse(line, "line " + number);
+                } catch (IllegalArgumentException e) {
+                    out.println("skipped line " + number + ": " + e.getMessage());
+                    continue;
+                }
+                inFlight.acquire();
+                int lineNumber = number;
+                workers.execute(() -> {
+                    try {
+                        Outcome outcome;
+                        try {
+                            outcome = solve(searches.get(), epd);
+                        } catch (RuntimeException e) {
+                            // Counted as a position not solved, rather than lost with the worker's stack trace
+                            positions.incrementAndGet();
+                            errors.incrementAndGet();
+                            synchronized (out) {
+                                out.println("failed line " + lineNumber + ": " + e);
+                            }
+                            searches.remove();
+                            return;
+                        }
+                        positions.incrementAndGet();
+                        nodes.addAndGet(outcome.nodes());
+                        searchMillis.addAndGet(outcome.elapsedMillis());
+                        if (outcome.solved()) {
+                            solved.incrementAndGet();
+                            solveMillis.addAndGet(outcome.timeToSolutionMillis());
+                        }
+                        synchronized (out) {
+                            out.println(outcome);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long wallMillis = Math.max(1, System.currentTimeMillis() - start);
+        return new Summary(positions.get(), solved.get(), errors.get(),
+                solved.get() == 0 ? 0 : (double) solveMillis.get() / solved.get(),
+                nodes.get() * 1000 / Math.max(1, searchMillis.get()),
+                nodes.get() * 1000 / wallMillis);
+    }
+
+    Outcome solve(Search search, EpdPosition epd) {
+        search.table().clear();
+        // Time to solution is when the best move last changed to a right answer
+        long[] solvedAt = {-1};
+        search.setListener(result -> {
+            if (epd.accepts(result.bestMove())) {
+                if (solvedAt[0] < 0) solvedAt[0] = result.elapsedMillis();
+            } else {
+                solvedAt[0] = -1;
+            }
+        });
+        SearchResult result = search.search(epd.position(), limits);
+        search.setListener(null);
+        boolean solved = epd.accepts(result.bestMove());
+        return new Outcome(epd.id(), solved, solved ? Math.max(0, solvedAt[0]) : -1,
+                result.bestMove(), result.nodes(), result.elapsedMillis());
+    }
+
+    /**
+     * A test position with the moves that solve it.
+     *
+     * @param bestMoves   any of these solves the position, if there are any
+     * @param avoidMoves  none of these may be played
+     */
+    public record EpdPosition(String id, Position position, int[] bestMoves, int[] avoidMoves) {
+
+        /**
+         * @param fallbackId used when the line has no id operation
+         * @throws IllegalArgumentException if the line is not valid EPD
+         */
+        public static EpdPosition parse(String line, String fallbackId) {
+            String[] fields = line.trim().split("\\s+", 5);
+            if (fields.length < 4) throw new IllegalArgumentException("Too few fields");
+            Position position = Fen.parse(fields[0] + " " + fields[1]);
+            String id = fallbackId;
+            List<Integer> best = new ArrayList<>();
+            List<Integer> avoid = new ArrayList<>();
+            String operations = fields.length > 4 ? fields[4] : "";
+            for (String operation : splitOperations(operations)) {
+                String[] parts = operation.trim().split("\\s+");
+                if (parts.length < 2) continue;
+                switch (parts[0]) {
+                    case "id" -> id = operation.trim().substring(2).trim().replace("\"", "");
+                    case "bm", "am" -> {
+                        for (int i = 1; i < parts.length; i++) {
+                            int move = Moves.parseSan(position, parts[i]);
+                            if (move == Moves.NONE) move = legalUci(position, parts[i]);
+                            if (move == Moves.NONE) {
+                                throw new IllegalArgumentException("Unknown move " + parts[i]);
+                            }
+                            (parts[0].equals("bm") ? best : avoid).add(move);
+                        }
+                    }
+                    default -> { }
+                }
+            }
+            if (best.isEmpty() && avoid.isEmpty()) throw new IllegalArgumentException("No bm or am operation");
+            return new EpdPosition(id, position, best.stream().mapToInt(Integer::intValue).toArray(),
+                    avoid.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        // Semicolons end operations, except inside quoted strings
+        private static List<String> splitOperations(String text) {
+            List<String> operations = new ArrayList<>();
+            boolean quoted = false;
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') quoted = !quoted;
+                if (c == ';' && !quoted) {
+                    operations.add(text.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            if (start < text.length()) operations.add(text.substring(start));
+            return operations;
+        }
+
+        private static int legalUci(Position position, String text) {
+            int move = Moves.parseUci(text);
+            return move != Moves.NONE && MoveGenerator.isLegal(position, move) ? move : Moves.NONE;
+        }
+
+        public boolean accepts(int move) {
+            for (int avoid : avoidMoves) {
+                if (avoid == move) return false;
+            }
+            if (bestMoves.length == 0) return true;
+            for (int best : bestMoves) {
+                if (best == move) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param timeToSolutionMillis  when the engine settled on a solving move, or -1 if it did not solve
+     */
+    public record Outcome(String id, boolean solved, long timeToSolutionMillis, int move, long nodes,
+                          long elapsedMillis) {
+        @Override
+        public String toString() {
+            return String.format("%-24s %-8s %s nodes %d time %d", id, solved ? "solved" : "failed",
+                    Moves.toUci(move), nodes, elapsedMillis);
+        }
+    }
+
+    /**
+     * @param errors                positions whose search threw, counted in positions but not solved
+     * @param nodesPerSecond        per search thread
+     * @param totalNodesPerSecond   across all threads, by wall clock time
+     */
+    public record Summary(int positions, int solved, int errors, double averageTimeToSolutionMillis,
+                          long nodesPerSecond, long totalNodesPerSecond) {
+
+        public double solveRate() {
+            return positions == 0 ? 0 : (double) solved / positions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("solved %d of %d (%.1f%%)%s, average time to solution %.0f ms, %d nps per thread, %d nps total",
+                    solved, positions, solveRate() * 100, errors == 0 ? "" : ", " + errors + " failed with errors",
+                    averageTimeToSolutionMillis, nodesPerSecond, totalNodesPerSecond);
+        }
+    }
+}
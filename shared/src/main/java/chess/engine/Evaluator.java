@@ -0,0 +1,12 @@
+package chess.engine;
+
+/**
+ * Static evaluation of a position for the search.
+ */
+public interface Evaluator {
+
+    /**
+     * @return the score in centipawns from the point of view of the side to move
+     */
+    int evaluate(Position position);
+}
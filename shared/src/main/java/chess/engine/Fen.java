@@ -0,0 +1,74 @@
+package chess.engine;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * Castling rights and the en passant square are accepted but ignored, since
+ * the game rules used here support neither.
+ */
+public final class Fen {
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private Fen() {}
+
+    /**
+     * @throws IllegalArgumentException if the text is not a valid FEN string
+     */
+    public static Position parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 1) throw new IllegalArgumentException("Empty FEN");
+        Position position = new Position();
+        int row = 7;
+        int col = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                row--;
+                col = 0;
+            } else if (Character.isDigit(c)) {
+                col += c - '0';
+            } else {
+                int piece = Pieces.fromChar(c);
+                if (piece == Pieces.EMPTY || row < 0 || col > 7) {
+                    throw new IllegalArgumentException("Bad FEN board: " + fields[0]);
+                }
+                position.put(row * 8 + col, piece);
+                col++;
+            }
+        }
+        if (row != 0) throw new IllegalArgumentException("Bad FEN board: " + fields[0]);
+        if (fields.length > 1) {
+            position.setSideToMove(fields[1].equals("b") ? Pieces.BLACK : Pieces.WHITE);
+        }
+        if (fields.length > 4) {
+            try {
+                position.setHalfmoveClock(Integer.parseInt(fields[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad FEN halfmove clock: " + fields[4]);
+            }
+        }
+        return position;
+    }
+
+    public static String toFen(Position position) {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = position.pieceAt(row * 8 + col);
+                if (piece == Pieces.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                sb.append(Pieces.toChar(piece));
+            }
+            if (empty > 0) sb.append(empty);
+            if (row > 0) sb.append('/');
+        }
+        sb.append(position.sideToMove() == Pieces.WHITE ? " w" : " b");
+        sb.append(" - - ").append(position.halfmoveClock()).append(" 1");
+        return sb.toString();
+    }
+}
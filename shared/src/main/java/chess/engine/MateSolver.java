@@ -0,0 +1,268 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Mate-in-N solver using depth-first proof-number search (df-pn).
+ * <p>
+ * The side to move at the root is the attacker. A node is proven when the
+ * attacker can force mate within the remaining plies and disproven when the
+ * defender can avoid it. Proof and disproof numbers estimate how many leaves
+ * still have to be solved either way, and the search always expands the
+ * cheapest looking line, so forced mates are found with far fewer nodes than
+ * a full-width alpha-beta search to the same depth.
+ * <p>
+ * Numbers are kept in a fixed size two-way table keyed by Zobrist key and
+ * remaining plies. When both slots of a bucket are taken the entry that cost
+ * less work to compute is evicted. {@link #solveEachMove} checks every root
+ * move in its own subtree, in parallel, which is what puzzle validation needs
+ * to confirm a solution is unique.
+ */
+public final class MateSolver {
+
+    public static final int DEFAULT_TABLE_ENTRIES = 1 << 18;
+    public static final long DEFAULT_NODE_BUDGET = 2_000_000;
+
+    private static final int INFINITY = 100_000_000;
+    private static final int MAX_PLIES = 2 * 32;
+    private static final long[] PLIES_KEYS = new long[MAX_PLIES + 1];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x50524F4FL);
+        for (int i = 0; i < PLIES_KEYS.length; i++) {
+            PLIES_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private final int tableEntries;
+    private final long nodeBudget;
+
+    public MateSolver() {
+        this(DEFAULT_TABLE_ENTRIES, DEFAULT_NODE_BUDGET);
+    }
+
+    /**
+     * @param tableEntries  entries in the proof table of each solve, rounded down to a power of two
+     * @param nodeBudget    nodes a solve may expand before giving up
+     */
+    public MateSolver(int tableEntries, long nodeBudget) {
+        this.tableEntries = Math.max(2, Integer.highestOneBit(tableEntries));
+        this.nodeBudget = nodeBudget;
+    }
+
+    public enum Outcome {
+        /** The attacker mates in at most the given number of moves. */
+        MATE,
+        /** The defender avoids mate for that long. */
+        NO_MATE,
+        /** The node budget ran out first. */
+        UNKNOWN
+    }
+
+    /**
+     * @param outcome the answer for the position or move
+     * @param move    a mating first move, or the root move this result is for
+     * @param nodes   nodes expanded
+     */
+    public record Result(Outcome outcome, int move, long nodes) {}
+
+    /**
+     * Decides whether the side to move can force mate in at most the given
+     * number of its own moves.
+     */
+    public Result solve(Position position, int mateInMoves) {
+        Run run = new Run(new Position(position), position.sideToMove());
+        int plies = plies(mateInMoves);
+        Outcome outcome = run.solve(plies);
+        int move = outcome == Outcome.MATE ? run.provingMove(plies) : Moves.NONE;
+        return new Result(outcome, move, run.nodes);
+    }
+
+    /**
+     * Solves every legal root move as an independent subtree, in parallel.
+     *
+     * @return one result per root move, in move generation order
+     */
+    public List<Result> solveEachMove(Position position, int mateInMoves) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, moves);
+        int plies = plies(mateInMoves);
+        int attacker = position.sideToMove();
+        return IntStream.range(0, count).parallel().mapToObj(i -> {
+            Position child = new Position(position);
+            child.makeMove(moves[i]);
+            Run run = new Run(child, attacker);
+            return new Result(run.solve(plies - 1), moves[i], run.nodes);
+        }).toList();
+    }
+
+    /**
+     * @return the moves that mate in time, or null if any move could not be decided within the budget
+     */
+    public List<Integer> solutions(Position position, int mateInMoves) {
+        List<Integer> mating = new ArrayList<>();
+        for (Result result : solveEachMove(position, mateInMoves)) {
+            if (result.outcome() == Outcome.UNKNOWN) return null;
+            if (result.outcome() == Outcome.MATE) mating.add(result.move());
+        }
+        return mating;
+    }
+
+    private static int plies(int mateInMoves) {
+        if (mateInMoves < 1 || 2 * mateInMoves - 1 > MAX_PLIES) {
+            throw new IllegalArgumentException("Mate in " + mateInMoves + " is out of range");
+        }
+        return 2 * mateInMoves - 1;
+    }
+
+    private static int add(int a, int b) {
+        return Math.min(INFINITY, a + b);
+    }
+
+    /**
+     * One solve, with its own position, table and move buffers so runs can go
+     * in parallel. Numbers are stored negamax style: phi is the proof number
+     * at attacker nodes and the disproof number at defender nodes, delta the
+     * other one, so a node's phi is the smallest delta of its children and its
+     * delta is the sum of their phis.
+     */
+    private final class Run {
+        final Position position;
+        final int attacker;
+        final long[] keys = new long[tableEntries];
+        final int[] phis = new int[tableEntries];
+        final int[] deltas = new int[tableEntries];
+        final int[] work = new int[tableEntries];
+        final int[][] moveLists = new int[MAX_PLIES + 1][MoveGenerator.MAX_MOVES];
+        final long[][] childKeys = new long[MAX_PLIES + 1][MoveGenerator.MAX_MOVES];
+        long nodes;
+        boolean aborted;
+
+        Run(Position position, int attacker) {
+            this.position = position;
+            this.attacker = attacker;
+        }
+
+        Outcome solve(int plies) {
+            mid(INFINITY, INFINITY, plies, 0);
+            if (aborted) return Outcome.UNKNOWN;
+            long entry = find(tableKey(position.key(), plies));
+            int phi = entry < 0 ? 1 : phis[(int) entry];
+            boolean attackerToMove = position.sideToMove() == attacker;
+            // phi is 0 when the side to move has won
+            if (phi == 0) return attackerToMove ? Outcome.MATE : Outcome.NO_MATE;
+            return attackerToMove ? Outcome.NO_MATE : Outcome.MATE;
+        }
+
+        int provingMove(int plies) {
+            int[] moves = moveLists[0];
+            int count = MoveGenerator.generateLegal(position, moves);
+            for (int i = 0; i < count; i++) {
+                position.makeMove(moves[i]);
+                long entry = find(tableKey(position.key(), plies - 1));
+                position.unmakeMove();
+                if (entry >= 0 && deltas[(int) entry] == 0) return moves[i];
+            }
+            return Moves.NONE;
+        }
+
+        // Expands the node until its phi or delta reaches the threshold
+        private void mid(int thresholdPhi, int thresholdDelta, int plies, int ply) {
+            if (++nodes > nodeBudget) {
+                aborted = true;
+                return;
+            }
+            long key = tableKey(position.key(), plies);
+            int[] moves = moveLists[ply];
+            long[] children = childKeys[ply];
+            int count = MoveGenerator.generateLegal(position, moves);
+            if (count == 0) {
+                // Mated loses for the side to move, stalemate is a failure for the attacker
+                if (position.inCheck()) {
+                    store(key, INFINITY, 0, 1);
+                } else {
+                    storeFailure(key);
+                }
+                return;
+            }
+            if (plies == 0 || position.isRepetition()) {
+                storeFailure(key);
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                position.makeMove(moves[i]);
+                children[i] = tableKey(position.key(), plies - 1);
+                position.unmakeMove();
+            }
+
+            long startNodes = nodes;
+            while (true) {
+                int phi = INFINITY;
+                int delta = 0;
+                int best = -1;
+                int bestPhi = 0;
+                int secondDelta = INFINITY;
+                for (int i = 0; i < count; i++) {
+                    long entry = find(children[i]);
+                    int childPhi = entry < 0 ? 1 : phis[(int) entry];
+                    int childDelta = entry < 0 ? 1 : deltas[(int) entry];
+                    delta = add(delta, childPhi);
+                    if (childDelta < phi) {
+                        secondDelta = phi;
+                        phi = childDelta;
+                        best = i;
+                        bestPhi = childPhi;
+                    } else if (childDelta < secondDelta) {
+                        secondDelta = childDelta;
+                    }
+                }
+                if (phi >= thresholdPhi || delta >= thresholdDelta) {
+                    store(key, phi, delta, nodes - startNodes);
+                    return;
+                }
+                int childThresholdPhi = Math.min(INFINITY, thresholdDelta - delta + bestPhi);
+                int childThresholdDelta = Math.min(thresholdPhi, add(secondDelta, 1));
+                position.makeMove(moves[best]);
+                mid(childThresholdPhi, childThresholdDelta, plies - 1, ply + 1);
+                position.unmakeMove();
+                if (aborted) return;
+            }
+        }
+
+        // The attacker has failed to mate: a win for the defender, whoever is to move
+        private void storeFailure(long key) {
+            if (position.sideToMove() == attacker) {
+                store(key, INFINITY, 0, 1);
+            } else {
+                store(key, 0, INFINITY, 1);
+            }
+        }
+
+        private long find(long key) {
+            int index = (int) key & (tableEntries - 2);
+            if (keys[index] == key) return index;
+            if (keys[index + 1] == key) return index + 1;
+            return -1;
+        }
+
+        // Keeps the entry that took more work when both slots of the bucket are used
+        private void store(long key, int phi, int delta, long cost) {
+            int index = (int) key & (tableEntries - 2);
+            if (keys[index] != key && (keys[index + 1] == key || work[index + 1] <= work[index])) {
+                index++;
+            }
+            keys[index] = key;
+            phis[index] = phi;
+            deltas[index] = delta;
+            work[index] = (int) Math.min(Integer.MAX_VALUE, cost);
+        }
+    }
+
+    // Keys differ by remaining plies, since a mate in 3 is not a mate in 2
+    private static long tableKey(long key, int plies) {
+        return key ^ PLIES_KEYS[plies];
+    }
+}
@@ -0,0 +1,165 @@
+package chess.engine;
+
+/**
+ * Generates moves for a {@link Position} into caller supplied int arrays so
+ * the search does not allocate per node.
+ * <p>
+ * Generated moves are pseudo-legal: they may leave the mover's own king in
+ * check, which the caller detects after making the move.
+ */
+public final class MoveGenerator {
+
+    /** Upper bound on the number of pseudo-legal moves in any position. */
+    public static final int MAX_MOVES = 256;
+
+    private static final int[] PROMOTIONS = {Pieces.QUEEN, Pieces.ROOK, Pieces.BISHOP, Pieces.KNIGHT};
+
+    private MoveGenerator() {}
+
+    /**
+     * Writes every pseudo-legal move for the side to move into moves.
+     *
+     * @return the number of moves written
+     */
+    public static int generate(Position position, int[] moves) {
+        return generate(position, moves, false);
+    }
+
+    /**
+     * Writes the pseudo-legal captures and promotions for the side to move.
+     *
+     * @return the number of moves written
+     */
+    public static int generateNoisy(Position position, int[] moves) {
+        return generate(position, moves, true);
+    }
+
+    private static int generate(Position position, int[] moves, boolean noisyOnly) {
+        int[] squares = position.squares;
+        int us = position.sideToMove;
+        int count = 0;
+        for (int from = 0; from < 64; from++) {
+            int piece = squares[from];
+            if (piece == Pieces.EMPTY || Pieces.color(piece) != us) continue;
+            switch (Pieces.type(piece)) {
+                case Pieces.PAWN -> count = pawnMoves(squares, from, us, moves, count, noisyOnly);
+                case Pieces.KNIGHT -> count = stepMoves(squares, from, us, Attacks.KNIGHT[from], moves, count, noisyOnly);
+                case Pieces.KING -> count = stepMoves(squares, from, us, Attacks.KING[from], moves, count, noisyOnly);
+                case Pieces.BISHOP -> count = slideMoves(squares, from, us, 4, 8, moves, count, noisyOnly);
+                case Pieces.ROOK -> count = slideMoves(squares, from, us, 0, 4, moves, count, noisyOnly);
+                case Pieces.QUEEN -> count = slideMoves(squares, from, us, 0, 8, moves, count, noisyOnly);
+                default -> { }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes only the legal moves for the side to move.
+     *
+     * @return the number of moves written
+     */
+    public static int generateLegal(Position position, int[] moves) {
+        int count = generate(position, moves, false);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (isLegal(position, moves[i])) {
+                moves[legal++] = moves[i];
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * @return True if the side to move has at least one legal move. Stops at the
+     * first legal move found instead of building the full list.
+     */
+    public static boolean hasLegalMove(Position position) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generate(position, moves, false);
+        for (int i = 0; i < count; i++) {
+            if (isLegal(position, moves[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the pseudo-legal move does not leave the mover in check
+     */
+    public static boolean isLegal(Position position, int move) {
+        position.makeMove(move);
+        boolean legal = !position.leftKingInCheck();
+        position.unmakeMove();
+        return legal;
+    }
+
+    private static int stepMoves(int[] squares, int from, int us, int[] targets, int[] moves, int count, boolean noisyOnly) {
+        for (int to : targets) {
+            int target = squares[to];
+            if (target == Pieces.EMPTY) {
+                if (!noisyOnly) moves[count++] = Moves.make(from, to);
+            } else if (Pieces.color(target) != us) {
+                moves[count++] = Moves.make(from, to);
+            }
+        }
+        return count;
+    }
+
+    private static int slideMoves(int[] squares, int from, int us, int firstDirection, int lastDirection,
+                                  int[] moves, int count, boolean noisyOnly) {
+        for (int direction = firstDirection; direction < lastDirection; direction++) {
+            for (int to : Attacks.RAYS[from][direction]) {
+                int target = squares[to];
+                if (target == Pieces.EMPTY) {
+                    if (!noisyOnly) moves[count++] = Moves.make(from, to);
+                    continue;
+                }
+                if (Pieces.color(target) != us) {
+                    moves[count++] = Moves.make(from, to);
+                }
+                break;
+            }
+        }
+        return count;
+    }
+
+    private static int pawnMoves(int[] squares, int from, int us, int[] moves, int count, boolean noisyOnly) {
+        int forward = us == Pieces.WHITE ? 8 : -8;
+        int row = from >>> 3;
+        int startRow = us == Pieces.WHITE ? 1 : 6;
+        int lastRow = us == Pieces.WHITE ? 6 : 1;
+        boolean promotes = row == lastRow;
+
+        int oneStep = from + forward;
+        if (oneStep < 0 || oneStep >= 64) return count;
+        if (squares[oneStep] == Pieces.EMPTY) {
+            if (promotes) {
+                count = addPromotions(from, oneStep, moves, count);
+            } else if (!noisyOnly) {
+                moves[count++] = Moves.make(from, oneStep);
+                int twoSteps = oneStep + forward;
+                if (row == startRow && squares[twoSteps] == Pieces.EMPTY) {
+                    moves[count++] = Moves.make(from, twoSteps);
+                }
+            }
+        }
+        for (int to : Attacks.PAWN[us][from]) {
+            int target = squares[to];
+            if (target != Pieces.EMPTY && Pieces.color(target) != us) {
+                if (promotes) {
+                    count = addPromotions(from, to, moves, count);
+                } else {
+                    moves[count++] = Moves.make(from, to);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(int from, int to, int[] moves, int count) {
+        for (int type : PROMOTIONS) {
+            moves[count++] = Moves.make(from, to, type);
+        }
+        return count;
+    }
+}
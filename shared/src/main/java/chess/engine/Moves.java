@@ -0,0 +1,170 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+
+/**
+ * Helpers for the packed int moves used by the engine.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square and bits 12-14
+ * the promotion piece type. Squares are numbered 0 (a1) to 63 (h8), so
+ * square = (row - 1) * 8 + (column - 1). A value of 0 is never a real move.
+ */
+public final class Moves {
+
+    public static final int NONE = 0;
+
+    private Moves() {}
+
+    public static int make(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int make(int from, int to, int promotionType) {
+        return from | (to << 6) | (promotionType << 12);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int col(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition toPosition(int square) {
+        return new ChessPosition(row(square), col(square));
+    }
+
+    public static int fromPosition(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(toPosition(from(move)), toPosition(to(move)), Pieces.toPieceType(promotion(move)));
+    }
+
+    public static int fromChessMove(ChessMove move) {
+        return make(fromPosition(move.getStartPosition()), fromPosition(move.getEndPosition()),
+                Pieces.toType(move.getPromotionPiece()));
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+
+    /**
+     * @return the move in long algebraic notation, for example e2e4 or a7a8q
+     */
+    public static String toUci(int move) {
+        if (move == NONE) return "0000";
+        String text = squareName(from(move)) + squareName(to(move));
+        int promotion = promotion(move);
+        return promotion == Pieces.EMPTY ? text : text + " pnbrqk".charAt(promotion);
+    }
+
+    /**
+     * Parses a move in long algebraic notation.
+     *
+     * @return the packed move, or NONE if the text is not a well formed move
+     */
+    public static int parseUci(CharSequence text) {
+        return parseUci(text, 0, text.length());
+    }
+
+    /**
+     * Parses the move in text between start (inclusive) and end (exclusive),
+     * so a caller can walk a long move list without creating substrings.
+     *
+     * @return the packed move, or NONE if the text is not a well formed move
+     */
+    public static int parseUci(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length != 4 && length != 5) return NONE;
+        int from = parseSquare(text.charAt(start), text.charAt(start + 1));
+        int to = parseSquare(text.charAt(start + 2), text.charAt(start + 3));
+        if (from < 0 || to < 0) return NONE;
+        int promotion = Pieces.EMPTY;
+        if (length == 5) {
+            promotion = " pnbrqk".indexOf(Character.toLowerCase(text.charAt(start + 4)));
+            if (promotion < Pieces.KNIGHT || promotion > Pieces.QUEEN) return NONE;
+        }
+        return make(from, to, promotion);
+    }
+
+    /**
+     * Parses a move in standard algebraic notation, such as Nbd7, exd5 or
+     * e8=Q+, against the legal moves of a position. Check and annotation
+     * marks are ignored. Castling never matches since the rules have none.
+     *
+     * @return the legal move, or NONE if the text matches no legal move or more than one
+     */
+    public static int parseSan(Position position, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        String text = san.substring(0, end);
+        int promotion = Pieces.EMPTY;
+        int equals = text.indexOf('=');
+        if (equals >= 0 && equals + 1 < text.length()) {
+            promotion = Pieces.type(Pieces.fromChar(text.charAt(equals + 1)));
+            text = text.substring(0, equals);
+        } else if (text.length() > 2 && "QRBN".indexOf(text.charAt(text.length() - 1)) >= 0
+                && Character.isDigit(text.charAt(text.length() - 2))) {
+            promotion = Pieces.type(Pieces.fromChar(text.charAt(text.length() - 1)));
+            text = text.substring(0, text.length() - 1);
+        }
+        int type = Pieces.PAWN;
+        if (!text.isEmpty() && "NBRQK".indexOf(text.charAt(0)) >= 0) {
+            type = Pieces.type(Pieces.fromChar(text.charAt(0)));
+            text = text.substring(1);
+        }
+        text = text.replace("x", "").replace("-", "");
+        if (text.length() < 2) return NONE;
+        int to = parseSquare(text.charAt(text.length() - 2), text.charAt(text.length() - 1));
+        if (to < 0) return NONE;
+        // Whatever is left disambiguates by file, rank or both
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = 0; i < text.length() - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') fromFile = c - 'a';
+            else if (c >= '1' && c <= '8') fromRank = c - '1';
+            else return NONE;
+        }
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, moves);
+        int found = NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = from(move);
+            if (to(move) != to || promotion(move) != promotion) continue;
+            if (Pieces.type(position.pieceAt(from)) != type) continue;
+            if ((fromFile >= 0 && (from & 7) != fromFile) || (fromRank >= 0 && (from >>> 3) != fromRank)) continue;
+            if (found != NONE) return NONE;
+            found = move;
+        }
+        return found;
+    }
+
+    private static int parseSquare(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') return -1;
+        return (rank - '1') * 8 + (file - 'a');
+    }
+}
@@ -0,0 +1,264 @@
+package chess.engine;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Evaluation by a small quantized neural network, as an alternative to
+ * {@link ClassicEvaluator}.
+ * <p>
+ * The network has 768 inputs, one per piece and square, seen from each
+ * side's point of view, a hidden layer of int16 accumulators for each side
+ * and a single output. The hidden layer is the expensive part, so it is
+ * kept as a stack with one entry per move on the position's undo stack.
+ * When the position is one move on from an entry that is already up to date
+ * only the few weights of the pieces that moved are added and subtracted;
+ * taking a move back costs nothing since the entry below is still valid.
+ * <p>
+ * The evaluator keeps this state, so each search thread needs its own
+ * instance. Networks share their weights and can be used by any number of
+ * evaluators.
+ * <pre>
+ * NnueEvaluator [weights.nnue] [positions N]
+ * </pre>
+ * benchmarks the network against the hand-crafted evaluation.
+ */
+public final class NnueEvaluator implements Evaluator {
+
+    /** Accumulators are clipped to [0, QA] before the output layer. */
+    static final int QA = 255;
+    /** Output weights are stored multiplied by QB. */
+    static final int QB = 64;
+    /** Centipawns per unit of network output. */
+    static final int SCALE = 400;
+
+    private final Network network;
+    private final NnueKernel kernel;
+    private final int hidden;
+    // Both sides' accumulators for each undo stack depth, white's first
+    private short[][] accumulators = new short[0][];
+    private long[] keys = new long[0];
+    private boolean[] valid = new boolean[0];
+
+    public NnueEvaluator(Network network) {
+        this(network, NnueKernel.best());
+    }
+
+    NnueEvaluator(Network network, NnueKernel kernel) {
+        this.network = network;
+        this.kernel = kernel;
+        this.hidden = network.hidden();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Network network = args.length > 0 ? Network.read(Path.of(args[0])) : Network.random(256, 1);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        benchmark("classic", new ClassicEvaluator(), count);
+        benchmark("nnue " + NnueKernel.best().name(), new NnueEvaluator(network), count);
+        benchmark("nnue scalar", new NnueEvaluator(network, new NnueKernel.Scalar()), count);
+    }
+
+    // Random games, evaluating after every move, which is close to what the search does
+    private static void benchmark(String name, Evaluator evaluator, int count) {
+        SplittableRandom random = new SplittableRandom(7);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Position position = Fen.parse(Fen.START);
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int legal = MoveGenerator.generateLegal(position, moves);
+            if (legal == 0 || position.movesMade() >= 200) {
+                position = Fen.parse(Fen.START);
+                continue;
+            }
+            position.makeMove(moves[random.nextInt(legal)]);
+            checksum += evaluator.evaluate(position);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-24s %,12.0f positions/s (checksum %d)%n", name, count / seconds, checksum);
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        int depth = position.movesMade();
+        ensureCapacity(depth);
+        if (!valid[depth] || keys[depth] != position.key()) {
+            if (depth > 0 && valid[depth - 1] && keys[depth - 1] == position.keyBefore(depth - 1)) {
+                update(position, depth);
+            } else {
+                refresh(position, accumulators[depth]);
+            }
+            keys[depth] = position.key();
+            valid[depth] = true;
+        }
+        short[] accumulator = accumulators[depth];
+        int us = position.sideToMove() == Pieces.WHITE ? 0 : hidden;
+        int them = hidden - us;
+        int sum = kernel.clippedDot(accumulator, us, network.outputWeights, 0, hidden, QA)
+                + kernel.clippedDot(accumulator, them, network.outputWeights, hidden, hidden, QA)
+                + network.outputBias;
+        return (int) ((long) sum * SCALE / (QA * QB));
+    }
+
+    // Builds the accumulators from scratch
+    void refresh(Position position, short[] accumulator) {
+        System.arraycopy(network.featureBias, 0, accumulator, 0, hidden);
+        System.arraycopy(network.featureBias, 0, accumulator, hidden, hidden);
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece != Pieces.EMPTY) addPiece(accumulator, piece, square);
+        }
+    }
+
+    // Applies the last move to the accumulators of the position before it
+    private void update(Position position, int depth) {
+        short[] accumulator = accumulators[depth];
+        int move = position.lastMove();
+        if (move == Moves.NONE) {
+            // A null move keeps the pieces; any other empty entry is an earlier game position
+            if (position.keyBefore(depth - 1) != (position.key() ^ Zobrist.SIDE_TO_MOVE)) {
+                refresh(position, accumulator);
+                return;
+            }
+            System.arraycopy(accumulators[depth - 1], 0, accumulator, 0, 2 * hidden);
+            return;
+        }
+        System.arraycopy(accumulators[depth - 1], 0, accumulator, 0, 2 * hidden);
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int placed = position.pieceAt(to);
+        int moved = Moves.promotion(move) == Pieces.EMPTY
+                ? placed : Pieces.make(Pieces.color(placed), Pieces.PAWN);
+        int captured = position.lastCaptured();
+        subtractPiece(accumulator, moved, from);
+        if (captured != Pieces.EMPTY) subtractPiece(accumulator, captured, to);
+        addPiece(accumulator, placed, to);
+    }
+
+    private void addPiece(short[] accumulator, int piece, int square) {
+        kernel.add(accumulator, 0, network.featureWeights, feature(piece, square, Pieces.WHITE) * hidden, hidden);
+        kernel.add(accumulator, hidden, network.featureWeights, feature(piece, square, Pieces.BLACK) * hidden, hidden);
+    }
+
+    private void subtractPiece(short[] accumulator, int piece, int square) {
+        kernel.subtract(accumulator, 0, network.featureWeights, feature(piece, square, Pieces.WHITE) * hidden,
+                hidden);
+        kernel.subtract(accumulator, hidden, network.featureWeights, feature(piece, square, Pieces.BLACK) * hidden,
+                hidden);
+    }
+
+    /**
+     * @return the input for a piece seen from one side, which sees its own pieces as white on flipped ranks
+     */
+    static int feature(int piece, int square, int perspective) {
+        int relativeColor = Pieces.color(piece) ^ perspective;
+        int relativeSquare = perspective == Pieces.WHITE ? square : square ^ 56;
+        return (relativeColor * 6 + Pieces.type(piece) - 1) * 64 + relativeSquare;
+    }
+
+    private void ensureCapacity(int depth) {
+        if (depth < accumulators.length) return;
+        int size = Math.max(depth + 1, accumulators.length * 2);
+        int old = accumulators.length;
+        accumulators = Arrays.copyOf(accumulators, size);
+        for (int i = old; i < size; i++) {
+            accumulators[i] = new short[2 * hidden];
+        }
+        keys = Arrays.copyOf(keys, size);
+        valid = Arrays.copyOf(valid, size);
+    }
+
+    /**
+     * Network weights, quantized to int16.
+     * <p>
+     * The file is little-endian: the magic number, the hidden layer size,
+     * then 768 rows of hidden feature weights, the hidden biases, the output
+     * weights for the side to move and then for the other side, and the
+     * output bias as an int.
+     */
+    public static final class Network {
+
+        static final int MAGIC = 0x4E4E5545;
+        static final int INPUTS = 768;
+
+        final short[] featureWeights;
+        final short[] featureBias;
+        final short[] outputWeights;
+        final int outputBias;
+
+        Network(short[] featureWeights, short[] featureBias, short[] outputWeights, int outputBias) {
+            if (featureWeights.length != INPUTS * featureBias.length
+                    || outputWeights.length != 2 * featureBias.length) {
+                throw new IllegalArgumentException("Layer sizes do not match");
+            }
+            this.featureWeights = featureWeights;
+            this.featureBias = featureBias;
+            this.outputWeights = outputWeights;
+            this.outputBias = outputBias;
+        }
+
+        public int hidden() {
+            return featureBias.length;
+        }
+
+        /**
+         * @throws IOException if the file cannot be read or is not a network
+         */
+        public static Network read(Path file) throws IOException {
+            try (InputStream in = Files.newInputStream(file)) {
+                return read(in);
+            }
+        }
+
+        static Network read(InputStream stream) throws IOException {
+            DataInputStream in = new DataInputStream(stream);
+            ByteBuffer header = ByteBuffer.wrap(in.readNBytes(8)).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.remaining() < 8 || header.getInt() != MAGIC) throw new IOException("Not a network file");
+            int hidden = header.getInt();
+            if (hidden <= 0 || hidden > 1 << 14) throw new IOException("Bad hidden layer size " + hidden);
+            int shorts = INPUTS * hidden + hidden + 2 * hidden;
+            byte[] bytes = new byte[shorts * 2 + 4];
+            in.readFully(bytes);
+            ByteBuffer body = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            short[] featureWeights = new short[INPUTS * hidden];
+            short[] featureBias = new short[hidden];
+            short[] outputWeights = new short[2 * hidden];
+            body.asShortBuffer().get(featureWeights).get(featureBias).get(outputWeights);
+            body.position(shorts * 2);
+            return new Network(featureWeights, featureBias, outputWeights, body.getInt());
+        }
+
+        public void write(Path file) throws IOException {
+            int hidden = hidden();
+            ByteBuffer out = ByteBuffer.allocate(8 + (featureWeights.length + 3 * hidden) * 2 + 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(hidden);
+            for (short weight : featureWeights) out.putShort(weight);
+            for (short bias : featureBias) out.putShort(bias);
+            for (short weight : outputWeights) out.putShort(weight);
+            out.putInt(outputBias);
+            Files.write(file, out.array());
+        }
+
+        /**
+         * @return an untrained network with small random weights, for tests and benchmarks
+         */
+        static Network random(int hidden, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            short[] featureWeights = new short[INPUTS * hidden];
+            short[] featureBias = new short[hidden];
+            short[] outputWeights = new short[2 * hidden];
+            for (int i = 0; i < featureWeights.length; i++) featureWeights[i] = (short) random.nextInt(-16, 17);
+            for (int i = 0; i < hidden; i++) featureBias[i] = (short) random.nextInt(0, 64);
+            for (int i = 0; i < outputWeights.length; i++) outputWeights[i] = (short) random.nextInt(-QB, QB + 1);
+            return new Network(featureWeights, featureBias, outputWeights, 0);
+        }
+    }
+}
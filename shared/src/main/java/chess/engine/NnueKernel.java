@@ -0,0 +1,72 @@
+package chess.engine;
+
+/**
+ * The inner loops of the network, over int16 arrays.
+ * <p>
+ * {@link #best()} uses the Vector API when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} and falls back to plain loops
+ * otherwise. Setting the system property {@code chess.simd} to false forces
+ * the fallback, for comparing the two.
+ */
+interface NnueKernel {
+
+    /** Adds length weights into the accumulator. */
+    void add(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset, int length);
+
+    /** Subtracts length weights from the accumulator. */
+    void subtract(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset, int length);
+
+    /**
+     * @return the dot product of the accumulator, clamped to [0, clip], with the weights
+     */
+    int clippedDot(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset, int length,
+                   int clip);
+
+    String name();
+
+    static NnueKernel best() {
+        if (Boolean.parseBoolean(System.getProperty("chess.simd", "true"))) {
+            try {
+                // Loaded by name so this class does not need the incubator module
+                return (NnueKernel) Class.forName("chess.engine.VectorKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // The module is missing, use the plain loops
+            }
+        }
+        return new Scalar();
+    }
+
+    final class Scalar implements NnueKernel {
+
+        @Override
+        public void add(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset, int length) {
+            for (int i = 0; i < length; i++) {
+                accumulator[accumulatorOffset + i] += weights[weightOffset + i];
+            }
+        }
+
+        @Override
+        public void subtract(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset,
+                             int length) {
+            for (int i = 0; i < length; i++) {
+                accumulator[accumulatorOffset + i] -= weights[weightOffset + i];
+            }
+        }
+
+        @Override
+        public int clippedDot(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset,
+                              int length, int clip) {
+            int sum = 0;
+            for (int i = 0; i < length; i++) {
+                int value = Math.min(Math.max(accumulator[accumulatorOffset + i], 0), clip);
+                sum += value * weights[weightOffset + i];
+            }
+            return sum;
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.random.RandomGenerator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Read-only opening book in the Polyglot .bin format.
+ * <p>
+ * A book file is a sequence of 16 byte big-endian entries (key, move, weight,
+ * learn) sorted by key. The file is memory-mapped rather than read, so a
+ * lookup is a binary search straight over the mapped pages and a large book
+ * costs no heap. Files over 1 GB are mapped in several segments.
+ * <p>
+ * Entries are keyed by a position hash supplied when the book is opened; by
+ * default this is the standard Polyglot key from {@link PolyglotKey}, so books
+ * made by other programs can be read. Book moves that are not legal under
+ * this game's rules, such as castling, are skipped.
+ */
+public final class OpeningBook {
+
+    static final int ENTRY_BYTES = 16;
+    static final long DEFAULT_SEGMENT_BYTES = 1L << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final long segmentEntries;
+    private final long entryCount;
+    private final ToLongFunction<Position> hasher;
+
+    private OpeningBook(MappedByteBuffer[] segments, long segmentEntries, long entryCount,
+                        ToLongFunction<Position> hasher) {
+        this.segments = segments;
+        this.segmentEntries = segmentEntries;
+        this.entryCount = entryCount;
+        this.hasher = hasher;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        return open(path, PolyglotKey::key);
+    }
+
+    /**
+     * @param hasher the position hash the book's keys were built with
+     */
+    public static OpeningBook open(Path path, ToLongFunction<Position> hasher) throws IOException {
+        return open(path, hasher, DEFAULT_SEGMENT_BYTES);
+    }
+
+    static OpeningBook open(Path path, ToLongFunction<Position> hasher, long segmentBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long entryCount = channel.size() / ENTRY_BYTES;
+            long segmentEntries = segmentBytes / ENTRY_BYTES;
+            int segmentCount = (int) ((entryCount + segmentEntries - 1) / segmentEntries);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long offset = i * segmentEntries * ENTRY_BYTES;
+                long length = Math.min(segmentEntries, entryCount - i * segmentEntries) * ENTRY_BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                segments[i].order(ByteOrder.BIG_ENDIAN);
+            }
+            // The mappings stay valid after the channel is closed
+            return new OpeningBook(segments, segmentEntries, entryCount, hasher);
+        }
+    }
+
+    /**
+     * @return number of entries in the book
+     */
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * @return the legal book moves for the position, highest weight first
+     */
+    public List<Entry> lookup(Position position) {
+        long key = hasher.applyAsLong(position);
+        List<Entry> found = new ArrayList<>();
+        int[] legal = null;
+        int legalCount = 0;
+        for (long index = lowerBound(key); index < entryCount && keyAt(index) == key; index++) {
+            if (legal == null) {
+                legal = new int[MoveGenerator.MAX_MOVES];
+                legalCount = MoveGenerator.generateLegal(position, legal);
+            }
+            int move = fromPolyglotMove(shortAt(index, 8));
+            for (int i = 0; i < legalCount; i++) {
+                if (legal[i] == move) {
+                    found.add(new Entry(move, shortAt(index, 10), intAt(index, 12)));
+                    break;
+                }
+            }
+        }
+        found.sort(Comparator.comparingInt(Entry::weight).reversed());
+        return found;
+    }
+
+    /**
+     * @return the highest weighted book move, or {@link Moves#NONE} if the position is not in the book
+     */
+    public int bestMove(Position position) {
+        List<Entry> entries = lookup(position);
+        return entries.isEmpty() ? Moves.NONE : entries.get(0).move();
+    }
+
+    /**
+     * @return the best book move for the game's position, or null if it is not in the book
+     */
+    public ChessMove bestMove(ChessGame game) {
+        int move = bestMove(Position.fromGame(game));
+        return move == Moves.NONE ? null : Moves.toChessMove(move);
+    }
+
+    /**
+     * Picks a book move at random in proportion to the entry weights, so bots
+     * do not always play the same opening.
+     *
+     * @return the chosen move, or {@link Moves#NONE} if the position is not in the book
+     */
+    public int pickMove(Position position, RandomGenerator random) {
+        List<Entry> entries = lookup(position);
+        int total = 0;
+        for (Entry entry : entries) total += entry.weight();
+        if (total == 0) return entries.isEmpty() ? Moves.NONE : entries.get(0).move();
+        int roll = random.nextInt(total);
+        for (Entry entry : entries) {
+            roll -= entry.weight();
+            if (roll < 0) return entry.move();
+        }
+        return entries.get(0).move();
+    }
+
+    // First entry whose key is not below the given key, comparing keys as unsigned
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(long index) {
+        return segments[(int) (index / segmentEntries)].getLong(offsetOf(index));
+    }
+
+    private int shortAt(long index, int field) {
+        return segments[(int) (index / segmentEntries)].getShort(offsetOf(index) + field) & 0xFFFF;
+    }
+
+    private int intAt(long index, int field) {
+        return segments[(int) (index / segmentEntries)].getInt(offsetOf(index) + field);
+    }
+
+    private int offsetOf(long index) {
+        return (int) (index % segmentEntries) * ENTRY_BYTES;
+    }
+
+    /**
+     * Converts a Polyglot move (to file, to row, from file, from row and
+     * promotion in 3 bit fields) to an engine move.
+     */
+    public static int fromPolyglotMove(int move) {
+        int to = ((move >>> 3) & 7) * 8 + (move & 7);
+        int from = ((move >>> 9) & 7) * 8 + ((move >>> 6) & 7);
+        int promotion = (move >>> 12) & 7;
+        int type = switch (promotion) {
+            case 1 -> Pieces.KNIGHT;
+            case 2 -> Pieces.BISHOP;
+            case 3 -> Pieces.ROOK;
+            case 4 -> Pieces.QUEEN;
+            default -> Pieces.EMPTY;
+        };
+        return Moves.make(from, to, type);
+    }
+
+    public static int toPolyglotMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int promotion = switch (Moves.promotion(move)) {
+            case Pieces.KNIGHT -> 1;
+            case Pieces.BISHOP -> 2;
+            case Pieces.ROOK -> 3;
+            case Pieces.QUEEN -> 4;
+            default -> 0;
+        };
+        return (to & 7) | ((to >>> 3) << 3) | ((from & 7) << 6) | ((from >>> 3) << 9) | (promotion << 12);
+    }
+
+    /**
+     * Writes a book file, sorting the entries by key. Used to build books from
+     * game collections and in tests.
+     */
+    public static void write(Path path, List<BookEntry> entries) throws IOException {
+        List<BookEntry> sorted = new ArrayList<>(entries);
+        sorted.sort((a, b) -> Long.compareUnsigned(a.key(), b.key()));
+        ByteBuffer buffer = ByteBuffer.allocate(sorted.size() * ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+        for (BookEntry entry : sorted) {
+            buffer.putLong(entry.key());
+            buffer.putShort((short) toPolyglotMove(entry.move()));
+            buffer.putShort((short) entry.weight());
+            buffer.putInt(0);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * A move found in the book for a position.
+     */
+    public record Entry(int move, int weight, int learn) {}
+
+    /**
+     * A book line to be written by {@link #write}.
+     */
+    public record BookEntry(long key, int move, int weight) {}
+}
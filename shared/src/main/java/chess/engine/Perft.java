@@ -0,0 +1,29 @@
+package chess.engine;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The counts are
+ * compared against known values to check the move generator.
+ */
+public final class Perft {
+
+    private Perft() {}
+
+    public static long perft(Position position, int depth) {
+        return count(new Position(position), depth, new int[depth + 1][MoveGenerator.MAX_MOVES]);
+    }
+
+    private static long count(Position position, int depth, int[][] buffers) {
+        if (depth == 0) return 1;
+        int[] moves = buffers[depth];
+        int count = MoveGenerator.generate(position, moves);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            if (!position.leftKingInCheck()) {
+                nodes += count(position, depth - 1, buffers);
+            }
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,107 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Integer piece codes used by the engine's board representation.
+ * <p>
+ * A piece code is its type in the low three bits and its color in bit 3,
+ * so white pieces are 1-6, black pieces are 9-14 and 0 is an empty square.
+ */
+public final class Pieces {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    /** Values used for move ordering and exchange evaluation, indexed by type. */
+    public static final int[] VALUE = {0, 100, 320, 330, 500, 900, 20000};
+
+    private Pieces() {}
+
+    public static int make(int color, int type) {
+        return type | (color << 3);
+    }
+
+    public static int type(int piece) {
+        return piece & 7;
+    }
+
+    public static int color(int piece) {
+        return piece >>> 3;
+    }
+
+    public static int value(int piece) {
+        return VALUE[piece & 7];
+    }
+
+    public static int toColor(ChessGame.TeamColor teamColor) {
+        return teamColor == ChessGame.TeamColor.WHITE ? WHITE : BLACK;
+    }
+
+    public static ChessGame.TeamColor toTeamColor(int color) {
+        return color == WHITE ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    public static int toType(ChessPiece.PieceType pieceType) {
+        if (pieceType == null) return EMPTY;
+        return switch (pieceType) {
+            case PAWN -> PAWN;
+            case KNIGHT -> KNIGHT;
+            case BISHOP -> BISHOP;
+            case ROOK -> ROOK;
+            case QUEEN -> QUEEN;
+            case KING -> KING;
+            default -> EMPTY;
+        };
+    }
+
+    public static ChessPiece.PieceType toPieceType(int type) {
+        return switch (type) {
+            case PAWN -> ChessPiece.PieceType.PAWN;
+            case KNIGHT -> ChessPiece.PieceType.KNIGHT;
+            case BISHOP -> ChessPiece.PieceType.BISHOP;
+            case ROOK -> ChessPiece.PieceType.ROOK;
+            case QUEEN -> ChessPiece.PieceType.QUEEN;
+            case KING -> ChessPiece.PieceType.KING;
+            default -> null;
+        };
+    }
+
+    public static int fromChessPiece(ChessPiece piece) {
+        if (piece == null) return EMPTY;
+        int type = toType(piece.getPieceType());
+        if (type == EMPTY) return EMPTY;
+        return make(toColor(piece.getTeamColor()), type);
+    }
+
+    public static ChessPiece toChessPiece(int piece) {
+        if (piece == EMPTY) return null;
+        return new ChessPiece(toTeamColor(color(piece)), toPieceType(type(piece)));
+    }
+
+    /**
+     * @return the FEN letter for a piece, upper case for white
+     */
+    public static char toChar(int piece) {
+        char c = " pnbrqk".charAt(type(piece));
+        return color(piece) == WHITE ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * @return the piece code for a FEN letter, or EMPTY if it is not a piece letter
+     */
+    public static int fromChar(char c) {
+        int type = " pnbrqk".indexOf(Character.toLowerCase(c));
+        if (type <= 0) return EMPTY;
+        return make(Character.isUpperCase(c) ? WHITE : BLACK, type);
+    }
+}
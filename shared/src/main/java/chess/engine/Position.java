@@ -0,0 +1,346 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.util.Arrays;
+
+/**
+ * A mutable, allocation free board used by the engine for searching.
+ * <p>
+ * Moves are applied with {@link #makeMove(int)} and taken back with
+ * {@link #unmakeMove()}, and the Zobrist key is kept up to date on both.
+ * The rules match {@link ChessGame}: there is no castling or en passant,
+ * and pawns may promote to a queen, rook, bishop or knight.
+ */
+public final class Position {
+
+    final int[] squares = new int[64];
+    final int[] pieceCounts = new int[16];
+    final int[] kingSquare = {-1, -1};
+    int sideToMove;
+    int halfmoveClock;
+    long key;
+
+    // Undo stack, one entry per made move
+    private int[] undoMoves = new int[256];
+    private int[] undoCaptured = new int[256];
+    private int[] undoHalfmoveClock = new int[256];
+    private long[] undoKeys = new long[256];
+    private int undoCount;
+    // Entries at the bottom of the undo stack for a game's earlier positions, and the move that left them
+    private int priorPositions;
+    private int gameMove = Moves.NONE;
+
+    public Position() {}
+
+    public Position(Position other) {
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        System.arraycopy(other.pieceCounts, 0, pieceCounts, 0, 16);
+        kingSquare[0] = other.kingSquare[0];
+        kingSquare[1] = other.kingSquare[1];
+        sideToMove = other.sideToMove;
+        halfmoveClock = other.halfmoveClock;
+        key = other.key;
+        // The undo stack comes along so repetitions of earlier positions are still seen
+        undoCount = other.undoCount;
+        undoMoves = Arrays.copyOf(other.undoMoves, other.undoMoves.length);
+        undoCaptured = Arrays.copyOf(other.undoCaptured, other.undoCaptured.length);
+        undoHalfmoveClock = Arrays.copyOf(other.undoHalfmoveClock, other.undoHalfmoveClock.length);
+        undoKeys = Arrays.copyOf(other.undoKeys, other.undoKeys.length);
+        priorPositions = other.priorPositions;
+        gameMove = other.gameMove;
+    }
+
+    /**
+     * Builds a position from a game, including the positions since its last
+     * capture or pawn move so repetitions can be found, and the game's last
+     * move for {@link PolyglotKey}.
+     */
+    public static Position fromGame(ChessGame game) {
+        Position position = fromBoard(game.getBoard(), game.getTeamTurn());
+        RepetitionHistory history = game.getHistory();
+        int size = history.size();
+        // Skip the history if the board was changed behind the game's back
+        if (size == 0 || history.key(size - 1) != position.key) return position;
+        for (int i = 0; i < size - 1; i++) {
+            position.addPriorPosition(history.key(i));
+        }
+        position.priorPositions = size - 1;
+        if (game.getLastMove() != null) position.gameMove = Moves.fromChessMove(game.getLastMove());
+        return position;
+    }
+
+    public static Position fromBoard(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        Position position = new Position();
+        for (int square = 0; square < 64; square++) {
+            int piece = Pieces.fromChessPiece(board.getPiece(Moves.toPosition(square)));
+            if (piece != Pieces.EMPTY) {
+                position.put(square, piece);
+            }
+        }
+        position.setSideToMove(Pieces.toColor(sideToMove));
+        return position;
+    }
+
+    public ChessBoard toBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = Pieces.toChessPiece(squares[square]);
+            if (piece != null) {
+                board.addPiece(new ChessPosition(Moves.row(square), Moves.col(square)), piece);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Places a piece on an empty square. Used while setting up a position.
+     */
+    public void put(int square, int piece) {
+        squares[square] = piece;
+        pieceCounts[piece]++;
+        key ^= Zobrist.PIECE_SQUARE[piece][square];
+        if (Pieces.type(piece) == Pieces.KING) {
+            kingSquare[Pieces.color(piece)] = square;
+        }
+    }
+
+    public void setSideToMove(int color) {
+        if (color != sideToMove) {
+            key ^= Zobrist.SIDE_TO_MOVE;
+            sideToMove = color;
+        }
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    public int pieceCount(int piece) {
+        return pieceCounts[piece];
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    public int kingSquare(int color) {
+        return kingSquare[color];
+    }
+
+    /**
+     * @return number of moves currently on the undo stack
+     */
+    public int movesMade() {
+        return undoCount;
+    }
+
+    // The undo stack as seen by evaluators that update state incrementally
+    int lastMove() {
+        return undoMoves[undoCount - 1];
+    }
+
+    /**
+     * @return the move that led here, including the game's last move for a
+     * position built from a game, or {@link Moves#NONE} if it is not known
+     */
+    int previousMove() {
+        if (undoCount > priorPositions) return undoMoves[undoCount - 1];
+        return undoCount == priorPositions ? gameMove : Moves.NONE;
+    }
+
+    int lastCaptured() {
+        return undoCaptured[undoCount - 1];
+    }
+
+    long keyBefore(int moveIndex) {
+        return undoKeys[moveIndex];
+    }
+
+    /**
+     * @return true if the current position occurred before with the same side to move
+     * since the last capture or pawn move
+     */
+    public boolean isRepetition() {
+        int stop = Math.max(0, undoCount - halfmoveClock);
+        for (int i = undoCount - 2; i >= stop; i -= 2) {
+            if (undoKeys[i] == key) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return how many times the current position occurred before, so 2 means a threefold repetition
+     */
+    public int repetitions() {
+        int count = 0;
+        int stop = Math.max(0, undoCount - halfmoveClock);
+        for (int i = undoCount - 2; i >= stop; i -= 2) {
+            if (undoKeys[i] == key) count++;
+        }
+        return count;
+    }
+
+    public boolean isAttacked(int square, int byColor) {
+        return Attacks.isAttacked(squares, square, byColor);
+    }
+
+    public boolean inCheck() {
+        return isInCheck(sideToMove);
+    }
+
+    public boolean isInCheck(int color) {
+        int king = kingSquare[color];
+        return king >= 0 && Attacks.isAttacked(squares, king, color ^ 1);
+    }
+
+    /**
+     * @return true if the side that just moved left its own king attacked
+     */
+    public boolean leftKingInCheck() {
+        return isInCheck(sideToMove ^ 1);
+    }
+
+    /**
+     * @return true if the side to move has a piece other than pawns and king,
+     * which makes null move pruning safe from most zugzwang positions
+     */
+    public boolean hasNonPawnMaterial() {
+        int base = sideToMove << 3;
+        return pieceCounts[base | Pieces.KNIGHT] + pieceCounts[base | Pieces.BISHOP]
+                + pieceCounts[base | Pieces.ROOK] + pieceCounts[base | Pieces.QUEEN] > 0;
+    }
+
+    public boolean isCapture(int move) {
+        return squares[Moves.to(move)] != Pieces.EMPTY;
+    }
+
+    /**
+     * Applies a pseudo-legal move. The caller must check {@link #leftKingInCheck()}
+     * afterwards if the move was not already known to be legal.
+     */
+    public void makeMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int promotion = Moves.promotion(move);
+        int piece = squares[from];
+        int captured = squares[to];
+        push(move, captured);
+
+        key ^= Zobrist.PIECE_SQUARE[piece][from];
+        squares[from] = Pieces.EMPTY;
+        if (captured != Pieces.EMPTY) {
+            key ^= Zobrist.PIECE_SQUARE[captured][to];
+            pieceCounts[captured]--;
+        }
+        int placed = piece;
+        if (promotion != Pieces.EMPTY) {
+            placed = Pieces.make(sideToMove, promotion);
+            pieceCounts[piece]--;
+            pieceCounts[placed]++;
+        }
+        squares[to] = placed;
+        key ^= Zobrist.PIECE_SQUARE[placed][to];
+        if (Pieces.type(piece) == Pieces.KING) {
+            kingSquare[sideToMove] = to;
+        }
+
+        halfmoveClock = (captured != Pieces.EMPTY || Pieces.type(piece) == Pieces.PAWN) ? 0 : halfmoveClock + 1;
+        sideToMove ^= 1;
+        key ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    public void unmakeMove() {
+        undoCount--;
+        int move = undoMoves[undoCount];
+        int captured = undoCaptured[undoCount];
+        halfmoveClock = undoHalfmoveClock[undoCount];
+        key = undoKeys[undoCount];
+        sideToMove ^= 1;
+
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int placed = squares[to];
+        int piece = placed;
+        if (Moves.promotion(move) != Pieces.EMPTY) {
+            piece = Pieces.make(sideToMove, Pieces.PAWN);
+            pieceCounts[placed]--;
+            pieceCounts[piece]++;
+        }
+        squares[from] = piece;
+        squares[to] = captured;
+        if (captured != Pieces.EMPTY) {
+            pieceCounts[captured]++;
+        }
+        if (Pieces.type(piece) == Pieces.KING) {
+            kingSquare[sideToMove] = from;
+        }
+    }
+
+    /**
+     * Passes the turn without moving, for null move pruning.
+     */
+    public void makeNullMove() {
+        push(Moves.NONE, Pieces.EMPTY);
+        halfmoveClock++;
+        sideToMove ^= 1;
+        key ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    public void unmakeNullMove() {
+        undoCount--;
+        halfmoveClock = undoHalfmoveClock[undoCount];
+        key = undoKeys[undoCount];
+        sideToMove ^= 1;
+    }
+
+    // Records an earlier position of the game that has no move to take back
+    private void addPriorPosition(long priorKey) {
+        push(Moves.NONE, Pieces.EMPTY);
+        undoKeys[undoCount - 1] = priorKey;
+        halfmoveClock++;
+    }
+
+    private void push(int move, int captured) {
+        if (undoCount == undoMoves.length) {
+            int size = undoCount * 2;
+            undoMoves = Arrays.copyOf(undoMoves, size);
+            undoCaptured = Arrays.copyOf(undoCaptured, size);
+            undoHalfmoveClock = Arrays.copyOf(undoHalfmoveClock, size);
+            undoKeys = Arrays.copyOf(undoKeys, size);
+        }
+        undoMoves[undoCount] = move;
+        undoCaptured[undoCount] = captured;
+        undoHalfmoveClock[undoCount] = halfmoveClock;
+        undoKeys[undoCount] = key;
+        undoCount++;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 8; row >= 1; row--) {
+            for (int col = 1; col <= 8; col++) {
+                int piece = squares[Moves.square(row, col)];
+                sb.append('|').append(piece == Pieces.EMPTY ? ' ' : Pieces.toChar(piece));
+            }
+            sb.append("|\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Zobrist keys of the positions in a game since the last capture or pawn move.
+ * <p>
+ * Those moves can never be undone, so no earlier position can repeat and the
+ * window is emptied whenever one is played. A repetition check then only has
+ * to compare keys of positions with the same side to move inside the window.
+ */
+public final class RepetitionHistory {
+
+    private long[] keys = new long[16];
+    private int count;
+
+    /**
+     * Adds the position reached by a move.
+     *
+     * @param irreversible true for captures and pawn moves, which start a new window
+     */
+    public void push(long key, boolean irreversible) {
+        if (irreversible) count = 0;
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+        }
+        keys[count++] = key;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return number of positions in the window, the latest included
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the key of a position in the window, oldest first
+     */
+    public long key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @return moves played since the last capture or pawn move
+     */
+    public int halfmoveClock() {
+        return Math.max(0, count - 1);
+    }
+
+    /**
+     * @return how many times the latest position occurred before it
+     */
+    public int repetitions() {
+        if (count == 0) return 0;
+        long current = keys[count - 1];
+        int repeats = 0;
+        for (int i = count - 3; i >= 0; i -= 2) {
+            if (keys[i] == current) repeats++;
+        }
+        return repeats;
+    }
+
+    /**
+     * @return true if the latest position has now occurred three times
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions() >= 2;
+    }
+}
@@ -0,0 +1,527 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Iterative deepening alpha-beta search with a quiescence search at the leaves.
+ * <p>
+ * A Search object owns its scratch buffers and is not thread safe; use one per
+ * thread. Several searches may share one {@link TranspositionTable}.
+ */
+public class Search {
+
+    public static final int MAX_PLY = 64;
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int TT_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 20;
+    private static final int KILLER_SCORE = 1 << 19;
+    private static final int HISTORY_LIMIT = 1 << 18;
+    private static final int FUTILITY_MARGIN = 150;
+    // A repeated slice gets at most 2^this times the nodes asked for
+    static final int MAX_SLICE_GROWTH = 3;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final SearchOptions options;
+
+    private final int[][] moveLists = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[16][64];
+    private final int[] exchangeGains = new int[StaticExchange.MAX_EXCHANGE];
+
+    private Position position;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private long sliceEnd;
+    private long startTime;
+    private boolean aborted;
+    private boolean preempted;
+    private volatile boolean stopRequested;
+    private SearchListener listener;
+
+    // Iterative deepening state kept between slices
+    private SearchLimits limits;
+    private boolean finished;
+    private int nextDepth;
+    private int retries;
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+    private int[] bestLine;
+
+    // Multi-PV: root moves already used by earlier lines of this iteration
+    private int lineCount = 1;
+    private final int[] excludedRootMoves = new int[MoveGenerator.MAX_MOVES];
+    private int excludedCount;
+    private List<SearchResult> lines = List.of();
+    private final List<SearchResult> pendingLines = new ArrayList<>();
+
+    public Search() {
+        this(new ClassicEvaluator(), new TranspositionTable(16));
+    }
+
+    public Search(Evaluator evaluator, TranspositionTable table) {
+        this(evaluator, table, SearchOptions.DEFAULT);
+    }
+
+    public Search(Evaluator evaluator, TranspositionTable table, SearchOptions options) {
+        this.evaluator = evaluator;
+        this.table = table;
+        this.options = options;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    /**
+     * @param listener told about each completed iteration, or null for none
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Searches the current position of a game and returns the move to play.
+     *
+     * @return the best move found, or null if the side to move has no legal moves
+     */
+    public ChessMove findBestMove(ChessGame game, SearchLimits limits) {
+        return search(Position.fromGame(game), limits).bestChessMove();
+    }
+
+    /**
+     * Runs an iterative deepening search. The given position is not modified.
+     */
+    public SearchResult search(Position root, SearchLimits limits) {
+        begin(root, limits);
+        resume(Long.MAX_VALUE);
+        return result();
+    }
+
+    /**
+     * Finds the best few lines of play in one search.
+     * <p>
+     * Each iteration searches the root once per line, leaving out the first
+     * moves of the lines already found. All lines share the transposition
+     * table, so later lines reuse most of the work of earlier ones.
+     *
+     * @param lines the number of lines wanted
+     * @return up to that many lines, best first, one per distinct first move
+     */
+    public List<SearchResult> analyze(ChessGame game, SearchLimits limits, int lines) {
+        return analyze(Position.fromGame(game), limits, lines);
+    }
+
+    public List<SearchResult> analyze(Position root, SearchLimits limits, int lines) {
+        begin(root, limits, lines);
+        resume(Long.MAX_VALUE);
+        return lines();
+    }
+
+    public void begin(Position root, SearchLimits limits) {
+        begin(root, limits, 1);
+    }
+
+    /**
+     * Prepares a search that will be run in slices by {@link #resume(long)}.
+     * The given position is not modified. Time limits are measured in wall
+     * clock time from this call, so time spent waiting between slices counts.
+     *
+     * @param lines number of principal variations to find, see {@link #analyze}
+     */
+    public void begin(Position root, SearchLimits limits, int lines) {
+        startTime = System.nanoTime();
+        position = new Position(root);
+        this.limits = limits;
+        nodes = 0;
+        nodeLimit = limits.nodes();
+        deadline = limits.movetimeMillis() == Long.MAX_VALUE ? Long.MAX_VALUE
+                : startTime + limits.movetimeMillis() * 1_000_000L;
+        aborted = false;
+        preempted = false;
+        stopRequested = false;
+        finished = false;
+        nextDepth = 1;
+        retries = 0;
+        bestMove = Moves.NONE;
+        bestScore = 0;
+        completedDepth = 0;
+        bestLine = new int[0];
+        lineCount = Math.max(1, lines);
+        excludedCount = 0;
+        this.lines = List.of();
+        pendingLines.clear();
+        for (int[] killer : killers) {
+            killer[0] = Moves.NONE;
+            killer[1] = Moves.NONE;
+        }
+    }
+
+    /**
+     * Continues the search started by {@link #begin} for about sliceNodes nodes.
+     * <p>
+     * If the slice runs out in the middle of an iteration, the unfinished part
+     * is thrown away and repeated by the next call; the transposition table
+     * keeps most of its work, so each repeat gets further. Repeats of the same
+     * depth get twice the nodes of the one before, up to eight times
+     * sliceNodes, so a deep search still yields its worker regularly.
+     *
+     * @return True once the search has finished and {@link #result()} is final
+     */
+    public boolean resume(long sliceNodes) {
+        if (finished) return true;
+        long budget = sliceNodes >= Long.MAX_VALUE >> retries ? Long.MAX_VALUE : sliceNodes << retries;
+        sliceEnd = budget >= Long.MAX_VALUE - nodes ? Long.MAX_VALUE : nodes + budget;
+        while (nextDepth <= limits.depth()) {
+            while (pendingLines.size() < lineCount) {
+                excludedCount = pendingLines.size();
+                for (int i = 0; i < excludedCount; i++) {
+                    excludedRootMoves[i] = pendingLines.get(i).bestMove();
+                }
+                int score = alphaBeta(nextDepth, -INFINITY, INFINITY, 0, false);
+                excludedCount = 0;
+                if (preempted) {
+                    preempted = false;
+                    aborted = false;
+                    retries = Math.min(retries + 1, MAX_SLICE_GROWTH);
+                    return false;
+                }
+                if (aborted || pvLength[0] == 0) break;
+                long elapsed = (System.nanoTime() - startTime) / 1_000_000L;
+                pendingLines.add(new SearchResult(pv[0][0], score, nextDepth, nodes, elapsed,
+                        Arrays.copyOf(pv[0], pvLength[0])));
+            }
+            if (aborted && completedDepth > 0) break;
+            if (!pendingLines.isEmpty()) {
+                List<SearchResult> found = new ArrayList<>(pendingLines);
+                found.sort((a, b) -> Integer.compare(b.score(), a.score()));
+                lines = List.copyOf(found);
+                bestMove = lines.get(0).bestMove();
+                bestScore = lines.get(0).score();
+                bestLine = lines.get(0).principalVariation();
+                completedDepth = nextDepth;
+            }
+            pendingLines.clear();
+            retries = 0;
+            if (aborted) break;
+            if (listener != null) listener.linesComplete(lines);
+            if (lineCount == 1 && Math.abs(bestScore) >= MATE - nextDepth) break;
+            nextDepth++;
+        }
+        if (bestMove == Moves.NONE) {
+            bestMove = firstLegalMove(position);
+        }
+        finished = true;
+        return true;
+    }
+
+    /**
+     * @return the best result so far, which is final once {@link #resume} returns true
+     */
+    public SearchResult result() {
+        long elapsed = (System.nanoTime() - startTime) / 1_000_000L;
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, elapsed, bestLine);
+    }
+
+    /**
+     * @return the lines from the last completed iteration, best first
+     */
+    public List<SearchResult> lines() {
+        return lines;
+    }
+
+    /**
+     * Asks a running search to return as soon as possible. Safe to call from
+     * another thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    private int alphaBeta(int depth, int alpha, int beta, int ply, boolean allowNullMove) {
+        pvLength[ply] = 0;
+        if (depth <= 0) return quiescence(alpha, beta, ply);
+        if (shouldStop()) return 0;
+        nodes++;
+        if (ply >= MAX_PLY) return evaluator.evaluate(position);
+        // Fifty quiet moves end the game, and either side can steer back into a repetition
+        if (ply > 0 && (position.halfmoveClock() >= 100 || position.isRepetition())) return 0;
+
+        boolean pvNode = beta - alpha > 1;
+        long entry = table.probe(position.key);
+        int ttMove = TranspositionTable.move(entry);
+        if (entry != 0 && ply > 0 && !pvNode && TranspositionTable.depth(entry) >= depth) {
+            int ttScore = fromTableScore(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && ttScore >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && ttScore <= alpha)) {
+                return ttScore;
+            }
+        }
+
+        boolean inCheck = position.inCheck();
+        if (inCheck) depth++;
+        int staticEval = inCheck ? -INFINITY : evaluator.evaluate(position);
+
+        // Null move: if passing the turn still fails high at reduced depth, a real move will too
+        if (options.nullMovePruning() && allowNullMove && !pvNode && !inCheck && depth >= 3
+                && staticEval >= beta && position.hasNonPawnMaterial()) {
+            int reduction = 2 + depth / 4;
+            position.makeNullMove();
+            int score = -alphaBeta(depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+            position.unmakeNullMove();
+            if (aborted) return 0;
+            if (score >= beta) {
+                return score >= MATE - MAX_PLY ? beta : score;
+            }
+        }
+
+        // Futility: near the leaves, quiet moves cannot lift a hopeless static score above alpha
+        boolean futile = options.futilityPruning() && !pvNode && !inCheck && depth <= 2
+                && Math.abs(alpha) < MATE - MAX_PLY && staticEval + FUTILITY_MARGIN * depth <= alpha;
+
+        int[] moves = moveLists[ply];
+        int[] scores = moveScores[ply];
+        int count = MoveGenerator.generate(position, moves);
+        scoreMoves(moves, scores, count, ttMove, ply);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Moves.NONE;
+        int legalMoves = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, scores, i, count);
+            if (ply == 0 && isExcludedRootMove(move)) continue;
+            boolean quiet = !position.isCapture(move) && Moves.promotion(move) == Pieces.EMPTY;
+            boolean ordinary = quiet && scores[i] < KILLER_SCORE - 1;
+            position.makeMove(move);
+            if (position.leftKingInCheck()) {
+                position.unmakeMove();
+                continue;
+            }
+            legalMoves++;
+            boolean givesCheck = position.inCheck();
+            if (futile && quiet && legalMoves > 1 && !givesCheck) {
+                position.unmakeMove();
+                if (staticEval > bestScore) bestScore = staticEval;
+                continue;
+            }
+            int score;
+            if (legalMoves == 1) {
+                score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                // Late move reductions: well ordered moves rarely beat the earlier ones
+                int reduction = 0;
+                if (options.lateMoveReductions() && depth >= 3 && ordinary && legalMoves > 3
+                        && !inCheck && !givesCheck) {
+                    reduction = Math.min(legalMoves > 8 && depth >= 6 ? 2 : 1, depth - 2);
+                }
+                score = -alphaBeta(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (reduction > 0 && score > alpha) {
+                    score = -alphaBeta(depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            position.unmakeMove();
+            if (aborted) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        if (quiet) rememberQuietCutoff(move, depth, ply);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legalMoves == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        // A root searched without some of its moves is not a true result for the position
+        if (ply > 0 || excludedCount == 0) {
+            int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                    : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+            table.store(position.key, bestMove, toTableScore(bestScore, ply), depth, bound);
+        }
+        return bestScore;
+    }
+
+    private boolean isExcludedRootMove(int move) {
+        for (int i = 0; i < excludedCount; i++) {
+            if (excludedRootMoves[i] == move) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Searches captures and promotions until the position is quiet, so that the
+     * static evaluation is never taken in the middle of an exchange. Captures
+     * that lose material by static exchange evaluation are skipped. When in
+     * check every evasion is searched instead, since standing pat is not an option.
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (shouldStop()) return 0;
+        nodes++;
+        if (ply >= MAX_PLY) return evaluator.evaluate(position);
+
+        boolean inCheck = position.inCheck();
+        int bestScore;
+        int count;
+        int[] moves = moveLists[ply];
+        int[] scores = moveScores[ply];
+        if (inCheck) {
+            bestScore = -MATE + ply;
+            count = MoveGenerator.generate(position, moves);
+        } else {
+            bestScore = evaluator.evaluate(position);
+            if (bestScore >= beta) return bestScore;
+            if (bestScore > alpha) alpha = bestScore;
+            count = MoveGenerator.generateNoisy(position, moves);
+        }
+        scoreMoves(moves, scores, count, Moves.NONE, ply);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, scores, i, count);
+            if (!inCheck && Moves.promotion(move) == Pieces.EMPTY && StaticExchange.evaluate(position, move, exchangeGains) < 0) {
+                continue;
+            }
+            position.makeMove(move);
+            if (position.leftKingInCheck()) {
+                position.unmakeMove();
+                continue;
+            }
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (aborted) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private boolean shouldStop() {
+        if (aborted) return true;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+            if (stopRequested || nodes >= nodeLimit || System.nanoTime() >= deadline) {
+                aborted = true;
+            } else if (nodes >= sliceEnd) {
+                aborted = true;
+                preempted = true;
+            }
+        }
+        return aborted;
+    }
+
+    // Orders the hash move first, then captures by most valuable victim / least
+    // valuable attacker, then killer moves, then quiet moves by history
+    private void scoreMoves(int[] moves, int[] scores, int count, int ttMove, int ply) {
+        int[] squares = position.squares;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int piece = squares[Moves.from(move)];
+            int captured = squares[Moves.to(move)];
+            int promotion = Moves.promotion(move);
+            if (move == ttMove) {
+                scores[i] = TT_MOVE_SCORE;
+            } else if (captured != Pieces.EMPTY || promotion != Pieces.EMPTY) {
+                scores[i] = CAPTURE_SCORE + Pieces.value(captured) * 8 + Pieces.VALUE[promotion] - Pieces.type(piece);
+            } else if (move == killers[ply][0]) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = history[piece][Moves.to(move)];
+            }
+        }
+    }
+
+    // Selection sort step: swaps the best remaining move into slot index
+    private static int pickNext(int[] moves, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private void rememberQuietCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int piece = position.squares[Moves.from(move)];
+        history[piece][Moves.to(move)] += depth * depth;
+        if (history[piece][Moves.to(move)] > HISTORY_LIMIT) {
+            for (int[] row : history) {
+                for (int i = 0; i < row.length; i++) row[i] /= 2;
+            }
+        }
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        pv[ply][0] = move;
+        int childLength = ply + 1 <= MAX_PLY ? pvLength[ply + 1] : 0;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, Math.min(childLength, MAX_PLY - 1));
+        pvLength[ply] = Math.min(childLength, MAX_PLY - 1) + 1;
+    }
+
+    // Mate scores are stored relative to the node so they stay correct when
+    // the same position is reached at a different ply
+    private static int toTableScore(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    private static int firstLegalMove(Position position) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, moves);
+        return count > 0 ? moves[0] : Moves.NONE;
+    }
+}
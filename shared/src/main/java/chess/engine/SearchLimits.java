@@ -0,0 +1,45 @@
+package chess.engine;
+
+/**
+ * How far a search may go before it must return a move.
+ *
+ * @param depth          maximum iterative deepening depth in plies
+ * @param nodes          maximum number of nodes to visit
+ * @param movetimeMillis maximum wall clock time in milliseconds
+ */
+public record SearchLimits(int depth, long nodes, long movetimeMillis) {
+
+    public static final int MAX_DEPTH = Search.MAX_PLY - 1;
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(Math.min(depth, MAX_DEPTH), Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits movetime(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+
+    /**
+     * Budgets one move from a game clock: an even share of the remaining time
+     * over the moves still to play, plus most of the increment, but never more
+     * than half of what is left on the clock.
+     *
+     * @param remainingMillis time left on the mover's clock
+     * @param incrementMillis time added after each move
+     * @param movesToGo       moves until the next time control, or 0 if unknown
+     */
+    public static SearchLimits fromClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        int moves = movesToGo > 0 ? movesToGo : 30;
+        long budget = remainingMillis / moves + incrementMillis * 3 / 4;
+        budget = Math.min(budget, remainingMillis / 2);
+        return movetime(Math.max(1, budget));
+    }
+
+    public static SearchLimits infinite() {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,23 @@
+package chess.engine;
+
+import java.util.List;
+
+/**
+ * Receives progress from a running {@link Search}.
+ */
+public interface SearchListener {
+
+    /**
+     * Called on the searching thread each time an iteration finishes.
+     */
+    void iterationComplete(SearchResult result);
+
+    /**
+     * Called on the searching thread each time an iteration finishes with all
+     * of its lines, best first. Single line listeners only need
+     * {@link #iterationComplete}.
+     */
+    default void linesComplete(List<SearchResult> lines) {
+        iterationComplete(lines.get(0));
+    }
+}
@@ -0,0 +1,27 @@
+package chess.engine;
+
+/**
+ * Switches for the selective pruning done by {@link Search}. Each technique
+ * can be turned off on its own to measure what it costs or saves.
+ *
+ * @param nullMovePruning    skip the search of nodes where passing the turn still fails high
+ * @param lateMoveReductions search late, quiet moves to a reduced depth first
+ * @param futilityPruning    skip quiet moves near the leaves that cannot raise alpha
+ */
+public record SearchOptions(boolean nullMovePruning, boolean lateMoveReductions, boolean futilityPruning) {
+
+    public static final SearchOptions DEFAULT = new SearchOptions(true, true, true);
+    public static final SearchOptions FULL_WIDTH = new SearchOptions(false, false, false);
+
+    public SearchOptions withNullMovePruning(boolean enabled) {
+        return new SearchOptions(enabled, lateMoveReductions, futilityPruning);
+    }
+
+    public SearchOptions withLateMoveReductions(boolean enabled) {
+        return new SearchOptions(nullMovePruning, enabled, futilityPruning);
+    }
+
+    public SearchOptions withFutilityPruning(boolean enabled) {
+        return new SearchOptions(nullMovePruning, lateMoveReductions, enabled);
+    }
+}
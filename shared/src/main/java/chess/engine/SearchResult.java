@@ -0,0 +1,38 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search.
+ *
+ * @param bestMove            the move to play, or {@link Moves#NONE} if there are no legal moves
+ * @param score               score in centipawns for the side to move, or a mate score
+ * @param depth               the last fully completed iteration
+ * @param nodes               nodes visited, including quiescence nodes
+ * @param elapsedMillis       wall clock time spent
+ * @param principalVariation  the expected line of play starting with bestMove
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, long elapsedMillis,
+                           int[] principalVariation) {
+
+    public ChessMove bestChessMove() {
+        return bestMove == Moves.NONE ? null : Moves.toChessMove(bestMove);
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * @return moves until mate, positive when the side to move is mating
+     */
+    public int mateIn() {
+        int plies = Search.MATE - Math.abs(score);
+        int moves = (plies + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    public long nodesPerSecond() {
+        return elapsedMillis == 0 ? nodes * 1000 : nodes * 1000 / elapsedMillis;
+    }
+}
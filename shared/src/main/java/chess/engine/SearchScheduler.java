@@ -0,0 +1,166 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many bot searches on a small, fixed pool of worker threads.
+ * <p>
+ * Each search is cut into slices of a fixed number of nodes. After a slice the
+ * search goes to the back of the queue, so a long search cannot hold a worker
+ * while others wait. Workers run at below normal priority and there are fewer
+ * of them than cores, which leaves the remaining CPU for request threads doing
+ * move validation for human games.
+ */
+public class SearchScheduler implements AutoCloseable {
+
+    public static final long DEFAULT_SLICE_NODES = 20_000;
+
+    private final ExecutorService workers;
+    private final long sliceNodes;
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final SearchOptions options;
+
+    private final AtomicLong slices = new AtomicLong();
+    private final AtomicLong preemptions = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong queueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Creates a scheduler with one worker less than the number of cores.
+     */
+    public SearchScheduler() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_SLICE_NODES, 64);
+    }
+
+    /**
+     * @param threads         number of worker threads
+     * @param sliceNodes      nodes a search runs before yielding its worker
+     * @param tableMegabytes  size of the transposition table shared by all searches
+     */
+    public SearchScheduler(int threads, long sliceNodes, int tableMegabytes) {
+        this.sliceNodes = sliceNodes;
+        this.evaluator = new ClassicEvaluator();
+        this.table = new TranspositionTable(tableMegabytes);
+        this.options = SearchOptions.DEFAULT;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "search-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a search of the game's current position.
+     *
+     * @param limits budget for the search, usually from {@link SearchLimits#fromClock}
+     * @return a future completed with the result, which may be cancelled
+     */
+    public CompletableFuture<SearchResult> submit(ChessGame game, SearchLimits limits) {
+        return submit(Position.fromGame(game), limits);
+    }
+
+    public CompletableFuture<SearchResult> submit(Position position, SearchLimits limits) {
+        Task task = start(position, limits, 1);
+        CompletableFuture<SearchResult> handle = task.done.thenApply(Search::result);
+        task.handle = handle;
+        return handle;
+    }
+
+    /**
+     * Queues a multi-line analysis, see {@link Search#analyze}.
+     *
+     * @return a future completed with up to lines results, best first
+     */
+    public CompletableFuture<List<SearchResult>> submitAnalysis(Position position, SearchLimits limits, int lines) {
+        Task task = start(position, limits, lines);
+        CompletableFuture<List<SearchResult>> handle = task.done.thenApply(Search::lines);
+        task.handle = handle;
+        return handle;
+    }
+
+    private Task start(Position position, SearchLimits limits, int lines) {
+        Task task = new Task(new Search(evaluator, table, options));
+        task.search.begin(position, limits, lines);
+        active.incrementAndGet();
+        enqueue(task);
+        return task;
+    }
+
+    public Stats stats() {
+        long count = slices.get();
+        return new Stats(count, preemptions.get(), completed.get(), active.get(),
+                count == 0 ? 0 : queueNanos.get() / count / 1_000, maxQueueNanos.get() / 1_000);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private void enqueue(Task task) {
+        task.queuedAt = System.nanoTime();
+        workers.execute(() -> runSlice(task));
+    }
+
+    private void runSlice(Task task) {
+        long waited = System.nanoTime() - task.queuedAt;
+        queueNanos.addAndGet(waited);
+        maxQueueNanos.accumulateAndGet(waited, Math::max);
+        slices.incrementAndGet();
+
+        if (task.handle != null && task.handle.isDone()) {
+            // Cancelled by the caller while waiting
+            active.decrementAndGet();
+            return;
+        }
+        try {
+            if (task.search.resume(sliceNodes)) {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+                task.done.complete(task.search);
+            } else {
+                preemptions.incrementAndGet();
+                enqueue(task);
+            }
+        } catch (RuntimeException e) {
+            active.decrementAndGet();
+            task.done.completeExceptionally(e);
+        }
+    }
+
+    private static final class Task {
+        final Search search;
+        final CompletableFuture<Search> done = new CompletableFuture<>();
+        volatile CompletableFuture<?> handle;
+        long queuedAt;
+
+        Task(Search search) {
+            this.search = search;
+        }
+    }
+
+    /**
+     * Counters for the scheduler since it was created.
+     *
+     * @param slices            slices run
+     * @param preemptions       slices that ended before their search finished
+     * @param completed         searches finished
+     * @param active            searches submitted but not yet finished
+     * @param averageQueueMicros mean time a slice waited for a worker
+     * @param maxQueueMicros    longest time a slice waited for a worker
+     */
+    public record Stats(long slices, long preemptions, long completed, int active,
+                        long averageQueueMicros, long maxQueueMicros) {}
+}
@@ -0,0 +1,277 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays engine-vs-engine matches between two configurations to measure
+ * whether a change gains strength.
+ * <p>
+ * Every game is an independent task with its own {@link ChessGame} and its
+ * own searches, run on a pool with a thread per core. Each opening is played
+ * twice with colors swapped. After every finished game a sequential
+ * probability ratio test is updated, and the match stops as soon as it can
+ * tell the Elo difference is at least elo1 or at most elo0.
+ * <pre>
+ * SelfPlay openings.epd [games N] [nodes N] [threads N] [elo0 X] [elo1 X] [test OPTIONS] [base OPTIONS]
+ * </pre>
+ * OPTIONS is a comma separated list of the pruning techniques to turn on
+ * (nmp, lmr, futility), or none.
+ */
+public final class SelfPlay {
+
+    /** Games still running after this many plies are scored as draws. */
+    public static final int MAX_PLIES = 400;
+
+    private static final int HASH_MEGABYTES = 4;
+
+    private final Player test;
+    private final Player base;
+    private final Sprt sprt;
+    private final int threads;
+
+    public SelfPlay(Player test, Player base, Sprt sprt, int threads) {
+        this.test = test;
+        this.base = base;
+        this.sprt = sprt;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: SelfPlay <openings> [games N] [nodes N] [threads N] [elo0 X] [elo1 X] "
+                    + "[test OPTIONS] [base OPTIONS]");
+            return;
+        }
+        int games = 20_000;
+        long nodes = 20_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double elo0 = 0;
+        double elo1 = 5;
+        SearchOptions testOptions = SearchOptions.DEFAULT;
+        SearchOptions baseOptions = SearchOptions.FULL_WIDTH;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "games" -> games = Integer.parseInt(value);
+                case "nodes" -> nodes = Long.parseLong(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "elo0" -> elo0 = Double.parseDouble(value);
+                case "elo1" -> elo1 = Double.parseDouble(value);
+                case "test" -> testOptions = parseOptions(value);
+                case "base" -> baseOptions = parseOptions(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        List<String> openings = readOpenings(Path.of(args[0]));
+        SelfPlay match = new SelfPlay(new Player("test", testOptions, SearchLimits.nodes(nodes)),
+                new Player("base", baseOptions, SearchLimits.nodes(nodes)), new Sprt(elo0, elo1, 0.05, 0.05), threads);
+        System.out.println(match.run(openings, games, System.out));
+    }
+
+    private static SearchOptions parseOptions(String text) {
+        SearchOptions options = SearchOptions.FULL_WIDTH;
+        for (String name : text.split(",")) {
+            switch (name.trim()) {
+                case "nmp" -> options = options.withNullMovePruning(true);
+                case "lmr" -> options = options.withLateMoveReductions(true);
+                case "futility" -> options = options.withFutilityPruning(true);
+                case "none", "" -> { }
+                default -> throw new IllegalArgumentException("Unknown search option " + name);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Reads one FEN or EPD position per line, skipping blank lines and # comments.
+     */
+    public static List<String> readOpenings(Path file) throws IOException {
+        List<String> openings = new ArrayList<>();
+        try (var lines = Files.lines(file)) {
+            lines.map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#")).forEach(line -> {
+                // Keeps the board, side, castling and en passant fields and drops any operations
+                String[] fields = line.split("\\s+");
+                openings.add(String.join(" ", List.of(fields).subList(0, Math.min(4, fields.length))));
+            });
+        }
+        return openings;
+    }
+
+    /**
+     * Plays up to the given number of games, stopping early once the test decides.
+     *
+     * @param progress receives a line after every game, or null
+     */
+    public MatchResult run(List<String> openings, int games, PrintStream progress)
+            throws InterruptedException {
+        if (openings.isEmpty()) throw new IllegalArgumentException("No openings");
+        AtomicBoolean stopped = new AtomicBoolean();
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        Sprt.Decision decision = Sprt.Decision.CONTINUE;
+        try (ExecutorService workers = Executors.newFixedThreadPool(threads)) {
+            CompletionService<Double> finished = new ExecutorCompletionService<>(workers);
+            for (int i = 0; i < games; i++) {
+                String opening = openings.get((i / 2) % openings.size());
+                boolean testIsWhite = i % 2 == 0;
+                finished.submit(() -> {
+                    double white = play(opening, testIsWhite ? test : base, testIsWhite ? base : test, stopped);
+                    return testIsWhite ? white : 1 - white;
+                });
+            }
+            for (int i = 0; i < games; i++) {
+                double score;
+                try {
+                    score = finished.take().get();
+                } catch (ExecutionException e) {
+                    stopped.set(true);
+                    throw new IllegalStateException("Game failed", e.getCause());
+                }
+                if (score < 0) continue;
+                if (score == 1) wins++;
+                else if (score == 0) losses++;
+                else draws++;
+                double llr = sprt.llr(wins, draws, losses);
+                decision = sprt.decide(llr);
+                if (progress != null) {
+                    progress.printf("games %d +%d =%d -%d llr %.2f (%.2f, %.2f)%n", wins + draws + losses,
+                            wins, draws, losses, llr, sprt.lowerBound(), sprt.upperBound());
+                }
+                if (decision != Sprt.Decision.CONTINUE) {
+                    stopped.set(true);
+                    break;
+                }
+            }
+        }
+        return new MatchResult(wins, draws, losses, sprt.llr(wins, draws, losses), decision);
+    }
+
+    /**
+     * Plays one game from the opening.
+     *
+     * @return white's score: 1, 0.5 or 0, or -1 if the match stopped first
+     */
+    static double play(String opening, Player white, Player black, AtomicBoolean stopped) throws InvalidMoveException {
+        Position start = Fen.parse(opening);
+        ChessGame game = new ChessGame(start.toBoard(), Pieces.toTeamColor(start.sideToMove()));
+        Search whiteSearch = white.newSearch();
+        Search blackSearch = black.newSearch();
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            if (stopped.get()) return -1;
+            ChessGame.GameStatus status = game.evaluateStatus();
+            if (status == ChessGame.GameStatus.CHECKMATE) {
+                return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 0 : 1;
+            }
+            if (status != ChessGame.GameStatus.IN_PROGRESS) return 0.5;
+            boolean whiteToMove = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+            Player player = whiteToMove ? white : black;
+            SearchResult result = (whiteToMove ? whiteSearch : blackSearch)
+                    .search(Position.fromGame(game), player.limits());
+            game.makeMove(Moves.toChessMove(result.bestMove()));
+        }
+        return 0.5;
+    }
+
+    /**
+     * One side of a match.
+     *
+     * @param limits budget per move; a node limit keeps results independent of machine load
+     */
+    public record Player(String name, SearchOptions options, SearchLimits limits) {
+        Search newSearch() {
+            return new Search(new ClassicEvaluator(), new TranspositionTable(HASH_MEGABYTES), options);
+        }
+    }
+
+    /**
+     * Counts from the test player's side.
+     */
+    public record MatchResult(int wins, int draws, int losses, double llr, Sprt.Decision decision) {
+
+        public int games() {
+            return wins + draws + losses;
+        }
+
+        /**
+         * @return the Elo difference the score suggests, positive when the test player is stronger
+         */
+        public double elo() {
+            if (games() == 0) return 0;
+            double score = (wins + draws / 2.0) / games();
+            score = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+            return -400 * Math.log10(1 / score - 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("+%d =%d -%d, elo %+.1f, llr %.2f, %s", wins, draws, losses, elo(), llr, decision);
+        }
+    }
+
+    /**
+     * Sequential probability ratio test between Elo differences elo0 and elo1,
+     * using the normal approximation to the game score.
+     *
+     * @param alpha chance of accepting elo1 when elo0 is true
+     * @param beta  chance of accepting elo0 when elo1 is true
+     */
+    public record Sprt(double elo0, double elo1, double alpha, double beta) {
+
+        public enum Decision {
+            CONTINUE,
+            /** The change is no better than elo0. */
+            ACCEPT_ELO0,
+            /** The change is worth at least elo1. */
+            ACCEPT_ELO1
+        }
+
+        public double lowerBound() {
+            return Math.log(beta / (1 - alpha));
+        }
+
+        public double upperBound() {
+            return Math.log((1 - beta) / alpha);
+        }
+
+        /**
+         * @return log likelihood ratio of elo1 against elo0 for the results so far
+         */
+        public double llr(int wins, int draws, int losses) {
+            int games = wins + draws + losses;
+            if (games == 0) return 0;
+            double win = (double) wins / games;
+            double draw = (double) draws / games;
+            double score = win + draw / 2;
+            double variance = win + draw / 4 - score * score;
+            if (variance <= 0) return 0;
+            double score0 = expectedScore(elo0);
+            double score1 = expectedScore(elo1);
+            return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+        }
+
+        public Decision decide(double llr) {
+            if (llr >= upperBound()) return Decision.ACCEPT_ELO1;
+            if (llr <= lowerBound()) return Decision.ACCEPT_ELO0;
+            return Decision.CONTINUE;
+        }
+
+        private static double expectedScore(double elo) {
+            return 1 / (1 + Math.pow(10, -elo / 400));
+        }
+    }
+}
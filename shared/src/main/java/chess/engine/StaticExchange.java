@@ -0,0 +1,135 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+/**
+ * Static exchange evaluation (SEE).
+ * <p>
+ * Resolves the whole sequence of captures on a move's target square, each side
+ * always recapturing with its least valuable attacker and stopping when
+ * recapturing would lose material. Pieces behind an attacker (x-rays) join
+ * the exchange once the attacker in front of them has been used.
+ */
+public final class StaticExchange {
+
+    /** Longest capture sequence tracked, and the size of a gain buffer */
+    static final int MAX_EXCHANGE = 32;
+
+    private StaticExchange() {}
+
+    /**
+     * Evaluates a move on a {@link ChessGame} board, for callers outside the engine.
+     *
+     * @param game the game, with the move's owner to move
+     * @param move the capture to evaluate
+     * @return the expected material gain in centipawns for the side making the move
+     */
+    public static int evaluate(ChessGame game, ChessMove move) {
+        return evaluate(Position.fromGame(game), Moves.fromChessMove(move));
+    }
+
+    /**
+     * @return the expected material gain in centipawns for the side making the move
+     */
+    public static int evaluate(Position position, int move) {
+        return evaluate(position, move, new int[MAX_EXCHANGE]);
+    }
+
+    /**
+     * Evaluates a move using a caller-owned scratch array, so hot paths such as
+     * quiescence search do not allocate per capture.
+     *
+     * @param gain scratch space of at least {@link #MAX_EXCHANGE} entries
+     * @return the expected material gain in centipawns for the side making the move
+     */
+    static int evaluate(Position position, int move, int[] gain) {
+        int[] squares = position.squares;
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int mover = squares[from];
+        if (mover == Pieces.EMPTY) return 0;
+
+        int promotion = Moves.promotion(move);
+        int depth = 0;
+        gain[0] = Pieces.value(squares[to]);
+        int onSquare = Pieces.value(mover);
+        if (promotion != Pieces.EMPTY) {
+            gain[0] += Pieces.VALUE[promotion] - Pieces.VALUE[Pieces.PAWN];
+            onSquare = Pieces.VALUE[promotion];
+        }
+
+        long occupied = occupancy(squares) & ~(1L << from);
+        int side = Pieces.color(mover) ^ 1;
+        int attacker = leastValuableAttacker(squares, occupied, to, side);
+        while (attacker >= 0 && depth < gain.length - 1) {
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+            occupied &= ~(1L << attacker);
+            onSquare = Pieces.value(squares[attacker]);
+            if (Pieces.type(squares[attacker]) == Pieces.KING
+                    && leastValuableAttacker(squares, occupied, to, side ^ 1) >= 0) {
+                // The king may not capture into a defended square
+                depth--;
+                break;
+            }
+            side ^= 1;
+            attacker = leastValuableAttacker(squares, occupied, to, side);
+        }
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * @return True if the move gains at least threshold centipawns by exchange
+     */
+    public static boolean isAtLeast(Position position, int move, int threshold) {
+        return evaluate(position, move) >= threshold;
+    }
+
+    private static long occupancy(int[] squares) {
+        long occupied = 0;
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != Pieces.EMPTY) occupied |= 1L << square;
+        }
+        return occupied;
+    }
+
+    /**
+     * @return the square of the cheapest piece of color side attacking target
+     * through the given occupancy, or -1 if there is none
+     */
+    static int leastValuableAttacker(int[] squares, long occupied, int target, int side) {
+        int pawn = Pieces.make(side, Pieces.PAWN);
+        for (int from : Attacks.PAWN[side ^ 1][target]) {
+            if (squares[from] == pawn && (occupied & (1L << from)) != 0) return from;
+        }
+        int knight = Pieces.make(side, Pieces.KNIGHT);
+        for (int from : Attacks.KNIGHT[target]) {
+            if (squares[from] == knight && (occupied & (1L << from)) != 0) return from;
+        }
+        int best = -1;
+        int bestType = Pieces.KING + 1;
+        for (int direction = 0; direction < 8; direction++) {
+            for (int from : Attacks.RAYS[target][direction]) {
+                if ((occupied & (1L << from)) == 0) continue;
+                int piece = squares[from];
+                int type = Pieces.type(piece);
+                if (Pieces.color(piece) == side && type < bestType && Attacks.slidesAlong(type, direction)) {
+                    best = from;
+                    bestType = type;
+                }
+                break;
+            }
+        }
+        if (best >= 0) return best;
+        int king = Pieces.make(side, Pieces.KING);
+        for (int from : Attacks.KING[target]) {
+            if (squares[from] == king && (occupied & (1L << from)) != 0) return from;
+        }
+        return -1;
+    }
+}
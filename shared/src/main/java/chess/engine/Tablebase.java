@@ -0,0 +1,232 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Probes endgame tables written by {@link TablebaseGenerator}.
+ * <p>
+ * Table files are memory-mapped, so probing reads a few bits straight from the
+ * mapped pages. Tables are stored with white as the side with extra pieces;
+ * positions where black has them are mirrored top to bottom before probing.
+ * Distances count plies to mate and ignore the fifty-move rule.
+ */
+public final class Tablebase {
+
+    /** Tables the generator can build, in an order where promotions are built first. */
+    public static final List<String> SUPPORTED = List.of("KQK", "KRK", "KPK", "KBNK");
+
+    static final String EXTENSION = ".tb";
+    static final int MAGIC = 0x31425443;
+    static final int HEADER_BYTES = 32;
+    static final int PADDING = 8;
+
+    private static final String ORDER = "QRBNP";
+
+    private final Map<String, Table> tables = new HashMap<>();
+
+    private Tablebase() {}
+
+    /**
+     * Maps every table file in the directory.
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                Table table = Table.map(file);
+                tablebase.tables.put(table.signature, table);
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * @return the signatures of the tables that were found
+     */
+    public List<String> signatures() {
+        return List.copyOf(tables.keySet());
+    }
+
+    public Result probe(ChessGame game) {
+        return probe(Position.fromGame(game));
+    }
+
+    /**
+     * @return the result with best play for the side to move, or null if no table covers the position
+     */
+    public Result probe(Position position) {
+        int whiteExtra = extraPieces(position, Pieces.WHITE);
+        int blackExtra = extraPieces(position, Pieces.BLACK);
+        if (whiteExtra + blackExtra == 0) return Result.DRAWN;
+        if (whiteExtra > 0 && blackExtra > 0) return null;
+        int strong = whiteExtra > 0 ? Pieces.WHITE : Pieces.BLACK;
+        String signature = signature(position, strong);
+        if (signature.equals("KBK") || signature.equals("KNK")) return Result.DRAWN;
+        Table table = tables.get(signature);
+        if (table == null) return null;
+
+        // Mirror so the strong side plays white
+        int flip = strong == Pieces.WHITE ? 0 : 56;
+        int[] order = table.pieces;
+        int index = 0;
+        long used = 0;
+        for (int piece : order) {
+            int wanted = Pieces.make(Pieces.color(piece) ^ strong, Pieces.type(piece));
+            for (int square = 0; square < 64; square++) {
+                if (position.squares[square] == wanted && (used & 1L << square) == 0) {
+                    used |= 1L << square;
+                    index = (index << 6) | (square ^ flip);
+                    break;
+                }
+            }
+        }
+        int side = position.sideToMove() ^ strong;
+        int stored = table.read(side, index);
+        if (stored == 0) return Result.DRAWN;
+        return new Result(side == Pieces.WHITE ? Outcome.WIN : Outcome.LOSS, stored - 1);
+    }
+
+    public ChessMove bestMove(ChessGame game) {
+        int move = bestMove(Position.fromGame(game));
+        return move == Moves.NONE ? null : Moves.toChessMove(move);
+    }
+
+    /**
+     * Picks the move that wins fastest, holds the draw, or loses slowest.
+     *
+     * @return the move, or {@link Moves#NONE} if the tables do not cover the position
+     */
+    public int bestMove(Position position) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, moves);
+        int best = Moves.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            Result reply = probe(position);
+            position.unmakeMove();
+            if (reply == null) continue;
+            // Rank from our side: quick wins first, then draws, then slow losses
+            int rank = switch (reply.outcome()) {
+                case LOSS -> 1000 - reply.distanceToMate();
+                case DRAW -> 0;
+                case WIN -> reply.distanceToMate() - 1000;
+            };
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    private static int extraPieces(Position position, int color) {
+        int count = 0;
+        for (int type = Pieces.PAWN; type < Pieces.KING; type++) {
+            count += position.pieceCount(Pieces.make(color, type));
+        }
+        return count;
+    }
+
+    // Material as K, the strong side's pieces in QRBNP order, then K
+    private static String signature(Position position, int strong) {
+        StringBuilder sb = new StringBuilder("K");
+        for (int i = 0; i < ORDER.length(); i++) {
+            int type = Pieces.type(Pieces.fromChar(ORDER.charAt(i)));
+            int count = position.pieceCount(Pieces.make(strong, type));
+            for (int j = 0; j < count; j++) sb.append(ORDER.charAt(i));
+        }
+        return sb.append('K').toString();
+    }
+
+    /**
+     * @return the white king, the black king and then the white piece types of a signature, as piece codes
+     */
+    static int[] pieceOrder(String signature) {
+        int[] pieces = new int[signature.length()];
+        pieces[0] = Pieces.make(Pieces.WHITE, Pieces.KING);
+        pieces[1] = Pieces.make(Pieces.BLACK, Pieces.KING);
+        for (int i = 1; i < signature.length() - 1; i++) {
+            pieces[i + 1] = Pieces.make(Pieces.WHITE, Pieces.type(Pieces.fromChar(signature.charAt(i))));
+        }
+        return pieces;
+    }
+
+    /**
+     * @return the signature after a pawn promotes to the given type
+     */
+    static String promotedSignature(String signature, int type) {
+        String pieces = signature.substring(1, signature.length() - 1)
+                .replaceFirst("P", String.valueOf(Pieces.toChar(Pieces.make(Pieces.WHITE, type))));
+        StringBuilder sb = new StringBuilder("K");
+        for (int i = 0; i < ORDER.length(); i++) {
+            char letter = ORDER.charAt(i);
+            pieces.chars().filter(c -> c == letter).forEach(c -> sb.append(letter));
+        }
+        return sb.append('K').toString();
+    }
+
+    public enum Outcome {
+        WIN, DRAW, LOSS
+    }
+
+    /**
+     * @param outcome         result for the side to move with best play
+     * @param distanceToMate  plies until mate, 0 for draws
+     */
+    public record Result(Outcome outcome, int distanceToMate) {
+        static final Result DRAWN = new Result(Outcome.DRAW, 0);
+    }
+
+    private static final class Table {
+        final String signature;
+        final int[] pieces;
+        final int bits;
+        final long entries;
+        final MappedByteBuffer data;
+
+        private Table(String signature, int bits, long entries, MappedByteBuffer data) {
+            this.signature = signature;
+            this.pieces = pieceOrder(signature);
+            this.bits = bits;
+            this.entries = entries;
+            this.data = data;
+        }
+
+        static Table map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                data.order(ByteOrder.LITTLE_ENDIAN);
+                if (data.getInt(0) != MAGIC) {
+                    throw new IOException("Not a table file: " + file);
+                }
+                int bits = data.getInt(4);
+                long entries = data.getLong(8);
+                StringBuilder signature = new StringBuilder();
+                for (int i = 16; i < HEADER_BYTES && data.get(i) != 0; i++) {
+                    signature.append((char) data.get(i));
+                }
+                return new Table(signature.toString(), bits, entries, data);
+            }
+        }
+
+        int read(int side, int index) {
+            long bit = (side * entries + index) * bits;
+            int word = data.getShort(HEADER_BYTES + (int) (bit >>> 3)) & 0xFFFF;
+            return (word >>> (bit & 7)) & ((1 << bits) - 1);
+        }
+    }
+}
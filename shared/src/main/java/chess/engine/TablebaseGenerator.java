@@ -0,0 +1,410 @@
+package chess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Builds endgame tables by retrograde analysis.
+ * <p>
+ * A table covers one material signature where white has the extra pieces and
+ * black has a lone king, such as KQK or KBNK. Positions are indexed by the
+ * squares of the white king, the black king and then the other white pieces,
+ * 6 bits each, with one array per side to move. Starting from the positions
+ * where black is mated, each round un-moves white pieces to find positions
+ * white wins one ply sooner, then un-moves the black king to find positions
+ * where every black move reaches such a win. Every round is split into chunks
+ * run on the common fork-join pool, so generation uses all cores.
+ * <p>
+ * Run from the command line with an output directory and optionally the
+ * signatures to build; by default every table in {@link Tablebase#SUPPORTED}.
+ */
+public final class TablebaseGenerator {
+
+    static final byte UNKNOWN = 0;
+    static final byte DRAW = (byte) 254;
+    static final byte ILLEGAL = (byte) 255;
+    static final int MAX_STORED = 250;
+
+    private static final int CHUNK = 1 << 14;
+
+    private final int[] pieces;
+    private final int pieceCount;
+    private final int size;
+    private final byte[] white;
+    private final byte[] black;
+    private byte[] promotions;
+
+    private TablebaseGenerator(String signature) {
+        pieces = Tablebase.pieceOrder(signature);
+        pieceCount = pieces.length;
+        size = 1 << (6 * pieceCount);
+        white = new byte[size];
+        black = new byte[size];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TablebaseGenerator <directory> [signature...]");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        List<String> signatures = args.length > 1 ? List.of(args).subList(1, args.length) : Tablebase.SUPPORTED;
+        Map<String, byte[][]> generated = new HashMap<>();
+        for (String signature : signatures) {
+            long start = System.currentTimeMillis();
+            byte[][] values = generate(signature, generated);
+            write(directory.resolve(signature + Tablebase.EXTENSION), signature, values);
+            System.out.printf("%s: longest win %d plies, %d ms%n", signature, longestWin(values[Pieces.WHITE]),
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Generates a table, first generating any table its pawns promote into.
+     *
+     * @param generated tables already built, which this table is added to
+     * @return values indexed by side to move then position: distance to mate in plies plus one,
+     * or {@link #DRAW}, {@link #ILLEGAL} or {@link #UNKNOWN} (also a draw)
+     */
+    public static byte[][] generate(String signature, Map<String, byte[][]> generated) {
+        if (!Tablebase.SUPPORTED.contains(signature)) {
+            throw new IllegalArgumentException("Unsupported table " + signature);
+        }
+        byte[][] values = generated.get(signature);
+        if (values != null) return values;
+        TablebaseGenerator generator = new TablebaseGenerator(signature);
+        generator.seedPromotions(signature, generated);
+        generator.initialize();
+        generator.propagate();
+        values = new byte[][]{generator.white, generator.black};
+        generated.put(signature, values);
+        return values;
+    }
+
+    /**
+     * @return the longest distance to mate in plies among the given values
+     */
+    public static int longestWin(byte[] values) {
+        int longest = 0;
+        for (byte value : values) {
+            int stored = value & 0xFF;
+            if (stored != UNKNOWN && stored <= MAX_STORED) longest = Math.max(longest, stored - 1);
+        }
+        return longest;
+    }
+
+    // Marks illegal positions and the positions where black is mated or can draw at once
+    private void initialize() {
+        IntStream.range(0, chunks()).parallel().forEach(chunk -> {
+            int[] board = new int[64];
+            int[] squares = new int[pieceCount];
+            for (int index = chunk * CHUNK, end = index + CHUNK; index < end; index++) {
+                if (!place(index, squares, board)) {
+                    white[index] = ILLEGAL;
+                    black[index] = ILLEGAL;
+                    continue;
+                }
+                int blackKing = squares[1];
+                if (Attacks.isAttacked(board, blackKing, Pieces.WHITE)) {
+                    white[index] = ILLEGAL;
+                }
+                if (Attacks.isAttacked(board, squares[0], Pieces.BLACK)) {
+                    black[index] = ILLEGAL;
+                } else {
+                    black[index] = classifyBlack(board, blackKing);
+                }
+                clear(squares, board);
+            }
+        });
+    }
+
+    private byte classifyBlack(int[] board, int blackKing) {
+        int king = board[blackKing];
+        int legal = 0;
+        board[blackKing] = Pieces.EMPTY;
+        for (int to : Attacks.KING[blackKing]) {
+            int captured = board[to];
+            board[to] = king;
+            boolean safe = !Attacks.isAttacked(board, to, Pieces.WHITE);
+            board[to] = captured;
+            if (!safe) continue;
+            if (captured != Pieces.EMPTY) {
+                // Taking a piece leaves a lone king or a minor piece, which is a draw
+                legal = -1;
+                break;
+            }
+            legal++;
+        }
+        board[blackKing] = king;
+        if (legal < 0) return DRAW;
+        if (legal > 0) return UNKNOWN;
+        return Attacks.isAttacked(board, blackKing, Pieces.WHITE) ? (byte) 1 : DRAW;
+    }
+
+    // Promotions leave this table, so their results come from the table promoted into
+    private void seedPromotions(String signature, Map<String, byte[][]> generated) {
+        int pawnAt = -1;
+        for (int i = 2; i < pieceCount; i++) {
+            if (Pieces.type(pieces[i]) == Pieces.PAWN) pawnAt = i;
+        }
+        if (pawnAt < 0) return;
+        int shift = 6 * (pieceCount - 1 - pawnAt);
+        promotions = new byte[size];
+        for (int type : new int[]{Pieces.QUEEN, Pieces.ROOK}) {
+            String promoted = Tablebase.promotedSignature(signature, type);
+            if (!Tablebase.SUPPORTED.contains(promoted)) continue;
+            byte[] target = generate(promoted, generated)[Pieces.BLACK];
+            int[] promotedPieces = Tablebase.pieceOrder(promoted);
+            int[] squares = new int[pieceCount];
+            int[] reordered = new int[pieceCount];
+            for (int index = 0; index < size; index++) {
+                int from = (index >>> shift) & 63;
+                if (from >>> 3 != 6) continue;
+                decode(index, squares);
+                int to = from + 8;
+                if (occupied(squares, to)) continue;
+                squares[pawnAt] = to;
+                int promotedIndex = reorder(squares, pawnAt, Pieces.make(Pieces.WHITE, type), promotedPieces, reordered);
+                int stored = target[promotedIndex] & 0xFF;
+                if (stored == UNKNOWN || stored > MAX_STORED) continue;
+                int current = promotions[index] & 0xFF;
+                if (current == 0 || stored + 1 < current) promotions[index] = (byte) (stored + 1);
+            }
+        }
+    }
+
+    private int reorder(int[] squares, int replaced, int piece, int[] order, int[] out) {
+        boolean[] used = new boolean[pieceCount];
+        for (int slot = 0; slot < pieceCount; slot++) {
+            for (int i = 0; i < pieceCount; i++) {
+                int current = i == replaced ? piece : pieces[i];
+                if (!used[i] && current == order[slot]) {
+                    used[i] = true;
+                    out[slot] = squares[i];
+                    break;
+                }
+            }
+        }
+        return encode(out);
+    }
+
+    // Works outward from the mates one ply at a time until a round finds nothing new
+    private void propagate() {
+        int lastSeed = 0;
+        if (promotions != null) {
+            for (byte value : promotions) lastSeed = Math.max(lastSeed, value & 0xFF);
+        }
+        for (int stored = 1; ; stored++) {
+            if (stored > MAX_STORED) throw new IllegalStateException("Distance to mate does not fit the table");
+            int frontier = stored;
+            long found = stored % 2 == 1 ? winsBefore(frontier) : lossesBefore(frontier);
+            if (found == 0 && stored >= lastSeed) return;
+        }
+    }
+
+    // White positions with a move to a black loss stored as frontier
+    private long winsBefore(int frontier) {
+        byte next = (byte) (frontier + 1);
+        return IntStream.range(0, chunks()).parallel().mapToLong(chunk -> {
+            int[] board = new int[64];
+            int[] squares = new int[pieceCount];
+            int[] sources = new int[28];
+            long found = 0;
+            for (int index = chunk * CHUNK, end = index + CHUNK; index < end; index++) {
+                if (promotions != null && promotions[index] == next && white[index] == UNKNOWN) {
+                    white[index] = next;
+                    found++;
+                }
+                if ((black[index] & 0xFF) != frontier) continue;
+                place(index, squares, board);
+                for (int i = 0; i < pieceCount; i++) {
+                    if (i == 1) continue;
+                    int from = squares[i];
+                    board[from] = Pieces.EMPTY;
+                    int count = unmoves(pieces[i], from, board, sources);
+                    for (int j = 0; j < count; j++) {
+                        squares[i] = sources[j];
+                        int previous = encode(squares);
+                        if (white[previous] == UNKNOWN) {
+                            white[previous] = next;
+                            found++;
+                        }
+                    }
+                    squares[i] = from;
+                    board[from] = pieces[i];
+                }
+                clear(squares, board);
+            }
+            return found;
+        }).sum();
+    }
+
+    // Black positions where the last undecided move reaches a white win stored as frontier
+    private long lossesBefore(int frontier) {
+        byte next = (byte) (frontier + 1);
+        return IntStream.range(0, chunks()).parallel().mapToLong(chunk -> {
+            int[] squares = new int[pieceCount];
+            long found = 0;
+            for (int index = chunk * CHUNK, end = index + CHUNK; index < end; index++) {
+                if ((white[index] & 0xFF) != frontier) continue;
+                decode(index, squares);
+                int blackKing = squares[1];
+                for (int to : Attacks.KING[blackKing]) {
+                    if (occupied(squares, to)) continue;
+                    squares[1] = to;
+                    int previous = encode(squares);
+                    if (black[previous] == UNKNOWN && allMovesLose(squares)) {
+                        black[previous] = next;
+                        found++;
+                    }
+                }
+                squares[1] = blackKing;
+            }
+            return found;
+        }).sum();
+    }
+
+    private boolean allMovesLose(int[] squares) {
+        int blackKing = squares[1];
+        int legal = 0;
+        for (int to : Attacks.KING[blackKing]) {
+            // Captures were settled as draws when the table was initialized
+            if (occupied(squares, to)) continue;
+            squares[1] = to;
+            byte value = white[encode(squares)];
+            squares[1] = blackKing;
+            if (value == ILLEGAL) continue;
+            if (value == UNKNOWN) return false;
+            legal++;
+        }
+        return legal > 0;
+    }
+
+    // Squares a white piece could have come from, returning how many
+    private static int unmoves(int piece, int square, int[] board, int[] buffer) {
+        int count = 0;
+        int type = Pieces.type(piece);
+        switch (type) {
+            case Pieces.KING, Pieces.KNIGHT -> {
+                for (int from : type == Pieces.KING ? Attacks.KING[square] : Attacks.KNIGHT[square]) {
+                    if (board[from] == Pieces.EMPTY) buffer[count++] = from;
+                }
+            }
+            case Pieces.PAWN -> {
+                int row = square >>> 3;
+                if (row >= 2 && board[square - 8] == Pieces.EMPTY) {
+                    buffer[count++] = square - 8;
+                    if (row == 3 && board[square - 16] == Pieces.EMPTY) buffer[count++] = square - 16;
+                }
+            }
+            default -> {
+                for (int direction = 0; direction < 8; direction++) {
+                    if (!Attacks.slidesAlong(type, direction)) continue;
+                    for (int from : Attacks.RAYS[square][direction]) {
+                        if (board[from] != Pieces.EMPTY) break;
+                        buffer[count++] = from;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // Puts the pieces on the board, returning false if two share a square or a pawn is on a back rank
+    private boolean place(int index, int[] squares, int[] board) {
+        decode(index, squares);
+        for (int i = 0; i < pieceCount; i++) {
+            int square = squares[i];
+            int row = square >>> 3;
+            if (board[square] != Pieces.EMPTY || (Pieces.type(pieces[i]) == Pieces.PAWN && (row == 0 || row == 7))) {
+                for (int j = 0; j < i; j++) board[squares[j]] = Pieces.EMPTY;
+                return false;
+            }
+            board[square] = pieces[i];
+        }
+        return true;
+    }
+
+    private void clear(int[] squares, int[] board) {
+        for (int square : squares) board[square] = Pieces.EMPTY;
+    }
+
+    private boolean occupied(int[] squares, int square) {
+        for (int other : squares) {
+            if (other == square) return true;
+        }
+        return false;
+    }
+
+    private void decode(int index, int[] squares) {
+        for (int i = pieceCount - 1; i >= 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+    }
+
+    private int encode(int[] squares) {
+        int index = 0;
+        for (int i = 0; i < pieceCount; i++) {
+            index = (index << 6) | squares[i];
+        }
+        return index;
+    }
+
+    private int chunks() {
+        return Math.max(1, size / CHUNK);
+    }
+
+    /**
+     * Writes a table bit-packed with just enough bits per position for its
+     * longest mate. Draws and illegal positions are both stored as 0.
+     */
+    public static void write(Path path, String signature, byte[][] values) throws IOException {
+        int longest = Math.max(longestWin(values[Pieces.WHITE]), longestWin(values[Pieces.BLACK]));
+        int bits = 32 - Integer.numberOfLeadingZeros(longest + 1);
+        long entries = values[Pieces.WHITE].length;
+        long dataBytes = (2 * entries * bits + 7) / 8 + Tablebase.PADDING;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (Tablebase.HEADER_BYTES + dataBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(Tablebase.MAGIC);
+        buffer.putInt(bits);
+        buffer.putLong(entries);
+        byte[] name = signature.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(name);
+        buffer.position(Tablebase.HEADER_BYTES);
+
+        long accumulator = 0;
+        int filled = 0;
+        for (byte[] side : values) {
+            for (byte value : side) {
+                int stored = value & 0xFF;
+                if (stored > MAX_STORED) stored = 0;
+                accumulator |= (long) stored << filled;
+                filled += bits;
+                while (filled >= 8) {
+                    buffer.put((byte) accumulator);
+                    accumulator >>>= 8;
+                    filled -= 8;
+                }
+            }
+        }
+        if (filled > 0) buffer.put((byte) accumulator);
+        buffer.position(0);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
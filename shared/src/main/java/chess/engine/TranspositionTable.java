@@ -0,0 +1,88 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size hash table of search results keyed by Zobrist key.
+ * <p>
+ * Each entry is two longs: the key xor'd with the data, then the data. A
+ * reader only trusts an entry when both halves agree, so several searching
+ * threads can share one table without locking; a torn write just looks like
+ * a miss.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private long[] table;
+    private int mask;
+
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Replaces the table with an empty one of the given size, rounded down to
+     * a power of two number of entries.
+     */
+    public void resize(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        int entries = (int) Math.min(1L << 28, Long.highestOneBit(bytes / ENTRY_BYTES));
+        table = new long[entries * 2];
+        mask = entries - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the packed entry for the key, or 0 if there is none
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = table[index + 1];
+        if ((table[index] ^ data) != key) return 0;
+        return data;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = ((int) key & mask) << 1;
+        long old = table[index + 1];
+        if ((table[index] ^ old) == key) {
+            // Keep a deeper result for the same position unless this one is exact
+            if (depth(old) > depth && bound != EXACT) return;
+            if (move == Moves.NONE) move = move(old);
+        }
+        long data = (move & 0x7FFFL)
+                | ((long) (score & 0xFFFF) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0x7FFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+}
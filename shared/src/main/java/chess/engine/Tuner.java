@@ -0,0 +1,367 @@
+package chess.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Texel-style tuning of the {@link ClassicEvaluator} material and
+ * piece-square weights against game results.
+ * <p>
+ * Each training line holds a FEN followed by the game result, written as
+ * 1-0, 0-1, 1/2-1/2 or as white's score (1.0, 0.5, 0.0), optionally in
+ * quotes or brackets. Positions should be quiet, since the static evaluation
+ * is used as is. The file is streamed and each position is packed into a
+ * short per piece, square and piece code, so millions of positions fit in a
+ * modest heap.
+ * <p>
+ * The error is the mean squared difference between each result and the
+ * evaluation mapped to an expected score by a logistic curve. It is summed
+ * over fixed chunks of the data in parallel. Weights can be tuned by the
+ * classic coordinate descent, which tries a step of one in each direction
+ * for every weight, or by Adam gradient descent, which is much faster on
+ * large sets since every step is one pass over the data.
+ * <pre>
+ * Tuner positions.epd [gradient N | coordinate N]
+ * </pre>
+ */
+public final class Tuner {
+
+    /** Material for pawn to queen; the king's value is the same for both sides and is not tuned. */
+    static final int MATERIAL_WEIGHTS = 5;
+    static final int WEIGHTS = MATERIAL_WEIGHTS + 6 * 64;
+
+    private static final int CHUNK = 1 << 14;
+
+    private final Dataset data;
+    private final double[] weights = new double[WEIGHTS];
+    private double scale = 1.0;
+
+    /**
+     * Starts from the weights of the given evaluator.
+     */
+    public Tuner(Dataset data, ClassicEvaluator start) {
+        this.data = data;
+        for (int type = Pieces.PAWN; type <= Pieces.QUEEN; type++) {
+            weights[materialIndex(type)] = start.pieceValues[type];
+        }
+        for (int type = Pieces.PAWN; type <= Pieces.KING; type++) {
+            for (int square = 0; square < 64; square++) {
+                weights[squareIndex(type, square)] = start.pieceSquare[type][square];
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: Tuner <positions> [gradient N | coordinate N]");
+            return;
+        }
+        Dataset data;
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[0]))) {
+            data = Dataset.read(in);
+        }
+        System.out.println("loaded " + data.size() + " positions");
+        Tuner tuner = new Tuner(data, new ClassicEvaluator());
+        System.out.printf("scale %.3f, error %.6f%n", tuner.fitScale(), tuner.error());
+        String method = args.length > 1 ? args[1] : "gradient";
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        if (method.equals("coordinate")) {
+            tuner.coordinateDescent(rounds, System.out);
+        } else {
+            tuner.gradientDescent(rounds, 1.0, System.out);
+        }
+        tuner.print(System.out);
+    }
+
+    static int materialIndex(int type) {
+        return type - Pieces.PAWN;
+    }
+
+    static int squareIndex(int type, int square) {
+        return MATERIAL_WEIGHTS + (type - Pieces.PAWN) * 64 + square;
+    }
+
+    /**
+     * @return the multiplier for evaluations in the logistic curve that best fits the current weights
+     */
+    public double fitScale() {
+        // The error is unimodal in the scale, so a golden section search is enough
+        double low = 0.05;
+        double high = 5.0;
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        for (int i = 0; i < 40; i++) {
+            double a = high - ratio * (high - low);
+            double b = low + ratio * (high - low);
+            scale = a;
+            double errorA = error();
+            scale = b;
+            double errorB = error();
+            if (errorA < errorB) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        scale = (low + high) / 2;
+        return scale;
+    }
+
+    /**
+     * @return the mean squared error of the current weights
+     */
+    public double error() {
+        double[] current = weights.clone();
+        double[] sums = IntStream.range(0, chunks()).parallel().mapToDouble(chunk -> {
+            double sum = 0;
+            for (int i = chunk * CHUNK, end = Math.min(data.size(), i + CHUNK); i < end; i++) {
+                double diff = data.result(i) - expected(evaluate(current, i));
+                sum += diff * diff;
+            }
+            return sum;
+        }).toArray();
+        // Adding the chunks in order keeps the error the same from run to run
+        return Arrays.stream(sums).sum() / Math.max(1, data.size());
+    }
+
+    /**
+     * Texel's local search: every weight is moved up or down by one while that lowers the error.
+     *
+     * @return the final error
+     */
+    public double coordinateDescent(int passes, PrintStream progress) {
+        double best = error();
+        for (int pass = 0; pass < passes; pass++) {
+            boolean improved = false;
+            for (int i = 0; i < WEIGHTS; i++) {
+                for (int step : new int[]{1, -1}) {
+                    weights[i] += step;
+                    double error = error();
+                    if (error < best) {
+                        best = error;
+                        improved = true;
+                        break;
+                    }
+                    weights[i] -= step;
+                }
+            }
+            if (progress != null) progress.printf("pass %d error %.6f%n", pass + 1, best);
+            if (!improved) break;
+        }
+        return best;
+    }
+
+    /**
+     * Adam gradient descent over the whole data set.
+     *
+     * @param learningRate step size in centipawns
+     * @return the final error
+     */
+    public double gradientDescent(int iterations, double learningRate, PrintStream progress) {
+        double[] mean = new double[WEIGHTS];
+        double[] variance = new double[WEIGHTS];
+        double beta1 = 0.9;
+        double beta2 = 0.999;
+        for (int t = 1; t <= iterations; t++) {
+            double[] gradient = gradient();
+            for (int i = 0; i < WEIGHTS; i++) {
+                mean[i] = beta1 * mean[i] + (1 - beta1) * gradient[i];
+                variance[i] = beta2 * variance[i] + (1 - beta2) * gradient[i] * gradient[i];
+                double m = mean[i] / (1 - Math.pow(beta1, t));
+                double v = variance[i] / (1 - Math.pow(beta2, t));
+                weights[i] -= learningRate * m / (Math.sqrt(v) + 1e-8);
+            }
+            if (progress != null && t % 100 == 0) progress.printf("iteration %d error %.6f%n", t, error());
+        }
+        return error();
+    }
+
+    private double[] gradient() {
+        double[] current = weights.clone();
+        double[][] parts = IntStream.range(0, chunks()).parallel().mapToObj(chunk -> {
+            double[] part = new double[WEIGHTS];
+            for (int i = chunk * CHUNK, end = Math.min(data.size(), i + CHUNK); i < end; i++) {
+                double sigmoid = expected(evaluate(current, i));
+                // d/dw of (result - sigmoid)^2, leaving out constant factors Adam does not need
+                double slope = (sigmoid - data.result(i)) * sigmoid * (1 - sigmoid);
+                for (int p = data.start(i), last = data.start(i + 1); p < last; p++) {
+                    int piece = data.piece(p);
+                    int type = Pieces.type(piece);
+                    int square = data.square(p);
+                    if (Pieces.color(piece) == Pieces.WHITE) {
+                        if (type != Pieces.KING) part[materialIndex(type)] += slope;
+                        part[squareIndex(type, square)] += slope;
+                    } else {
+                        if (type != Pieces.KING) part[materialIndex(type)] -= slope;
+                        part[squareIndex(type, square ^ 56)] -= slope;
+                    }
+                }
+            }
+            return part;
+        }).toArray(double[][]::new);
+        double[] gradient = new double[WEIGHTS];
+        for (double[] part : parts) {
+            for (int i = 0; i < WEIGHTS; i++) {
+                gradient[i] += part[i];
+            }
+        }
+        return gradient;
+    }
+
+    private int chunks() {
+        return (data.size() + CHUNK - 1) / CHUNK;
+    }
+
+    /**
+     * @return white's evaluation of a data set position with the current weights
+     */
+    double evaluate(int index) {
+        return evaluate(weights, index);
+    }
+
+    private double evaluate(double[] weights, int index) {
+        double score = 0;
+        for (int p = data.start(index), end = data.start(index + 1); p < end; p++) {
+            int piece = data.piece(p);
+            int type = Pieces.type(piece);
+            int square = data.square(p);
+            double value = type == Pieces.KING ? 0 : weights[materialIndex(type)];
+            if (Pieces.color(piece) == Pieces.WHITE) {
+                score += value + weights[squareIndex(type, square)];
+            } else {
+                score -= value + weights[squareIndex(type, square ^ 56)];
+            }
+        }
+        return score;
+    }
+
+    private double expected(double score) {
+        return 1 / (1 + Math.pow(10, -scale * score / 400));
+    }
+
+    /**
+     * @return an evaluator with the tuned weights rounded to whole centipawns
+     */
+    public ClassicEvaluator toEvaluator() {
+        int[] values = new int[7];
+        int[][] tables = new int[7][64];
+        for (int type = Pieces.PAWN; type <= Pieces.KING; type++) {
+            if (type != Pieces.KING) values[type] = (int) Math.round(weights[materialIndex(type)]);
+            for (int square = 0; square < 64; square++) {
+                tables[type][square] = (int) Math.round(weights[squareIndex(type, square)]);
+            }
+        }
+        return new ClassicEvaluator(values, tables);
+    }
+
+    /**
+     * Prints the tuned weights in the layout of the tables in {@link ClassicEvaluator}.
+     */
+    public void print(PrintStream out) {
+        ClassicEvaluator tuned = toEvaluator();
+        out.println("values " + Arrays.toString(tuned.pieceValues));
+        for (int type = Pieces.PAWN; type <= Pieces.KING; type++) {
+            out.println(Pieces.toChar(Pieces.make(Pieces.WHITE, type)) + " {");
+            for (int row = 7; row >= 0; row--) {
+                StringBuilder line = new StringBuilder("        ");
+                for (int col = 0; col < 8; col++) {
+                    line.append(tuned.pieceSquare[type][row * 8 + col]).append(row == 0 && col == 7 ? "" : ", ");
+                }
+                out.println(line.toString().stripTrailing());
+            }
+            out.println("},");
+        }
+    }
+
+    /**
+     * Labeled positions packed into primitive arrays: the pieces of position
+     * i are entries start(i) to start(i + 1) - 1, each a short holding the
+     * square in the low six bits and the piece code above it.
+     */
+    public static final class Dataset {
+        private short[] pieces = new short[1 << 16];
+        private int[] starts = new int[1 << 12];
+        private byte[] results = new byte[1 << 12];
+        private int size;
+        private int pieceCount;
+
+        /**
+         * Reads every labeled line, skipping ones without a readable result.
+         */
+        public static Dataset read(BufferedReader in) throws IOException {
+            Dataset data = new Dataset();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                double result = parseResult(line);
+                if (Double.isNaN(result)) continue;
+                try {
+                    data.add(Fen.parse(line.trim().split("\\s+", 2)[0]), result);
+                } catch (IllegalArgumentException e) {
+                    // Not a position, ignore it like a line without a result
+                }
+            }
+            return data;
+        }
+
+        /**
+         * @return white's score from the line, or NaN if it has none
+         */
+        static double parseResult(String line) {
+            if (line.contains("1/2-1/2")) return 0.5;
+            if (line.contains("1-0")) return 1;
+            if (line.contains("0-1")) return 0;
+            String[] tokens = line.trim().split("\\s+");
+            String last = tokens[tokens.length - 1].replaceAll("[\\[\\]\";]", "");
+            return switch (last) {
+                case "1", "1.0" -> 1;
+                case "0.5" -> 0.5;
+                case "0", "0.0" -> 0;
+                default -> Double.NaN;
+            };
+        }
+
+        /**
+         * @param result white's score, 0, 0.5 or 1
+         */
+        public void add(Position position, double result) {
+            if (size + 2 > starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                results = Arrays.copyOf(results, results.length * 2);
+            }
+            if (pieceCount + 64 > pieces.length) pieces = Arrays.copyOf(pieces, pieces.length * 2);
+            starts[size] = pieceCount;
+            results[size] = (byte) Math.round(result * 2);
+            for (int square = 0; square < 64; square++) {
+                int piece = position.squares[square];
+                if (piece != Pieces.EMPTY) pieces[pieceCount++] = (short) (square | piece << 6);
+            }
+            size++;
+            starts[size] = pieceCount;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        double result(int index) {
+            return results[index] / 2.0;
+        }
+
+        int start(int index) {
+            return starts[index];
+        }
+
+        int piece(int entry) {
+            return pieces[entry] >>> 6;
+        }
+
+        int square(int entry) {
+            return pieces[entry] & 63;
+        }
+    }
+}
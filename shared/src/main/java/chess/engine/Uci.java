@@ -0,0 +1,329 @@
+package chess.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Universal Chess Interface driver for the engine over stdin and stdout.
+ * <p>
+ * Supports uci, isready, ucinewgame, position (startpos or fen, with moves),
+ * go (depth, nodes, movetime, wtime/btime/winc/binc/movestogo, infinite),
+ * stop, setoption (Hash, Threads, MultiPV) and quit. Unknown commands are ignored as
+ * the protocol asks. With more than one thread, helper searches share the
+ * transposition table with the main search.
+ */
+public class Uci {
+
+    public static final String NAME = "240 Chess";
+
+    private static final int DEFAULT_HASH = 16;
+    private static final int MAX_HASH = 4096;
+    private static final int MAX_THREADS = 64;
+    private static final int MAX_MULTI_PV = 32;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final Evaluator evaluator = new ClassicEvaluator();
+    private final TranspositionTable table = new TranspositionTable(DEFAULT_HASH);
+    private final List<Search> searches = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+    private final Object stopSignal = new Object();
+
+    private Position position = Fen.parse(Fen.START);
+    private int threadCount = 1;
+    private int multiPv = 1;
+    private volatile boolean infinite;
+    private volatile boolean stopRequested;
+
+    public Uci(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new Uci(new BufferedReader(new InputStreamReader(System.in)), System.out).run();
+    }
+
+    /**
+     * Reads commands until quit or end of input. At end of input a running
+     * search is allowed to finish so piped scripts still get their bestmove.
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) {
+                stopSearch();
+                return;
+            }
+        }
+        waitForSearch();
+    }
+
+    /**
+     * @return False if the command was quit
+     */
+    boolean handle(String line) {
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line : line.substring(0, space);
+        switch (command) {
+            case "uci" -> {
+                out.println("id name " + NAME);
+                out.println("id author CS 240");
+                out.println("option name Hash type spin default " + DEFAULT_HASH + " min 1 max " + MAX_HASH);
+                out.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                out.println("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                out.println("uciok");
+            }
+            case "isready" -> out.println("readyok");
+            case "ucinewgame" -> {
+                stopSearch();
+                table.clear();
+                position = Fen.parse(Fen.START);
+            }
+            case "position" -> {
+                stopSearch();
+                setPosition(line);
+            }
+            case "go" -> {
+                stopSearch();
+                go(line);
+            }
+            case "stop" -> stopSearch();
+            case "setoption" -> {
+                stopSearch();
+                setOption(line);
+            }
+            case "quit" -> {
+                return false;
+            }
+            default -> { }
+        }
+        out.flush();
+        return true;
+    }
+
+    private void setPosition(String line) {
+        int movesAt = line.indexOf(" moves");
+        String spec = (movesAt < 0 ? line.substring("position".length()) : line.substring("position".length(), movesAt)).trim();
+        try {
+            if (spec.startsWith("fen")) {
+                position = Fen.parse(spec.substring(3));
+            } else {
+                position = Fen.parse(Fen.START);
+            }
+        } catch (IllegalArgumentException e) {
+            out.println("info string " + e.getMessage());
+            return;
+        }
+        if (movesAt < 0) return;
+
+        // Walk the move list in place, one token at a time
+        int length = line.length();
+        int index = movesAt + " moves".length();
+        while (index < length) {
+            while (index < length && line.charAt(index) == ' ') index++;
+            int end = index;
+            while (end < length && line.charAt(end) != ' ') end++;
+            if (end == index) break;
+            int move = Moves.parseUci(line, index, end);
+            if (!isLegal(move)) {
+                out.println("info string illegal move " + line.substring(index, end));
+                return;
+            }
+            position.makeMove(move);
+            index = end;
+        }
+    }
+
+    private boolean isLegal(int move) {
+        if (move == Moves.NONE) return false;
+        int count = MoveGenerator.generateLegal(position, legalMoves);
+        for (int i = 0; i < count; i++) {
+            if (legalMoves[i] == move) return true;
+        }
+        return false;
+    }
+
+    private void setOption(String line) {
+        int nameAt = line.indexOf("name ");
+        int valueAt = line.indexOf(" value ");
+        if (nameAt < 0 || valueAt < 0) return;
+        String name = line.substring(nameAt + 5, valueAt).trim();
+        int value;
+        try {
+            value = Integer.parseInt(line.substring(valueAt + 7).trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (name.equalsIgnoreCase("Hash")) {
+            table.resize(Math.max(1, Math.min(MAX_HASH, value)));
+        } else if (name.equalsIgnoreCase("Threads")) {
+            threadCount = Math.max(1, Math.min(MAX_THREADS, value));
+        } else if (name.equalsIgnoreCase("MultiPV")) {
+            multiPv = Math.max(1, Math.min(MAX_MULTI_PV, value));
+        }
+    }
+
+    private void go(String line) {
+        String[] tokens = line.split("\\s+");
+        int depth = SearchLimits.MAX_DEPTH;
+        long nodes = Long.MAX_VALUE;
+        long movetime = Long.MAX_VALUE;
+        long[] time = {-1, -1};
+        long[] increment = {0, 0};
+        int movesToGo = 0;
+        infinite = false;
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.equals("infinite")) {
+                infinite = true;
+                continue;
+            }
+            if (i + 1 >= tokens.length) break;
+            long value;
+            try {
+                value = Long.parseLong(tokens[i + 1]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            switch (token) {
+                case "depth" -> depth = (int) Math.max(1, Math.min(value, SearchLimits.MAX_DEPTH));
+                case "nodes" -> nodes = value;
+                case "movetime" -> movetime = value;
+                case "wtime" -> time[Pieces.WHITE] = value;
+                case "btime" -> time[Pieces.BLACK] = value;
+                case "winc" -> increment[Pieces.WHITE] = value;
+                case "binc" -> increment[Pieces.BLACK] = value;
+                case "movestogo" -> movesToGo = (int) value;
+                default -> {
+                    continue;
+                }
+            }
+            i++;
+        }
+        int side = position.sideToMove();
+        if (time[side] >= 0 && movetime == Long.MAX_VALUE && !infinite) {
+            movetime = SearchLimits.fromClock(time[side], increment[side], movesToGo).movetimeMillis();
+        }
+        startSearch(new SearchLimits(depth, nodes, movetime));
+    }
+
+    private void startSearch(SearchLimits limits) {
+        while (searches.size() < threadCount) {
+            searches.add(new Search(evaluator, table, SearchOptions.DEFAULT));
+        }
+        stopRequested = false;
+        Position root = new Position(position);
+        Search main = searches.get(0);
+        main.setListener(new SearchListener() {
+            @Override
+            public void iterationComplete(SearchResult result) {
+                printInfo(result, 0);
+            }
+
+            @Override
+            public void linesComplete(List<SearchResult> lines) {
+                for (int i = 0; i < lines.size(); i++) {
+                    printInfo(lines.get(i), multiPv > 1 ? i + 1 : 0);
+                }
+            }
+        });
+        // begin() runs here rather than on the new threads so a stop that
+        // arrives right after go cannot be lost
+        main.begin(root, limits, multiPv);
+        threads.clear();
+        for (int i = 1; i < threadCount; i++) {
+            Search helper = searches.get(i);
+            helper.setListener(null);
+            helper.begin(root, SearchLimits.infinite());
+            Thread thread = new Thread(() -> helper.resume(Long.MAX_VALUE), "uci-helper-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+        Thread mainThread = new Thread(() -> {
+            main.resume(Long.MAX_VALUE);
+            SearchResult result = main.result();
+            for (int i = 1; i < threadCount; i++) {
+                searches.get(i).stop();
+            }
+            if (infinite) {
+                // The protocol holds bestmove back until stop in infinite mode
+                synchronized (stopSignal) {
+                    while (!stopRequested) {
+                        try {
+                            stopSignal.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                }
+            }
+            out.println("bestmove " + Moves.toUci(result.bestMove()));
+            out.flush();
+        }, "uci-search");
+        mainThread.setDaemon(true);
+        threads.add(0, mainThread);
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    private void printInfo(SearchResult result, int lineNumber) {
+        StringBuilder sb = new StringBuilder("info depth ").append(result.depth());
+        if (lineNumber > 0) sb.append(" multipv ").append(lineNumber);
+        sb.append(" score ");
+        if (result.isMate()) {
+            sb.append("mate ").append(result.mateIn());
+        } else {
+            sb.append("cp ").append(result.score());
+        }
+        sb.append(" nodes ").append(result.nodes())
+                .append(" nps ").append(result.nodesPerSecond())
+                .append(" time ").append(result.elapsedMillis())
+                .append(" pv");
+        for (int move : result.principalVariation()) {
+            sb.append(' ').append(Moves.toUci(move));
+        }
+        out.println(sb);
+        out.flush();
+    }
+
+    private void stopSearch() {
+        synchronized (stopSignal) {
+            stopRequested = true;
+            stopSignal.notifyAll();
+        }
+        for (Search search : searches) {
+            search.stop();
+        }
+        joinThreads();
+    }
+
+    private void waitForSearch() {
+        if (!threads.isEmpty() && !infinite) {
+            try {
+                threads.get(0).join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        stopSearch();
+    }
+
+    private void joinThreads() {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+    }
+}
@@ -0,0 +1,46 @@
+package chess.engine;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BatchEvaluator.BatchKernel} scoring one position per long lane.
+ * <p>
+ * For each piece kind the lanes' bitboards are ORed together, and only the
+ * squares in that union are visited; a lane without the piece there adds
+ * zero, since its bit times the table value is zero.
+ */
+final class VectorBatchKernel implements BatchEvaluator.BatchKernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void evaluate(long[][] pieces, long[] signs, int count, long[][] table, int[] scores) {
+        long[] lanes = new long[LONGS.length()];
+        int i = 0;
+        for (int bound = LONGS.loopBound(count); i < bound; i += LONGS.length()) {
+            LongVector sum = LongVector.zero(LONGS);
+            for (int kind = 0; kind < 12; kind++) {
+                LongVector bitboards = LongVector.fromArray(LONGS, pieces[kind], i);
+                long[] values = table[kind];
+                for (long union = bitboards.reduceLanes(VectorOperators.OR); union != 0; union &= union - 1) {
+                    int square = Long.numberOfTrailingZeros(union);
+                    sum = sum.add(bitboards.lanewise(VectorOperators.LSHR, square).and(1L).mul(values[square]));
+                }
+            }
+            sum.mul(LongVector.fromArray(LONGS, signs, i)).intoArray(lanes, 0);
+            for (int lane = 0; lane < lanes.length; lane++) {
+                scores[i + lane] = (int) lanes[lane];
+            }
+        }
+        for (; i < count; i++) {
+            scores[i] = BatchEvaluator.BatchKernel.Scalar.score(pieces, signs, table, i);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector " + LONGS.vectorBitSize() + " bit";
+    }
+}
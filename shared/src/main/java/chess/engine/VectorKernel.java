@@ -0,0 +1,71 @@
+package chess.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link NnueKernel} using the Vector API at the widest size the CPU
+ * supports, with plain loops for the lanes left over at the end.
+ */
+final class VectorKernel implements NnueKernel {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    // Same bit size, so each short vector widens into two of these
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset, int length) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(length); i < bound; i += SHORTS.length()) {
+            ShortVector sum = ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, weightOffset + i));
+            sum.intoArray(accumulator, accumulatorOffset + i);
+        }
+        for (; i < length; i++) {
+            accumulator[accumulatorOffset + i] += weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset, int length) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(length); i < bound; i += SHORTS.length()) {
+            ShortVector difference = ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, weightOffset + i));
+            difference.intoArray(accumulator, accumulatorOffset + i);
+        }
+        for (; i < length; i++) {
+            accumulator[accumulatorOffset + i] -= weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    public int clippedDot(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset, int length,
+                          int clip) {
+        IntVector sums = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = SHORTS.loopBound(length); i < bound; i += SHORTS.length()) {
+            ShortVector values = ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                    .max((short) 0).min((short) clip);
+            ShortVector factors = ShortVector.fromArray(SHORTS, weights, weightOffset + i);
+            for (int part = 0; part < 2; part++) {
+                IntVector wideValues = (IntVector) values.convertShape(VectorOperators.S2I, INTS, part);
+                IntVector wideFactors = (IntVector) factors.convertShape(VectorOperators.S2I, INTS, part);
+                sums = sums.add(wideValues.mul(wideFactors));
+            }
+        }
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            int value = Math.min(Math.max(accumulator[accumulatorOffset + i], 0), clip);
+            sum += value * weights[weightOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector " + SHORTS.vectorBitSize() + " bit";
+    }
+}
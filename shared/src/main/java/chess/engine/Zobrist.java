@@ -0,0 +1,54 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPosition;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * The keys come from a fixed seed so a position hashes to the same value in
+ * every run, which lets hashes be stored and compared across processes.
+ */
+public final class Zobrist {
+
+    static final long[][] PIECE_SQUARE = new long[16][64];
+    static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x240C4E55L);
+        for (int piece = 0; piece < 16; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = Pieces.type(piece) == Pieces.EMPTY ? 0 : random.nextLong();
+            }
+        }
+        SIDE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    public static long pieceSquare(int piece, int square) {
+        return PIECE_SQUARE[piece][square];
+    }
+
+    public static long sideToMove() {
+        return SIDE_TO_MOVE;
+    }
+
+    /**
+     * Hashes a board directly, giving the same key as {@link Position#key()} would
+     * for the same pieces and side to move.
+     */
+    public static long hash(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        long key = sideToMove == ChessGame.TeamColor.BLACK ? SIDE_TO_MOVE : 0;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                int piece = Pieces.fromChessPiece(board.getPiece(new ChessPosition(row, col)));
+                key ^= PIECE_SQUARE[piece][Moves.square(row, col)];
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,3 @@
+package model;
+
+public record AuthData(String authToken, String username) {}
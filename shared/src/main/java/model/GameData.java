@@ -0,0 +1,23 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * A game and its players; a seat is null while it is open.
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+
+    public String username(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? whiteUsername : blackUsername;
+    }
+
+    public GameData withPlayer(ChessGame.TeamColor color, String username) {
+        return color == ChessGame.TeamColor.WHITE
+                ? new GameData(gameID, username, blackUsername, gameName, game)
+                : new GameData(gameID, whiteUsername, username, gameName, game);
+    }
+
+    public GameData withGame(ChessGame game) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+    }
+}
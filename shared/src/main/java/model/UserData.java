@@ -0,0 +1,6 @@
+package model;
+
+/**
+ * A registered user. The password is whatever the service stores, normally a bcrypt hash.
+ */
+public record UserData(String username, String password, String email) {}
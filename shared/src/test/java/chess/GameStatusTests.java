@@ -0,0 +1,87 @@
+package chess;
+
+import chess.ChessGame.GameStatus;
+import chess.engine.Fen;
+import chess.engine.Moves;
+import chess.engine.Pieces;
+import chess.engine.Position;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GameStatusTests {
+
+    private static ChessGame game(String fen) {
+        Position position = Fen.parse(fen);
+        return new ChessGame(position.toBoard(), Pieces.toTeamColor(position.sideToMove()));
+    }
+
+    private static void play(ChessGame game, String... moves) throws Exception {
+        for (String move : moves) {
+            game.makeMove(Moves.toChessMove(Moves.parseUci(move)));
+        }
+    }
+
+    @Test
+    @DisplayName("Checkmate And Stalemate")
+    public void mateAndStalemate() throws Exception {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(GameStatus.IN_PROGRESS, game.evaluateStatus());
+        play(game, "f2f3", "e7e5", "g2g4", "d8h4");
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.evaluateStatus());
+
+        Assertions.assertEquals(GameStatus.STALEMATE, game("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1").evaluateStatus());
+    }
+
+    @Test
+    @DisplayName("Insufficient Material")
+    public void insufficientMaterial() throws Exception {
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, game("8/8/3k4/8/8/2N5/8/4K3 w - - 0 1").evaluateStatus());
+        // Bishops on the same color cannot mate, on opposite colors they can
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, game("8/8/3k1b2/8/8/2B5/8/4K3 w - - 0 1").evaluateStatus());
+        Assertions.assertEquals(GameStatus.IN_PROGRESS, game("8/8/3kb3/8/8/2B5/8/4K3 w - - 0 1").evaluateStatus());
+
+        // Capturing the last pawn leaves bare kings
+        ChessGame game = game("8/8/3k4/3p4/8/8/8/3RK3 w - - 0 1");
+        Assertions.assertEquals(GameStatus.IN_PROGRESS, game.evaluateStatus());
+        play(game, "d1d5", "d6d5");
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, game.evaluateStatus());
+
+        // The pawn is gone once it promotes, so capturing the queen leaves bare kings
+        game = game("8/Pk6/8/8/8/8/8/4K3 w - - 0 1");
+        play(game, "a7a8q");
+        Assertions.assertEquals(GameStatus.IN_PROGRESS, game.evaluateStatus());
+        play(game, "b7a8");
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, game.evaluateStatus());
+    }
+
+    @Test
+    @DisplayName("Threefold Repetition And Fifty Moves")
+    public void repetitionAndFiftyMoves() throws Exception {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < 2; i++) play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertEquals(GameStatus.THREEFOLD_REPETITION, game.evaluateStatus());
+
+        // The rook tours six ranks and then the king walks, so no position repeats
+        List<String> white = new ArrayList<>();
+        String from = "a1";
+        for (int row = 1; row <= 6; row++) {
+            for (int i = 0; i < 6; i++) {
+                String to = (char) (row % 2 == 1 ? 'a' + i : 'f' - i) + String.valueOf(row);
+                if (!to.equals(from)) white.add(from + to);
+                from = to;
+            }
+        }
+        String[] king = {"h1", "h2", "h3", "h4", "h5", "h6", "g5", "g4", "g3", "g2", "g1", "f2", "e3", "d4", "e5", "f4"};
+        for (int i = 1; i < king.length; i++) white.add(king[i - 1] + king[i]);
+        Assertions.assertEquals(50, white.size());
+
+        game = game("7k/8/8/8/8/8/8/R6K w - - 0 1");
+        for (int i = 0; i < white.size(); i++) {
+            Assertions.assertEquals(GameStatus.IN_PROGRESS, game.evaluateStatus());
+            play(game, white.get(i), i % 2 == 0 ? "h8g8" : "g8h8");
+        }
+        Assertions.assertEquals(GameStatus.FIFTY_MOVE_RULE, game.evaluateStatus());
+    }
+}
@@ -0,0 +1,71 @@
+package chess;
+
+import chess.engine.Fen;
+import chess.engine.Moves;
+import chess.engine.Position;
+import org.junit.jupiter.api.*;
+
+public class RepetitionTests {
+
+    private static final String[] SHUFFLE = {"g1f3", "g8f6", "f3g1", "f6g8"};
+
+    private static void play(ChessGame game, String... moves) throws Exception {
+        for (String move : moves) {
+            game.makeMove(Moves.toChessMove(Moves.parseUci(move)));
+        }
+    }
+
+    @Test
+    @DisplayName("Knight Shuffle Repeats Three Times")
+    public void threefold() throws Exception {
+        ChessGame game = new ChessGame();
+        play(game, SHUFFLE);
+        Assertions.assertFalse(game.isThreefoldRepetition());
+        Assertions.assertEquals(1, game.getHistory().repetitions());
+        play(game, SHUFFLE);
+        Assertions.assertTrue(game.isThreefoldRepetition());
+        Assertions.assertEquals(8, game.getHistory().halfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Pawn Move Starts A New Window")
+    public void pawnMoveResets() throws Exception {
+        ChessGame game = new ChessGame();
+        play(game, SHUFFLE);
+        play(game, "e2e4", "e7e5");
+        play(game, SHUFFLE);
+        Assertions.assertEquals(1, game.getHistory().repetitions());
+        Assertions.assertEquals(4, game.getHistory().halfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Position Keeps The Game History")
+    public void positionFromGame() throws Exception {
+        ChessGame game = new ChessGame();
+        play(game, SHUFFLE);
+        play(game, SHUFFLE);
+        Position position = Position.fromGame(game);
+        Assertions.assertEquals(2, position.repetitions());
+        Assertions.assertEquals(2, new Position(position).repetitions());
+
+        // The same shuffle on the engine side gives the same keys
+        Position engine = Fen.parse(Fen.START);
+        for (int i = 0; i < 2; i++) {
+            for (String move : SHUFFLE) engine.makeMove(Moves.parseUci(move));
+        }
+        Assertions.assertEquals(position.key(), engine.key());
+        Assertions.assertEquals(2, engine.repetitions());
+        engine.makeMove(Moves.parseUci("e2e4"));
+        Assertions.assertFalse(engine.isRepetition());
+    }
+
+    @Test
+    @DisplayName("Changing The Board Clears The History")
+    public void setBoardClears() throws Exception {
+        ChessGame game = new ChessGame();
+        play(game, SHUFFLE);
+        game.setBoard(Fen.parse(Fen.START).toBoard());
+        Assertions.assertTrue(game.getHistory().isEmpty());
+        Assertions.assertEquals(0, Position.fromGame(game).repetitions());
+    }
+}
@@ -0,0 +1,69 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class BatchEvaluatorTests {
+
+    // Positions from random games, a count that leaves a remainder for any vector size
+    private static List<Position> positions() {
+        SplittableRandom random = new SplittableRandom(21);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        List<Position> positions = new ArrayList<>();
+        Position position = Fen.parse(Fen.START);
+        while (positions.size() < 203) {
+            int legal = MoveGenerator.generateLegal(position, moves);
+            if (legal == 0) {
+                position = Fen.parse(Fen.START);
+                continue;
+            }
+            position.makeMove(moves[random.nextInt(legal)]);
+            positions.add(new Position(position));
+        }
+        return positions;
+    }
+
+    private static void assertMatches(ClassicEvaluator classic, BatchEvaluator.BatchKernel kernel) {
+        List<Position> positions = positions();
+        BatchEvaluator.Batch batch = new BatchEvaluator.Batch(positions.size());
+        positions.forEach(batch::add);
+        int[] scores = new int[positions.size()];
+        new BatchEvaluator(classic, kernel).evaluate(batch, scores);
+        for (int i = 0; i < positions.size(); i++) {
+            Assertions.assertEquals(classic.evaluate(positions.get(i)), scores[i], Fen.toFen(positions.get(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Batch Scores Match The Evaluator")
+    public void matches() {
+        assertMatches(new ClassicEvaluator(), BatchEvaluator.BatchKernel.best());
+        assertMatches(new ClassicEvaluator(), new BatchEvaluator.BatchKernel.Scalar());
+    }
+
+    @Test
+    @DisplayName("Uses The Evaluator's Weights")
+    public void customWeights() {
+        int[][] tables = ClassicEvaluator.defaultTables();
+        tables[Pieces.KNIGHT][Moves.square(3, 4)] = 77;
+        ClassicEvaluator tuned = new ClassicEvaluator(new int[]{0, 90, 310, 340, 480, 950, 0}, tables);
+        assertMatches(tuned, BatchEvaluator.BatchKernel.best());
+    }
+
+    @Test
+    @DisplayName("Batches Can Be Reused")
+    public void reuse() {
+        BatchEvaluator evaluator = new BatchEvaluator(new ClassicEvaluator());
+        BatchEvaluator.Batch batch = new BatchEvaluator.Batch(1);
+        batch.add(Fen.parse("4k3/8/8/8/8/8/8/3QK3 w - - 0 1"));
+        Assertions.assertThrows(IllegalStateException.class, () -> batch.add(Fen.parse(Fen.START)));
+        batch.clear();
+        batch.add(Fen.parse(Fen.START));
+        int[] scores = new int[1];
+        evaluator.evaluate(batch, scores);
+        Assertions.assertEquals(0, scores[0]);
+    }
+}
@@ -0,0 +1,89 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.function.Supplier;
+
+public class EpdRunnerTests {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - -";
+
+    @Test
+    @DisplayName("Parses Standard Algebraic Notation")
+    public void san() {
+        Position start = Fen.parse(Fen.START);
+        Assertions.assertEquals(Moves.parseUci("g1f3"), Moves.parseSan(start, "Nf3"));
+        Assertions.assertEquals(Moves.parseUci("e2e4"), Moves.parseSan(start, "e4"));
+        Assertions.assertEquals(Moves.NONE, Moves.parseSan(start, "e5"));
+
+        // Both knights can reach d2, so the file is needed
+        Position knights = Fen.parse("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        Assertions.assertEquals(Moves.NONE, Moves.parseSan(knights, "Nd2"));
+        Assertions.assertEquals(Moves.parseUci("b1d2"), Moves.parseSan(knights, "Nbd2"));
+
+        Position promotion = Fen.parse("3r3k/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        Assertions.assertEquals(Moves.parseUci("e7d8n"), Moves.parseSan(promotion, "exd8=N+"));
+        Assertions.assertEquals(Moves.parseUci("e7e8q"), Moves.parseSan(promotion, "e8Q"));
+    }
+
+    @Test
+    @DisplayName("Parses EPD Operations")
+    public void parse() {
+        EpdRunner.EpdPosition epd = EpdRunner.EpdPosition.parse(
+                "6k1/5ppp/8/8/8/8/8/R5K1 w - - bm Ra8#; id \"back; rank\";", "fallback");
+        Assertions.assertEquals("back; rank", epd.id());
+        Assertions.assertArrayEquals(new int[]{Moves.parseUci("a1a8")}, epd.bestMoves());
+        Assertions.assertTrue(epd.accepts(Moves.parseUci("a1a8")));
+        Assertions.assertFalse(epd.accepts(Moves.parseUci("a1a7")));
+
+        EpdRunner.EpdPosition avoid = EpdRunner.EpdPosition.parse(START + " am f3 g4;", "start");
+        Assertions.assertEquals("start", avoid.id());
+        Assertions.assertFalse(avoid.accepts(Moves.parseUci("f2f3")));
+        Assertions.assertTrue(avoid.accepts(Moves.parseUci("e2e4")));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> EpdRunner.EpdPosition.parse(START + " bm Ke2;", "bad"));
+    }
+
+    @Test
+    @DisplayName("Reports Solve Rate")
+    public void run() throws Exception {
+        String suite = """
+                6k1/5ppp/8/8/8/8/8/R5K1 w - - bm Ra8#; id "mate";
+                r1b2rk1/ppp2ppp/8/4N3/2Bq4/8/PPP2PPP/R2Q1RK1 w - - bm Qxd4; id "queen";
+                r1b2rk1/ppp2ppp/8/4N3/2Bq4/8/PPP2PPP/R2Q1RK1 w - - bm Nf3; id "wrong";
+                not an epd line
+                """;
+        var bytes = new ByteArrayOutputStream();
+        EpdRunner.Summary summary = new EpdRunner(SearchLimits.depth(4), 2, 1)
+                .run(new BufferedReader(new StringReader(suite)), new PrintStream(bytes, true));
+        Assertions.assertEquals(3, summary.positions());
+        Assertions.assertEquals(2, summary.solved());
+        Assertions.assertTrue(bytes.toString().contains("skipped line 4"), bytes.toString());
+    }
+
+    @Test
+    @DisplayName("Counts A Search That Throws")
+    public void searchThrows() throws Exception {
+        String suite = """
+                8/8/8/8/8/8/4P3/8 w - - bm e3; id "kingless";
+                6k1/5ppp/8/8/8/8/8/R5K1 w - - bm Ra8#; id "mate";
+                """;
+        // Fails on the position with no kings, as an evaluator with a bug might
+        Supplier<Evaluator> evaluators = () -> position -> {
+            if (position.kingSquare[Pieces.WHITE] < 0) throw new IllegalStateException("no king");
+            return new ClassicEvaluator().evaluate(position);
+        };
+        var bytes = new ByteArrayOutputStream();
+        EpdRunner.Summary summary = new EpdRunner(SearchLimits.depth(4), 1, 1, evaluators)
+                .run(new BufferedReader(new StringReader(suite)), new PrintStream(bytes, true));
+        Assertions.assertEquals(2, summary.positions());
+        Assertions.assertEquals(1, summary.solved());
+        Assertions.assertEquals(1, summary.errors());
+        Assertions.assertTrue(bytes.toString().contains("failed line 1"), bytes.toString());
+    }
+}
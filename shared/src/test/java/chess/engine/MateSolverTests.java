@@ -0,0 +1,43 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+public class MateSolverTests {
+
+    @Test
+    @DisplayName("Finds Mate In Two")
+    public void mateInTwo() {
+        Position position = Fen.parse("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w - - 1 0");
+        MateSolver.Result result = new MateSolver().solve(position, 2);
+        Assertions.assertEquals(MateSolver.Outcome.MATE, result.outcome());
+        Assertions.assertEquals(Moves.parseUci("d5f6"), result.move());
+        Assertions.assertEquals(MateSolver.Outcome.NO_MATE, new MateSolver().solve(position, 1).outcome());
+    }
+
+    @Test
+    @DisplayName("No Mate From The Start")
+    public void noMate() {
+        Assertions.assertEquals(MateSolver.Outcome.NO_MATE, new MateSolver().solve(Fen.parse(Fen.START), 2).outcome());
+    }
+
+    @Test
+    @DisplayName("Checks Uniqueness Of Solutions")
+    public void uniqueness() {
+        Position unique = Fen.parse("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1");
+        Assertions.assertEquals(List.of(Moves.parseUci("a1a6")), new MateSolver().solutions(unique, 2));
+
+        Position twoRooks = Fen.parse("6k1/5ppp/8/8/8/8/8/RR4K1 w - - 0 1");
+        Assertions.assertEquals(2, new MateSolver().solutions(twoRooks, 1).size());
+    }
+
+    @Test
+    @DisplayName("Budget Exhaustion Is Unknown")
+    public void budget() {
+        Position position = Fen.parse("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w - - 1 0");
+        MateSolver.Result result = new MateSolver(1 << 10, 5).solve(position, 2);
+        Assertions.assertEquals(MateSolver.Outcome.UNKNOWN, result.outcome());
+        Assertions.assertNull(new MateSolver(1 << 10, 5).solutions(position, 2));
+    }
+}
@@ -0,0 +1,53 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.List;
+
+public class MultiPvTests {
+
+    @Test
+    @DisplayName("Lines Are Distinct And Ranked")
+    public void distinctRankedLines() {
+        List<SearchResult> lines = new Search().analyze(Fen.parse(Fen.START), SearchLimits.depth(5), 4);
+        Assertions.assertEquals(4, lines.size());
+        var firstMoves = new HashSet<Integer>();
+        for (int i = 0; i < lines.size(); i++) {
+            SearchResult line = lines.get(i);
+            Assertions.assertTrue(firstMoves.add(line.bestMove()), "Two lines start with the same move");
+            Assertions.assertEquals(line.bestMove(), line.principalVariation()[0]);
+            if (i > 0) Assertions.assertTrue(lines.get(i - 1).score() >= line.score(), "Lines not ranked");
+        }
+    }
+
+    @Test
+    @DisplayName("Best Line Wins The Queen")
+    public void bestLineFirst() {
+        Position position = Fen.parse("r1b2rk1/ppp2ppp/8/4N3/2Bq4/8/PPP2PPP/R2Q1RK1 w - - 0 1");
+        List<SearchResult> lines = new Search().analyze(position, SearchLimits.depth(4), 3);
+        Assertions.assertEquals(Moves.parseUci("d1d4"), lines.get(0).bestMove());
+        // Bxf7+ also wins the queen a move later, so only the last line is far behind
+        Assertions.assertTrue(lines.get(0).score() > lines.get(2).score() + 500);
+    }
+
+    @Test
+    @DisplayName("No More Lines Than Legal Moves")
+    public void fewerLegalMoves() {
+        // The black king has only three squares
+        Position position = Fen.parse("k7/8/8/8/8/8/8/2R4K b - - 0 1");
+        List<SearchResult> lines = new Search().analyze(position, SearchLimits.depth(3), 5);
+        Assertions.assertEquals(3, lines.size());
+    }
+
+    @Test
+    @DisplayName("Shared Table Makes Lines Cheaper Than Separate Searches")
+    public void cheaperThanSeparateSearches() {
+        Position position = Fen.parse(Fen.START);
+        long single = new Search().search(position, SearchLimits.depth(6)).nodes();
+        var search = new Search();
+        search.analyze(position, SearchLimits.depth(6), 4);
+        Assertions.assertTrue(search.nodes() < single * 4,
+                "Four lines took " + search.nodes() + " nodes, one line took " + single);
+    }
+}
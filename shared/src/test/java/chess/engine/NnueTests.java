@@ -0,0 +1,86 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+public class NnueTests {
+
+    private static final NnueEvaluator.Network NETWORK = NnueEvaluator.Network.random(40, 3);
+
+    // A fresh evaluator has nothing cached, so it builds the accumulators from scratch
+    private static int fromScratch(Position position) {
+        return new NnueEvaluator(NETWORK, new NnueKernel.Scalar()).evaluate(position);
+    }
+
+    @Test
+    @DisplayName("Incremental Updates Match A Full Refresh")
+    public void incremental() {
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        SplittableRandom random = new SplittableRandom(11);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        // Promotions and captures come up quickly from here
+        Position position = Fen.parse("r3k2r/1P4P1/8/3pp3/3PP3/8/1p4p1/R3K2R w - - 0 1");
+        for (int i = 0; i < 400; i++) {
+            int legal = MoveGenerator.generateLegal(position, moves);
+            if (legal == 0 || random.nextInt(4) == 0 && position.movesMade() > 0) {
+                position.unmakeMove();
+            } else if (random.nextInt(10) == 0 && !position.inCheck()) {
+                position.makeNullMove();
+                Assertions.assertEquals(fromScratch(position), evaluator.evaluate(position));
+                position.unmakeNullMove();
+            } else {
+                position.makeMove(moves[random.nextInt(legal)]);
+            }
+            Assertions.assertEquals(fromScratch(position), evaluator.evaluate(position), Fen.toFen(position));
+        }
+    }
+
+    @Test
+    @DisplayName("Vector And Scalar Kernels Agree")
+    public void kernels() {
+        NnueKernel vector = NnueKernel.best();
+        NnueKernel scalar = new NnueKernel.Scalar();
+        SplittableRandom random = new SplittableRandom(5);
+        // 37 lanes leaves a remainder for any vector size
+        short[] weights = new short[37];
+        short[] a = new short[37];
+        for (int i = 0; i < 37; i++) {
+            weights[i] = (short) random.nextInt(-200, 200);
+            a[i] = (short) random.nextInt(-400, 400);
+        }
+        short[] b = a.clone();
+        vector.add(a, 0, weights, 0, 37);
+        scalar.add(b, 0, weights, 0, 37);
+        Assertions.assertArrayEquals(b, a);
+        vector.subtract(a, 1, weights, 0, 36);
+        scalar.subtract(b, 1, weights, 0, 36);
+        Assertions.assertArrayEquals(b, a);
+        Assertions.assertEquals(scalar.clippedDot(a, 0, weights, 0, 37, 255),
+                vector.clippedDot(a, 0, weights, 0, 37, 255));
+
+        Position start = Fen.parse(Fen.START);
+        Assertions.assertEquals(fromScratch(start), new NnueEvaluator(NETWORK, vector).evaluate(start));
+    }
+
+    @Test
+    @DisplayName("Weights Survive A Round Trip")
+    public void roundTrip() throws Exception {
+        Path file = Files.createTempFile("network", ".nnue");
+        try {
+            NETWORK.write(file);
+            NnueEvaluator.Network read = NnueEvaluator.Network.read(file);
+            Assertions.assertEquals(NETWORK.hidden(), read.hidden());
+            Position position = Fen.parse("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 2 3");
+            Assertions.assertEquals(fromScratch(position), new NnueEvaluator(read).evaluate(position));
+            // Symmetric positions score the same for either side to move
+            Position start = Fen.parse(Fen.START);
+            Position black = Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b - - 0 1");
+            Assertions.assertEquals(fromScratch(start), fromScratch(black));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
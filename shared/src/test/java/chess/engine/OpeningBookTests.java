@@ -0,0 +1,124 @@
+package chess.engine;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class OpeningBookTests {
+
+    @TempDir
+    Path directory;
+
+    private Path writeBook() throws Exception {
+        Position start = Fen.parse(Fen.START);
+        Position afterE4 = new Position(start);
+        afterE4.makeMove(Moves.parseUci("e2e4"));
+        List<OpeningBook.BookEntry> entries = new ArrayList<>();
+        entries.add(new OpeningBook.BookEntry(start.key(), Moves.parseUci("d2d4"), 10));
+        entries.add(new OpeningBook.BookEntry(start.key(), Moves.parseUci("e2e4"), 30));
+        // Castling is not a legal move in this game, so the reader must skip it
+        entries.add(new OpeningBook.BookEntry(start.key(), Moves.parseUci("e1h1"), 50));
+        entries.add(new OpeningBook.BookEntry(afterE4.key(), Moves.parseUci("c7c5"), 5));
+        // Filler so the entries spread across several mapped segments
+        var random = new SplittableRandom(7);
+        for (int i = 0; i < 100; i++) {
+            entries.add(new OpeningBook.BookEntry(random.nextLong(), Moves.parseUci("a2a3"), 1));
+        }
+        Path path = directory.resolve("book.bin");
+        OpeningBook.write(path, entries);
+        return path;
+    }
+
+    @Test
+    @DisplayName("Finds Legal Moves By Weight")
+    public void lookup() throws Exception {
+        OpeningBook book = OpeningBook.open(writeBook(), Position::key, 64);
+        Assertions.assertEquals(104, book.size());
+        List<OpeningBook.Entry> entries = book.lookup(Fen.parse(Fen.START));
+        Assertions.assertEquals(2, entries.size());
+        Assertions.assertEquals(Moves.parseUci("e2e4"), entries.get(0).move());
+        Assertions.assertEquals(Moves.parseUci("d2d4"), entries.get(1).move());
+
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(Moves.toChessMove(Moves.parseUci("e2e4")), book.bestMove(game));
+    }
+
+    @Test
+    @DisplayName("Unknown Position Has No Move")
+    public void missing() throws Exception {
+        OpeningBook book = OpeningBook.open(writeBook());
+        Position position = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Assertions.assertTrue(book.lookup(position).isEmpty());
+        Assertions.assertEquals(Moves.NONE, book.pickMove(position, new SplittableRandom(1)));
+    }
+
+    @Test
+    @DisplayName("Polyglot Move Encoding Round Trips")
+    public void moveEncoding() {
+        // e2e4 in Polyglot is to file 4, to row 3, from file 4, from row 1
+        Assertions.assertEquals(4 | 3 << 3 | 4 << 6 | 1 << 9, OpeningBook.toPolyglotMove(Moves.parseUci("e2e4")));
+        for (String uci : new String[]{"a7a8q", "h2h1n", "b1c3", "g7g8r"}) {
+            int move = Moves.parseUci(uci);
+            Assertions.assertEquals(move, OpeningBook.fromPolyglotMove(OpeningBook.toPolyglotMove(move)));
+        }
+    }
+
+    private static long keyAfter(String... moves) {
+        Position position = Fen.parse(Fen.START);
+        for (String move : moves) {
+            position.makeMove(Moves.parseUci(move));
+        }
+        return PolyglotKey.key(position);
+    }
+
+    @Test
+    @DisplayName("Polyglot Keys Match The Published Values")
+    public void polyglotKeys() {
+        Assertions.assertEquals(0x463B96181691FC9CL, keyAfter());
+        Assertions.assertEquals(0x823C9B50FD114196L, keyAfter("e2e4"));
+        Assertions.assertEquals(0x0756B94461C50FB0L, keyAfter("e2e4", "d7d5"));
+        Assertions.assertEquals(0x662FAFB965DB29D4L, keyAfter("e2e4", "d7d5", "e4e5"));
+        // The double push lands beside a white pawn, so the en passant file counts
+        Assertions.assertEquals(0x22A48B5A8E47FF78L, keyAfter("e2e4", "d7d5", "e4e5", "f7f5"));
+        // Moving the king gives up castling
+        Assertions.assertEquals(0x652A607CA3F242C1L, keyAfter("e2e4", "d7d5", "e4e5", "f7f5", "e1e2"));
+        Assertions.assertEquals(0x00FDD303C946BDD9L, keyAfter("e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7"));
+        Assertions.assertEquals(0x3C8123EA7B067637L, keyAfter("a2a4", "b7b5", "h2h4", "b5b4", "c2c4"));
+        // Moving a rook gives up castling on its side only
+        Assertions.assertEquals(0x5C3F9B829B279560L,
+                PolyglotKey.key(Fen.parse("rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4")));
+    }
+
+    @Test
+    @DisplayName("Reads A Book Keyed The Polyglot Way")
+    public void polyglotBook() throws Exception {
+        Path path = directory.resolve("polyglot.bin");
+        OpeningBook.write(path, List.of(
+                new OpeningBook.BookEntry(0x463B96181691FC9CL, Moves.parseUci("e2e4"), 1),
+                new OpeningBook.BookEntry(0x823C9B50FD114196L, Moves.parseUci("c7c5"), 1)));
+        OpeningBook book = OpeningBook.open(path);
+        Assertions.assertEquals(Moves.parseUci("e2e4"), book.bestMove(Fen.parse(Fen.START)));
+        Position afterE4 = Fen.parse(Fen.START);
+        afterE4.makeMove(Moves.parseUci("e2e4"));
+        Assertions.assertEquals(Moves.parseUci("c7c5"), book.bestMove(afterE4));
+    }
+
+    @Test
+    @DisplayName("Keys A Game's En Passant File From Its Last Move")
+    public void polyglotGame() throws Exception {
+        Path path = directory.resolve("polyglot.bin");
+        OpeningBook.write(path, List.of(
+                new OpeningBook.BookEntry(0x22A48B5A8E47FF78L, Moves.parseUci("d2d4"), 1)));
+        OpeningBook book = OpeningBook.open(path);
+        var game = new ChessGame();
+        for (String move : List.of("e2e4", "d7d5", "e4e5", "f7f5")) {
+            game.makeMove(Moves.toChessMove(Moves.parseUci(move)));
+        }
+        Assertions.assertEquals(Moves.toChessMove(Moves.parseUci("d2d4")), book.bestMove(game));
+    }
+}
@@ -0,0 +1,82 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+public class PruningTests {
+
+    // Small tactical suite: FEN, then either the expected move or "mate N"
+    private static final String[][] SUITE = {
+            {"r3k3/8/8/1N6/8/8/8/4K3 w - - 0 1", "b5c7"},
+            {"6k1/pp3ppp/8/8/8/2n5/PP3PPP/3R2K1 b - - 0 1", "c3d1"},
+            {"r1b2rk1/ppp2ppp/8/4N3/2Bq4/8/PPP2PPP/R2Q1RK1 w - - 0 1", "d1d4"},
+            {"2r3k1/5ppp/8/8/8/8/5PPP/2R1R1K1 w - - 0 1", "mate 1"},
+            {"6rk/6pp/8/6N1/8/8/1Q6/6K1 w - - 0 1", "mate 1"},
+            {"7k/8/8/8/8/8/R7/1R4K1 w - - 0 1", "mate 2"},
+            {"6k1/8/8/8/8/8/8/4QRK1 w - - 0 1", "mate 2"},
+    };
+
+    private static final int DEPTH = 5;
+
+    private static int solved(SearchOptions options) {
+        int solved = 0;
+        for (String[] test : SUITE) {
+            var search = new Search(new ClassicEvaluator(), new TranspositionTable(8), options);
+            SearchResult result = search.search(Fen.parse(test[0]), SearchLimits.depth(DEPTH));
+            if (test[1].startsWith("mate ")) {
+                if (result.isMate() && result.mateIn() == Integer.parseInt(test[1].substring(5))) solved++;
+            } else if (Moves.toUci(result.bestMove()).equals(test[1])) {
+                solved++;
+            }
+        }
+        return solved;
+    }
+
+    @Test
+    @DisplayName("Full Width Search Solves Suite")
+    public void fullWidthSolves() {
+        Assertions.assertEquals(SUITE.length, solved(SearchOptions.FULL_WIDTH));
+    }
+
+    @Test
+    @DisplayName("Each Pruning Technique Keeps Solve Rate")
+    public void eachTechniqueSolves() {
+        SearchOptions none = SearchOptions.FULL_WIDTH;
+        Assertions.assertEquals(SUITE.length, solved(none.withNullMovePruning(true)), "Null move pruning");
+        Assertions.assertEquals(SUITE.length, solved(none.withLateMoveReductions(true)), "Late move reductions");
+        Assertions.assertEquals(SUITE.length, solved(none.withFutilityPruning(true)), "Futility pruning");
+        Assertions.assertEquals(SUITE.length, solved(SearchOptions.DEFAULT), "All pruning");
+    }
+
+    @Test
+    @DisplayName("Pruning Searches Fewer Nodes")
+    public void pruningSavesNodes() {
+        Position start = Fen.parse(Fen.START);
+        long full = new Search(new ClassicEvaluator(), new TranspositionTable(8), SearchOptions.FULL_WIDTH)
+                .search(start, SearchLimits.depth(6)).nodes();
+        long pruned = new Search(new ClassicEvaluator(), new TranspositionTable(8), SearchOptions.DEFAULT)
+                .search(start, SearchLimits.depth(6)).nodes();
+        Assertions.assertTrue(pruned * 2 < full, "Expected at least half the nodes, got " + pruned + " vs " + full);
+    }
+
+    @Test
+    @DisplayName("Pruning Keeps Best Moves And Scores")
+    public void pruningAgreesWithFullWidth() {
+        String[] positions = {
+                Fen.START,
+                "r2q1rk1/ppp2ppp/2n1bn2/3p4/3P4/2NBPN2/PP3PPP/R2Q1RK1 w - - 0 1",
+                "8/8/4k3/8/2p5/8/B2K4/8 w - - 0 1",
+                SUITE[0][0],
+                SUITE[2][0],
+        };
+        for (String fen : positions) {
+            SearchResult full = new Search(new ClassicEvaluator(), new TranspositionTable(8), SearchOptions.FULL_WIDTH)
+                    .search(Fen.parse(fen), SearchLimits.depth(4));
+            SearchResult pruned = new Search(new ClassicEvaluator(), new TranspositionTable(8), SearchOptions.DEFAULT)
+                    .search(Fen.parse(fen), SearchLimits.depth(4));
+            Assertions.assertEquals(Moves.toUci(full.bestMove()), Moves.toUci(pruned.bestMove()), fen);
+            // Reduced lines may end up a little off, but never by a pawn
+            Assertions.assertTrue(Math.abs(full.score() - pruned.score()) < 50,
+                    fen + ": " + full.score() + " vs " + pruned.score());
+        }
+    }
+}
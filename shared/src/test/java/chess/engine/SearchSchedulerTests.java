@@ -0,0 +1,67 @@
+package chess.engine;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.TimeUnit;
+
+public class SearchSchedulerTests {
+
+    @Test
+    @DisplayName("Sliced Search Matches Uninterrupted Search")
+    public void slicedMatchesWhole() {
+        Position position = Fen.parse("r1b2rk1/ppp2ppp/8/4N3/2Bq4/8/PPP2PPP/R2Q1RK1 w - - 0 1");
+        SearchResult whole = new Search().search(position, SearchLimits.depth(5));
+
+        var sliced = new Search();
+        sliced.begin(position, SearchLimits.depth(5));
+        int slices = 1;
+        while (!sliced.resume(500)) slices++;
+
+        Assertions.assertTrue(slices > 1, "Search was never preempted");
+        Assertions.assertEquals(whole.bestMove(), sliced.result().bestMove());
+        Assertions.assertEquals(5, sliced.result().depth());
+    }
+
+    @Test
+    @DisplayName("Repeated Slices Stay Bounded")
+    public void boundedSlices() {
+        var search = new Search();
+        search.begin(Fen.parse("r1b2rk1/ppp2ppp/8/4N3/2Bq4/8/PPP2PPP/R2Q1RK1 w - - 0 1"), SearchLimits.depth(8));
+        long longest = 0;
+        boolean done = false;
+        while (!done) {
+            long before = search.result().nodes();
+            done = search.resume(200);
+            longest = Math.max(longest, search.result().nodes() - before);
+        }
+        Assertions.assertEquals(8, search.result().depth());
+        // Preemption is checked every 1024 nodes, so a slice can run that far past its budget
+        Assertions.assertTrue(longest <= (200 << Search.MAX_SLICE_GROWTH) + 1024, "A slice ran " + longest + " nodes");
+    }
+
+    @Test
+    @DisplayName("Long Search Does Not Starve Short One")
+    public void roundRobin() throws Exception {
+        try (var scheduler = new SearchScheduler(1, 1_000, 8)) {
+            var heavy = scheduler.submit(new ChessGame(), SearchLimits.depth(12));
+            var light = scheduler.submit(new ChessGame(), SearchLimits.depth(2));
+
+            SearchResult result = light.get(10, TimeUnit.SECONDS);
+            Assertions.assertNotNull(result.bestChessMove());
+            Assertions.assertFalse(heavy.isDone(), "Light search should finish while the heavy one is still running");
+            heavy.cancel(true);
+
+            var stats = scheduler.stats();
+            Assertions.assertTrue(stats.preemptions() > 0);
+            Assertions.assertTrue(stats.completed() >= 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Clock Budget")
+    public void clockBudget() {
+        Assertions.assertEquals(2_000 + 750, SearchLimits.fromClock(60_000, 1_000, 30).movetimeMillis());
+        Assertions.assertEquals(500, SearchLimits.fromClock(1_000, 5_000, 0).movetimeMillis());
+    }
+}
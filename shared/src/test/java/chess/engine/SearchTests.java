@@ -0,0 +1,110 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.*;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Perft From Starting Position")
+    public void perftStart() {
+        Position position = Fen.parse(Fen.START);
+        Assertions.assertEquals(20, Perft.perft(position, 1));
+        Assertions.assertEquals(400, Perft.perft(position, 2));
+        Assertions.assertEquals(8902, Perft.perft(position, 3));
+        Assertions.assertEquals(197281, Perft.perft(position, 4));
+    }
+
+    @Test
+    @DisplayName("Perft Rook And Pawn Endgame")
+    public void perftEndgame() {
+        // Published counts minus the two en passant captures at depth 3
+        Position position = Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        Assertions.assertEquals(14, Perft.perft(position, 1));
+        Assertions.assertEquals(191, Perft.perft(position, 2));
+        Assertions.assertEquals(2810, Perft.perft(position, 3));
+    }
+
+    @Test
+    @DisplayName("Make And Unmake Restore Position")
+    public void makeUnmake() {
+        Position position = Fen.parse("r3k3/1P6/8/8/8/8/8/4K2R w - - 0 1");
+        long key = position.key();
+        String fen = Fen.toFen(position);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            position.unmakeMove();
+            Assertions.assertEquals(key, position.key(), "Key changed after " + Moves.toUci(moves[i]));
+            Assertions.assertEquals(fen, Fen.toFen(position), "Board changed after " + Moves.toUci(moves[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("Static Exchange Of Defended Pawn")
+    public void seeDefendedPawn() {
+        Position position = Fen.parse("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        Assertions.assertEquals(100, StaticExchange.evaluate(position, Moves.parseUci("e1e5")));
+    }
+
+    @Test
+    @DisplayName("Static Exchange With X-Ray Attackers")
+    public void seeXray() {
+        Position position = Fen.parse("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        Assertions.assertEquals(-220, StaticExchange.evaluate(position, Moves.parseUci("d3e5")));
+    }
+
+    @Test
+    @DisplayName("Static Exchange Reuses Gain Buffer")
+    public void seeSharedBuffer() {
+        int[] gain = new int[StaticExchange.MAX_EXCHANGE];
+        Position xray = Fen.parse("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        Position pawn = Fen.parse("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        Assertions.assertEquals(-220, StaticExchange.evaluate(xray, Moves.parseUci("d3e5"), gain));
+        Assertions.assertEquals(100, StaticExchange.evaluate(pawn, Moves.parseUci("e1e5"), gain));
+        Assertions.assertEquals(-220, StaticExchange.evaluate(xray, Moves.parseUci("d3e5"), gain));
+    }
+
+    @Test
+    @DisplayName("Static Exchange On ChessGame")
+    public void seeChessGame() {
+        var game = new ChessGame();
+        game.setBoard(Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1").toBoard());
+        var capture = new ChessMove(new ChessPosition(1, 4), new ChessPosition(5, 4), null);
+        Assertions.assertEquals(100 - 900, StaticExchange.evaluate(game, capture));
+    }
+
+    @Test
+    @DisplayName("Quiescence Avoids Defended Pawn")
+    public void quiescenceAvoidsPoisonedPawn() {
+        Position position = Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        SearchResult result = new Search().search(position, SearchLimits.depth(1));
+        Assertions.assertNotEquals(Moves.parseUci("d1d5"), result.bestMove(),
+                "Depth one search took a pawn defended by a pawn");
+        Assertions.assertTrue(result.score() > 500, "Score should stay close to a queen for two pawns");
+    }
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        Position position = Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w - - 0 1");
+        SearchResult result = new Search().search(position, SearchLimits.depth(3));
+        Assertions.assertEquals(Moves.parseUci("h5f7"), result.bestMove());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Engine Moves Are Legal In ChessGame")
+    public void engineMoveIsLegal() throws Exception {
+        var game = new ChessGame();
+        var search = new Search();
+        for (int i = 0; i < 6; i++) {
+            ChessMove move = search.findBestMove(game, SearchLimits.depth(3));
+            Assertions.assertNotNull(move);
+            game.makeMove(move);
+        }
+    }
+}
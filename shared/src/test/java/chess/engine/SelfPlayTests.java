@@ -0,0 +1,43 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SelfPlayTests {
+
+    @Test
+    @DisplayName("SPRT Decides Lopsided Results")
+    public void sprt() {
+        SelfPlay.Sprt sprt = new SelfPlay.Sprt(0, 10, 0.05, 0.05);
+        Assertions.assertEquals(0, sprt.llr(0, 0, 0));
+        Assertions.assertEquals(SelfPlay.Sprt.Decision.CONTINUE, sprt.decide(sprt.llr(10, 80, 10)));
+        Assertions.assertEquals(SelfPlay.Sprt.Decision.ACCEPT_ELO1, sprt.decide(sprt.llr(600, 1000, 400)));
+        Assertions.assertEquals(SelfPlay.Sprt.Decision.ACCEPT_ELO0, sprt.decide(sprt.llr(400, 1000, 600)));
+        Assertions.assertEquals(0, new SelfPlay.MatchResult(5, 10, 5, 0, null).elo(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Scores Finished Games")
+    public void play() throws Exception {
+        SelfPlay.Player player = new SelfPlay.Player("p", SearchOptions.DEFAULT, SearchLimits.depth(2));
+        // White mates at once, black is already stalemated
+        Assertions.assertEquals(1, SelfPlay.play("6k1/5ppp/8/8/8/8/8/R5K1 w - -", player, player, new AtomicBoolean()));
+        Assertions.assertEquals(0.5, SelfPlay.play("k7/2Q5/1K6/8/8/8/8/8 b - -", player, player, new AtomicBoolean()));
+        Assertions.assertEquals(-1, SelfPlay.play(Fen.START, player, player, new AtomicBoolean(true)));
+    }
+
+    @Test
+    @DisplayName("Plays Openings With Colors Swapped")
+    public void match() throws Exception {
+        SelfPlay.Player player = new SelfPlay.Player("p", SearchOptions.DEFAULT, SearchLimits.depth(1));
+        SelfPlay match = new SelfPlay(player, player, new SelfPlay.Sprt(0, 5, 0.05, 0.05), 2);
+        // Whoever has the rook mates, so each pair of games is one win and one loss
+        SelfPlay.MatchResult result = match.run(List.of("6k1/5ppp/8/8/8/8/8/R5K1 w - -"), 4, null);
+        Assertions.assertEquals(4, result.games());
+        Assertions.assertEquals(2, result.wins());
+        Assertions.assertEquals(2, result.losses());
+        Assertions.assertEquals(SelfPlay.Sprt.Decision.CONTINUE, result.decision());
+    }
+}
@@ -0,0 +1,71 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path directory;
+
+    private static Map<String, byte[][]> generated;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws Exception {
+        generated = new HashMap<>();
+        for (String signature : new String[]{"KQK", "KRK", "KPK"}) {
+            byte[][] values = TablebaseGenerator.generate(signature, generated);
+            TablebaseGenerator.write(directory.resolve(signature + Tablebase.EXTENSION), signature, values);
+        }
+        tablebase = Tablebase.open(directory);
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match Known Values")
+    public void longestMates() {
+        // Mate in 10 with the queen and mate in 16 with the rook
+        Assertions.assertEquals(19, TablebaseGenerator.longestWin(generated.get("KQK")[Pieces.WHITE]));
+        Assertions.assertEquals(31, TablebaseGenerator.longestWin(generated.get("KRK")[Pieces.WHITE]));
+    }
+
+    @Test
+    @DisplayName("Opposition Decides King And Pawn")
+    public void opposition() {
+        Tablebase.Result toMove = tablebase.probe(Fen.parse("8/4k3/8/4K3/4P3/8/8/8 w - - 0 1"));
+        Assertions.assertEquals(Tablebase.Outcome.DRAW, toMove.outcome());
+        Tablebase.Result blackToMove = tablebase.probe(Fen.parse("8/4k3/8/4K3/4P3/8/8/8 b - - 0 1"));
+        Assertions.assertEquals(Tablebase.Outcome.LOSS, blackToMove.outcome());
+
+        // The same position with colors swapped is mirrored onto the white table
+        Tablebase.Result mirrored = tablebase.probe(Fen.parse("8/8/8/4p3/4k3/8/4K3/8 w - - 0 1"));
+        Assertions.assertEquals(blackToMove, mirrored);
+    }
+
+    @Test
+    @DisplayName("Best Moves Mate In Table Distance")
+    public void playsOutMate() {
+        Position position = Fen.parse("8/8/8/3k4/8/8/8/R3K3 w - - 0 1");
+        Tablebase.Result start = tablebase.probe(position);
+        Assertions.assertEquals(Tablebase.Outcome.WIN, start.outcome());
+        for (int ply = 0; ply < start.distanceToMate(); ply++) {
+            int move = tablebase.bestMove(position);
+            Assertions.assertNotEquals(Moves.NONE, move);
+            position.makeMove(move);
+        }
+        Assertions.assertTrue(position.inCheck());
+        Assertions.assertFalse(MoveGenerator.hasLegalMove(position));
+    }
+
+    @Test
+    @DisplayName("Uncovered Material Is Not Probed")
+    public void uncovered() {
+        Assertions.assertNull(tablebase.probe(Fen.parse(Fen.START)));
+        Assertions.assertEquals(Tablebase.Outcome.DRAW,
+                tablebase.probe(Fen.parse("8/8/8/3k4/8/8/8/B3K3 w - - 0 1")).outcome());
+    }
+}
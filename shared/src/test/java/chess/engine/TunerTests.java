@@ -0,0 +1,61 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+public class TunerTests {
+
+    private static final String DATA = """
+            rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - c9 "1/2-1/2";
+            4k3/8/8/8/8/8/4P3/R3K3 w - - [1.0]
+            4k3/8/8/8/8/8/4P3/R3K3 b - - 1-0
+            r3k3/4p3/8/8/8/8/8/4K3 w - - 0.0
+            r3k3/4p3/8/8/8/8/8/4K3 b - - 0-1
+            2q1k3/8/8/8/8/8/8/R3K3 w - - 0-1
+            no result on this line
+            """;
+
+    private static Tuner.Dataset read() throws Exception {
+        return Tuner.Dataset.read(new BufferedReader(new StringReader(DATA)));
+    }
+
+    @Test
+    @DisplayName("Reads Results In Common Formats")
+    public void readResults() throws Exception {
+        Tuner.Dataset data = read();
+        Assertions.assertEquals(6, data.size());
+        Assertions.assertEquals(0.5, data.result(0));
+        Assertions.assertEquals(1, data.result(1));
+        Assertions.assertEquals(0, data.result(3));
+        Assertions.assertTrue(Double.isNaN(Tuner.Dataset.parseResult("8/8/8/8/8/8/8/8 w - -")));
+    }
+
+    @Test
+    @DisplayName("Packed Evaluation Matches The Evaluator")
+    public void evaluation() throws Exception {
+        Tuner.Dataset data = read();
+        ClassicEvaluator evaluator = new ClassicEvaluator();
+        Tuner tuner = new Tuner(data, evaluator);
+        String[] lines = DATA.split("\n");
+        for (int i = 0; i < data.size(); i++) {
+            // Only the board is read, so the evaluator scores it for white
+            Position position = Fen.parse(lines[i].split(" ")[0]);
+            Assertions.assertEquals(evaluator.evaluate(position), tuner.evaluate(i), 1e-9, lines[i]);
+        }
+        Assertions.assertArrayEquals(evaluator.pieceValues(), tuner.toEvaluator().pieceValues());
+    }
+
+    @Test
+    @DisplayName("Tuning Lowers The Error")
+    public void tune() throws Exception {
+        Tuner.Dataset data = read();
+        Tuner gradient = new Tuner(data, new ClassicEvaluator());
+        double before = gradient.error();
+        Assertions.assertTrue(gradient.gradientDescent(50, 2.0, null) < before);
+
+        Tuner coordinate = new Tuner(data, new ClassicEvaluator());
+        Assertions.assertTrue(coordinate.coordinateDescent(2, null) < before);
+    }
+}
@@ -0,0 +1,69 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+public class UciTests {
+
+    private static String run(String script) throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        var uci = new Uci(new BufferedReader(new StringReader(script)), new PrintStream(bytes, true));
+        uci.run();
+        return bytes.toString();
+    }
+
+    @Test
+    @DisplayName("Handshake")
+    public void handshake() throws Exception {
+        String output = run("uci\nisready\n");
+        Assertions.assertTrue(output.contains("id name " + Uci.NAME));
+        Assertions.assertTrue(output.contains("option name Hash"));
+        Assertions.assertTrue(output.contains("uciok"));
+        Assertions.assertTrue(output.contains("readyok"));
+    }
+
+    @Test
+    @DisplayName("Go Depth Finds Mate From Moves")
+    public void positionWithMoves() throws Exception {
+        String output = run("""
+                setoption name Hash value 4
+                position startpos moves e2e4 e7e5 f1c4 b8c6 d1h5 g8f6
+                go depth 3
+                """);
+        Assertions.assertTrue(output.contains("score mate 1"), output);
+        Assertions.assertTrue(output.contains("bestmove h5f7"), output);
+    }
+
+    @Test
+    @DisplayName("Position From FEN")
+    public void positionFromFen() throws Exception {
+        String output = run("""
+                position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1
+                go nodes 5000
+                """);
+        Assertions.assertTrue(output.contains("bestmove a1a8"), output);
+    }
+
+    @Test
+    @DisplayName("Illegal Move Is Reported")
+    public void illegalMove() throws Exception {
+        String output = run("position startpos moves e2e5\n");
+        Assertions.assertTrue(output.contains("info string illegal move e2e5"), output);
+    }
+
+    @Test
+    @DisplayName("Stop Ends Infinite Search With Threads")
+    public void stopInfinite() throws Exception {
+        String output = run("""
+                setoption name Threads value 2
+                position startpos
+                go infinite
+                stop
+                """);
+        Assertions.assertTrue(output.contains("bestmove "), output);
+    }
+}